@@ -898,6 +898,26 @@ Error Main::setup(const char *execpath, int argc, char *argv[], bool p_second_ph
 #endif
 	}
 
+	GLOBAL_DEF_RST("audio/android/adaptive_buffer_size", true);
+	GLOBAL_DEF_RST("audio/android/float_output", false);
+	GLOBAL_DEF_RST("audio/android/capture_period_frames", 256);
+	ProjectSettings::get_singleton()->set_custom_property_info("audio/android/capture_period_frames", PropertyInfo(Variant::INT, "audio/android/capture_period_frames", PROPERTY_HINT_RANGE, "32,4096,1"));
+	GLOBAL_DEF("android/java_file_access", false);
+	GLOBAL_DEF("input_devices/android/low_latency_mode", false);
+	GLOBAL_DEF("input_devices/pointing/android/touch_prediction_msec", 0);
+	ProjectSettings::get_singleton()->set_custom_property_info("input_devices/pointing/android/touch_prediction_msec", PropertyInfo(Variant::INT, "input_devices/pointing/android/touch_prediction_msec", PROPERTY_HINT_RANGE, "0,50,1"));
+	GLOBAL_DEF("input_devices/sensors/android/max_report_latency_usec", 0);
+	ProjectSettings::get_singleton()->set_custom_property_info("input_devices/sensors/android/max_report_latency_usec", PropertyInfo(Variant::INT, "input_devices/sensors/android/max_report_latency_usec", PROPERTY_HINT_RANGE, "0,1000000,1000"));
+	GLOBAL_DEF("input_devices/sensors/android/sampling_period_usec", 20000);
+	ProjectSettings::get_singleton()->set_custom_property_info("input_devices/sensors/android/sampling_period_usec", PropertyInfo(Variant::INT, "input_devices/sensors/android/sampling_period_usec", PROPERTY_HINT_RANGE, "1000,200000,1000"));
+	GLOBAL_DEF("memory/limits/android/asset_cache_size_kb", 8192);
+	ProjectSettings::get_singleton()->set_custom_property_info("memory/limits/android/asset_cache_size_kb", PropertyInfo(Variant::INT, "memory/limits/android/asset_cache_size_kb", PROPERTY_HINT_RANGE, "0,65536,1,or_greater"));
+	GLOBAL_DEF("memory/limits/android/asset_extraction_cache_mb", 0);
+	ProjectSettings::get_singleton()->set_custom_property_info("memory/limits/android/asset_extraction_cache_mb", PropertyInfo(Variant::INT, "memory/limits/android/asset_extraction_cache_mb", PROPERTY_HINT_RANGE, "0,1024,1,or_greater"));
+	GLOBAL_DEF("memory/limits/android/audio_decoder_memory_kb", 2048);
+	ProjectSettings::get_singleton()->set_custom_property_info("memory/limits/android/audio_decoder_memory_kb", PropertyInfo(Variant::INT, "memory/limits/android/audio_decoder_memory_kb", PROPERTY_HINT_RANGE, "0,16384,1,or_greater"));
+	GLOBAL_DEF("memory/limits/android/asset_read_ahead_kb", 0);
+	ProjectSettings::get_singleton()->set_custom_property_info("memory/limits/android/asset_read_ahead_kb", PropertyInfo(Variant::INT, "memory/limits/android/asset_read_ahead_kb", PROPERTY_HINT_RANGE, "0,4096,64,or_greater"));
 	GLOBAL_DEF("memory/limits/multithreaded_server/rid_pool_prealloc", 60);
 	ProjectSettings::get_singleton()->set_custom_property_info("memory/limits/multithreaded_server/rid_pool_prealloc", PropertyInfo(Variant::INT, "memory/limits/multithreaded_server/rid_pool_prealloc", PROPERTY_HINT_RANGE, "0,500,1")); // No negative and limit to 500 due to crashes
 	GLOBAL_DEF("network/limits/debugger_stdout/max_chars_per_second", 2048);
@@ -30,7 +30,9 @@
 
 #include "api.h"
 
+#include "audio_stream_mediacodec.h"
 #include "core/engine.h"
+#include "input_event_screen_drag_prediction.h"
 #include "java_class_wrapper.h"
 #include "jni_singleton.h"
 
@@ -48,6 +50,8 @@ void register_android_api() {
 	ClassDB::register_class<JNISingleton>();
 #endif
 
+	ClassDB::register_class<AudioStreamMediaCodec>();
+	ClassDB::register_class<InputEventScreenDragPrediction>();
 	ClassDB::register_class<JavaClass>();
 	ClassDB::register_class<JavaClassWrapper>();
 	Engine::get_singleton()->add_singleton(Engine::Singleton("JavaClassWrapper", JavaClassWrapper::get_singleton()));
@@ -60,6 +64,111 @@ void unregister_android_api() {
 #endif
 }
 
+void AudioStreamMediaCodec::set_file(const String &p_file) {
+
+	file = p_file;
+	length = 0;
+}
+
+String AudioStreamMediaCodec::get_file() const {
+
+	return file;
+}
+
+void AudioStreamMediaCodec::set_loop(bool p_enable) {
+
+	loop = p_enable;
+}
+
+bool AudioStreamMediaCodec::has_loop() const {
+
+	return loop;
+}
+
+String AudioStreamMediaCodec::get_stream_name() const {
+
+	return file.get_file();
+}
+
+void AudioStreamMediaCodec::_bind_methods() {
+
+	ClassDB::bind_method(D_METHOD("set_file", "file"), &AudioStreamMediaCodec::set_file);
+	ClassDB::bind_method(D_METHOD("get_file"), &AudioStreamMediaCodec::get_file);
+
+	ClassDB::bind_method(D_METHOD("set_loop", "enable"), &AudioStreamMediaCodec::set_loop);
+	ClassDB::bind_method(D_METHOD("has_loop"), &AudioStreamMediaCodec::has_loop);
+
+	ADD_PROPERTY(PropertyInfo(Variant::STRING, "file", PROPERTY_HINT_FILE, "*.mp3,*.m4a,*.aac,*.ogg,*.opus,*.flac,*.wav"), "set_file", "get_file");
+	ADD_PROPERTY(PropertyInfo(Variant::BOOL, "loop"), "set_loop", "has_loop");
+}
+
+AudioStreamMediaCodec::AudioStreamMediaCodec() {
+
+	loop = false;
+	length = 0;
+}
+
+void InputEventScreenDragPrediction::set_index(int p_index) {
+	index = p_index;
+}
+
+int InputEventScreenDragPrediction::get_index() const {
+	return index;
+}
+
+void InputEventScreenDragPrediction::set_position(const Vector2 &p_pos) {
+	pos = p_pos;
+}
+
+Vector2 InputEventScreenDragPrediction::get_position() const {
+	return pos;
+}
+
+void InputEventScreenDragPrediction::set_lead_time(float p_lead_time) {
+	lead_time = p_lead_time;
+}
+
+float InputEventScreenDragPrediction::get_lead_time() const {
+	return lead_time;
+}
+
+Ref<InputEvent> InputEventScreenDragPrediction::xformed_by(const Transform2D &p_xform, const Vector2 &p_local_ofs) const {
+
+	Ref<InputEventScreenDragPrediction> sp;
+	sp.instance();
+
+	sp->set_device(get_device());
+	sp->set_index(index);
+	sp->set_position(p_xform.xform(pos + p_local_ofs));
+	sp->set_lead_time(lead_time);
+
+	return sp;
+}
+
+String InputEventScreenDragPrediction::as_text() const {
+	return "InputEventScreenDragPrediction : index=" + itos(index) + ", position=(" + String(get_position()) + "), lead_time=" + rtos(lead_time);
+}
+
+void InputEventScreenDragPrediction::_bind_methods() {
+	ClassDB::bind_method(D_METHOD("set_index", "index"), &InputEventScreenDragPrediction::set_index);
+	ClassDB::bind_method(D_METHOD("get_index"), &InputEventScreenDragPrediction::get_index);
+
+	ClassDB::bind_method(D_METHOD("set_position", "position"), &InputEventScreenDragPrediction::set_position);
+	ClassDB::bind_method(D_METHOD("get_position"), &InputEventScreenDragPrediction::get_position);
+
+	ClassDB::bind_method(D_METHOD("set_lead_time", "lead_time"), &InputEventScreenDragPrediction::set_lead_time);
+	ClassDB::bind_method(D_METHOD("get_lead_time"), &InputEventScreenDragPrediction::get_lead_time);
+
+	ADD_PROPERTY(PropertyInfo(Variant::INT, "index"), "set_index", "get_index");
+	ADD_PROPERTY(PropertyInfo(Variant::VECTOR2, "position"), "set_position", "get_position");
+	ADD_PROPERTY(PropertyInfo(Variant::REAL, "lead_time"), "set_lead_time", "get_lead_time");
+}
+
+InputEventScreenDragPrediction::InputEventScreenDragPrediction() {
+	index = 0;
+	lead_time = 0;
+}
+
 void JavaClassWrapper::_bind_methods() {
 
 	ClassDB::bind_method(D_METHOD("wrap", "name"), &JavaClassWrapper::wrap);
@@ -67,6 +176,68 @@ void JavaClassWrapper::_bind_methods() {
 
 #if !defined(ANDROID_ENABLED)
 
+// Decoding is only available on Android, these playbacks stay silent.
+
+void AudioStreamPlaybackMediaCodec::_mix_internal(AudioFrame *p_buffer, int p_frames) {
+
+	for (int i = 0; i < p_frames; i++) {
+		p_buffer[i] = AudioFrame(0, 0);
+	}
+}
+
+void AudioStreamPlaybackMediaCodec::mix(AudioFrame *p_buffer, float p_rate_scale, int p_frames) {
+
+	_mix_internal(p_buffer, p_frames);
+}
+
+float AudioStreamPlaybackMediaCodec::get_stream_sampling_rate() {
+
+	return sample_rate;
+}
+
+void AudioStreamPlaybackMediaCodec::start(float p_from_pos) {
+}
+
+void AudioStreamPlaybackMediaCodec::stop() {
+}
+
+bool AudioStreamPlaybackMediaCodec::is_playing() const {
+
+	return false;
+}
+
+int AudioStreamPlaybackMediaCodec::get_loop_count() const {
+
+	return 0;
+}
+
+float AudioStreamPlaybackMediaCodec::get_playback_position() const {
+
+	return 0;
+}
+
+void AudioStreamPlaybackMediaCodec::seek(float p_time) {
+}
+
+AudioStreamPlaybackMediaCodec::AudioStreamPlaybackMediaCodec() {
+
+	decoder = -1;
+	sample_rate = 44100;
+}
+
+AudioStreamPlaybackMediaCodec::~AudioStreamPlaybackMediaCodec() {
+}
+
+Ref<AudioStreamPlayback> AudioStreamMediaCodec::instance_playback() {
+
+	return Ref<AudioStreamPlayback>();
+}
+
+float AudioStreamMediaCodec::get_length() const {
+
+	return 0;
+}
+
 Variant JavaClass::call(const StringName &, const Variant **, int, Variant::CallError &) {
 	return Variant();
 }
@@ -0,0 +1,111 @@
+/*************************************************************************/
+/*  audio_stream_mediacodec.h                                            */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+#ifndef AUDIO_STREAM_MEDIACODEC_H
+#define AUDIO_STREAM_MEDIACODEC_H
+
+#include "servers/audio/audio_stream.h"
+
+class AudioStreamMediaCodec;
+
+class AudioStreamPlaybackMediaCodec : public AudioStreamPlaybackResampled {
+
+	GDCLASS(AudioStreamPlaybackMediaCodec, AudioStreamPlaybackResampled);
+
+	friend class AudioStreamMediaCodec;
+
+	Ref<AudioStreamMediaCodec> stream;
+
+	int decoder;
+	Vector<const uint8_t *> chunks;
+	const int16_t *samples;
+	int sample_count;
+	int sample_pos;
+	int sample_rate;
+	// Rate of the current chunk when it differs from the one the resampler was started with.
+	int pending_sample_rate;
+	int channels;
+
+	uint64_t frames_mixed;
+	bool active;
+	bool ended;
+	int loops;
+
+	bool _next_chunk();
+
+protected:
+	virtual void _mix_internal(AudioFrame *p_buffer, int p_frames);
+	virtual float get_stream_sampling_rate();
+
+public:
+	virtual void start(float p_from_pos = 0.0);
+	virtual void stop();
+	virtual bool is_playing() const;
+
+	virtual int get_loop_count() const; //times it looped
+
+	virtual float get_playback_position() const;
+	virtual void seek(float p_time);
+
+	virtual void mix(AudioFrame *p_buffer, float p_rate_scale, int p_frames);
+
+	AudioStreamPlaybackMediaCodec();
+	~AudioStreamPlaybackMediaCodec();
+};
+
+class AudioStreamMediaCodec : public AudioStream {
+
+	GDCLASS(AudioStreamMediaCodec, AudioStream);
+
+	friend class AudioStreamPlaybackMediaCodec;
+
+	String file;
+	bool loop;
+	float length;
+
+protected:
+	static void _bind_methods();
+
+public:
+	void set_file(const String &p_file);
+	String get_file() const;
+
+	void set_loop(bool p_enable);
+	bool has_loop() const;
+
+	virtual Ref<AudioStreamPlayback> instance_playback();
+	virtual String get_stream_name() const;
+
+	virtual float get_length() const; //if supported, otherwise return 0
+
+	AudioStreamMediaCodec();
+};
+
+#endif // AUDIO_STREAM_MEDIACODEC_H
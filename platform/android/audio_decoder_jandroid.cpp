@@ -0,0 +1,127 @@
+/*************************************************************************/
+/*  audio_decoder_jandroid.cpp                                           */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+#include "audio_decoder_jandroid.h"
+
+#include "thread_jandroid.h"
+
+jobject AudioDecoderJAndroid::io = NULL;
+jclass AudioDecoderJAndroid::cls;
+
+jmethodID AudioDecoderJAndroid::_open = 0;
+jmethodID AudioDecoderJAndroid::_get_info = 0;
+jmethodID AudioDecoderJAndroid::_get_chunks = 0;
+jmethodID AudioDecoderJAndroid::_next_chunk = 0;
+jmethodID AudioDecoderJAndroid::_seek = 0;
+jmethodID AudioDecoderJAndroid::_close = 0;
+
+int AudioDecoderJAndroid::open(const String &p_path, bool p_asset, bool p_loop) {
+
+	JNIEnv *env = ThreadAndroid::get_env();
+	jstring js = env->NewStringUTF(p_path.utf8().get_data());
+	int id = env->CallIntMethod(io, _open, js, p_asset, p_loop);
+	env->DeleteLocalRef(js);
+	return id;
+}
+
+bool AudioDecoderJAndroid::get_info(int p_id, int *r_sample_rate, int *r_channels, float *r_length) {
+
+	JNIEnv *env = ThreadAndroid::get_env();
+	jintArray info = (jintArray)env->CallObjectMethod(io, _get_info, p_id);
+	if (!info) {
+		return false;
+	}
+
+	jint values[3];
+	env->GetIntArrayRegion(info, 0, 3, values);
+	env->DeleteLocalRef(info);
+
+	*r_sample_rate = values[0];
+	*r_channels = values[1];
+	*r_length = values[2] / 1000.0;
+	return true;
+}
+
+Vector<const uint8_t *> AudioDecoderJAndroid::get_chunks(int p_id) {
+
+	Vector<const uint8_t *> chunks;
+
+	JNIEnv *env = ThreadAndroid::get_env();
+	jobjectArray array = (jobjectArray)env->CallObjectMethod(io, _get_chunks, p_id);
+	if (!array) {
+		return chunks;
+	}
+
+	// The chunks are direct buffers kept alive by the decoder until it's closed.
+	int count = env->GetArrayLength(array);
+	chunks.resize(count);
+	for (int i = 0; i < count; i++) {
+		jobject chunk = env->GetObjectArrayElement(array, i);
+		chunks.write[i] = (const uint8_t *)env->GetDirectBufferAddress(chunk);
+		env->DeleteLocalRef(chunk);
+	}
+	env->DeleteLocalRef(array);
+
+	return chunks;
+}
+
+int AudioDecoderJAndroid::next_chunk(int p_id) {
+
+	JNIEnv *env = ThreadAndroid::get_env();
+	return env->CallIntMethod(io, _next_chunk, p_id);
+}
+
+void AudioDecoderJAndroid::seek(int p_id, float p_time) {
+
+	JNIEnv *env = ThreadAndroid::get_env();
+	env->CallVoidMethod(io, _seek, p_id, (jdouble)p_time);
+}
+
+void AudioDecoderJAndroid::close(int p_id) {
+
+	JNIEnv *env = ThreadAndroid::get_env();
+	env->CallVoidMethod(io, _close, p_id);
+}
+
+void AudioDecoderJAndroid::setup(jobject p_io) {
+
+	io = p_io;
+	JNIEnv *env = ThreadAndroid::get_env();
+
+	jclass c = env->GetObjectClass(io);
+	cls = (jclass)env->NewGlobalRef(c);
+
+	_open = env->GetMethodID(cls, "decoderOpen", "(Ljava/lang/String;ZZ)I");
+	_get_info = env->GetMethodID(cls, "decoderGetInfo", "(I)[I");
+	_get_chunks = env->GetMethodID(cls, "decoderGetChunks", "(I)[Ljava/lang/Object;");
+	_next_chunk = env->GetMethodID(cls, "decoderNextChunk", "(I)I");
+	_seek = env->GetMethodID(cls, "decoderSeek", "(ID)V");
+	_close = env->GetMethodID(cls, "decoderClose", "(I)V");
+}
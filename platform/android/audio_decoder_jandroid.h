@@ -0,0 +1,69 @@
+/*************************************************************************/
+/*  audio_decoder_jandroid.h                                             */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+#ifndef AUDIO_DECODER_JANDROID_H
+#define AUDIO_DECODER_JANDROID_H
+
+#include "core/ustring.h"
+#include "core/vector.h"
+#include "java_godot_lib_jni.h"
+
+// Native side of org.godotengine.godot.audio.AudioDecoderService, see AudioDecoder.java for the
+// layout of the chunks.
+class AudioDecoderJAndroid {
+
+	static jobject io;
+	static jclass cls;
+
+	static jmethodID _open;
+	static jmethodID _get_info;
+	static jmethodID _get_chunks;
+	static jmethodID _next_chunk;
+	static jmethodID _seek;
+	static jmethodID _close;
+
+public:
+	enum {
+		NOT_READY = -1,
+		END_OF_STREAM = -2,
+		CHUNK_HEADER_SIZE = 16,
+	};
+
+	static int open(const String &p_path, bool p_asset, bool p_loop);
+	static bool get_info(int p_id, int *r_sample_rate, int *r_channels, float *r_length);
+	static Vector<const uint8_t *> get_chunks(int p_id);
+	static int next_chunk(int p_id);
+	static void seek(int p_id, float p_time);
+	static void close(int p_id);
+
+	static void setup(jobject p_io);
+};
+
+#endif // AUDIO_DECODER_JANDROID_H
@@ -41,6 +41,10 @@ jmethodID AudioDriverAndroid::_init_audio;
 jmethodID AudioDriverAndroid::_write_buffer;
 jmethodID AudioDriverAndroid::_quit;
 jmethodID AudioDriverAndroid::_pause;
+jmethodID AudioDriverAndroid::_get_latency;
+jmethodID AudioDriverAndroid::_is_float;
+jmethodID AudioDriverAndroid::_capture_start;
+jmethodID AudioDriverAndroid::_capture_stop;
 bool AudioDriverAndroid::active = false;
 jclass AudioDriverAndroid::cls;
 int AudioDriverAndroid::audioBufferFrames = 0;
@@ -48,12 +52,19 @@ int AudioDriverAndroid::mix_rate = 44100;
 bool AudioDriverAndroid::quit = false;
 jobject AudioDriverAndroid::audioBuffer = NULL;
 void *AudioDriverAndroid::audioBufferPinned = NULL;
+bool AudioDriverAndroid::audioBufferFloat = false;
 Mutex *AudioDriverAndroid::mutex = NULL;
 int32_t *AudioDriverAndroid::audioBuffer32 = NULL;
+int16_t *AudioDriverAndroid::capture_ring = NULL;
+uint32_t AudioDriverAndroid::capture_ring_mask = 0;
+std::atomic<uint32_t> AudioDriverAndroid::capture_write_pos(0);
+std::atomic<uint32_t> AudioDriverAndroid::capture_read_pos(0);
+bool AudioDriverAndroid::capture_active = false;
+std::atomic<bool> AudioDriverAndroid::capture_error(false);
 
 const char *AudioDriverAndroid::get_name() const {
 
-	return "Android";
+	return "AudioTrack";
 }
 
 Error AudioDriverAndroid::init() {
@@ -76,21 +87,27 @@ Error AudioDriverAndroid::init() {
 	//        __android_log_print(ANDROID_LOG_VERBOSE, "SDL", "SDL audio: opening device");
 
 	JNIEnv *env = ThreadAndroid::get_env();
-	int mix_rate = GLOBAL_GET("audio/mix_rate");
+	mix_rate = GLOBAL_GET("audio/mix_rate");
 
 	int latency = GLOBAL_GET("audio/output_latency");
 	unsigned int buffer_size = next_power_of_2(latency * mix_rate / 1000);
 	print_verbose("Audio buffer size: " + itos(buffer_size));
 
-	audioBuffer = env->CallObjectMethod(io, _init_audio, mix_rate, buffer_size);
+	bool adaptive = GLOBAL_GET("audio/android/adaptive_buffer_size");
+	bool use_float = GLOBAL_GET("audio/android/float_output");
+
+	quit = false;
+	audioBuffer = env->CallObjectMethod(io, _init_audio, mix_rate, buffer_size, adaptive, use_float);
 
 	ERR_FAIL_COND_V(audioBuffer == NULL, ERR_INVALID_PARAMETER);
 
+	// Direct buffer shared with the track, filled in place every period.
 	audioBuffer = env->NewGlobalRef(audioBuffer);
-
-	jboolean isCopy = JNI_FALSE;
-	audioBufferPinned = env->GetShortArrayElements((jshortArray)audioBuffer, &isCopy);
-	audioBufferFrames = env->GetArrayLength((jshortArray)audioBuffer);
+	audioBufferPinned = env->GetDirectBufferAddress(audioBuffer);
+	ERR_FAIL_COND_V(audioBufferPinned == NULL, ERR_CANT_CREATE);
+	audioBufferFloat = env->CallBooleanMethod(io, _is_float);
+	int sample_size = audioBufferFloat ? sizeof(float) : sizeof(int16_t);
+	audioBufferFrames = env->GetDirectBufferCapacity(audioBuffer) / sample_size;
 	audioBuffer32 = memnew_arr(int32_t, audioBufferFrames);
 
 	return OK;
@@ -108,10 +125,14 @@ void AudioDriverAndroid::setup(jobject p_io) {
 	jclass c = env->GetObjectClass(io);
 	cls = (jclass)env->NewGlobalRef(c);
 
-	_init_audio = env->GetMethodID(cls, "audioInit", "(II)Ljava/lang/Object;");
-	_write_buffer = env->GetMethodID(cls, "audioWriteShortBuffer", "([S)V");
+	_init_audio = env->GetMethodID(cls, "audioInit", "(IIZZ)Ljava/lang/Object;");
+	_is_float = env->GetMethodID(cls, "audioIsFloat", "()Z");
+	_write_buffer = env->GetMethodID(cls, "audioWriteBuffer", "()V");
+	_capture_start = env->GetMethodID(cls, "audioCaptureStart", "(II)Z");
+	_capture_stop = env->GetMethodID(cls, "audioCaptureStop", "()V");
 	_quit = env->GetMethodID(cls, "audioQuit", "()V");
 	_pause = env->GetMethodID(cls, "audioPause", "(Z)V");
+	_get_latency = env->GetMethodID(cls, "audioGetLatency", "()F");
 }
 
 void AudioDriverAndroid::thread_func(JNIEnv *env) {
@@ -126,33 +147,149 @@ void AudioDriverAndroid::thread_func(JNIEnv *env) {
 	jobject gob = env->NewGlobalRef(ob);
 	jclass c = env->GetObjectClass(gob);
 	jclass lcls = (jclass)env->NewGlobalRef(c);
-	_write_buffer = env->GetMethodID(lcls, "audioWriteShortBuffer", "([S)V");
+	_write_buffer = env->GetMethodID(lcls, "audioWriteBuffer", "()V");
 
 	while (!quit) {
 
-		int16_t *ptr = (int16_t *)audioBufferPinned;
 		int fc = audioBufferFrames;
 
 		if (!s_ad->active || mutex->try_lock() != OK) {
 
-			for (int i = 0; i < fc; i++) {
-				ptr[i] = 0;
-			}
+			// Zero bits are silence in both formats.
+			memset(audioBufferPinned, 0, fc * (audioBufferFloat ? sizeof(float) : sizeof(int16_t)));
 
 		} else {
 
+			s_ad->_capture_drain();
 			s_ad->audio_server_process(fc / 2, audioBuffer32);
 
 			mutex->unlock();
 
-			for (int i = 0; i < fc; i++) {
+			if (audioBufferFloat) {
+				float *ptr = (float *)audioBufferPinned;
+				for (int i = 0; i < fc; i++) {
+
+					ptr[i] = audioBuffer32[i] * (1.0f / 2147483648.0f);
+				}
+			} else {
+				int16_t *ptr = (int16_t *)audioBufferPinned;
+				for (int i = 0; i < fc; i++) {
 
-				ptr[i] = audioBuffer32[i] >> 16;
+					ptr[i] = audioBuffer32[i] >> 16;
+				}
 			}
 		}
-		env->ReleaseShortArrayElements((jshortArray)audioBuffer, (jshort *)ptr, JNI_COMMIT);
-		env->CallVoidMethod(gob, _write_buffer, (jshortArray)audioBuffer);
+		env->CallVoidMethod(gob, _write_buffer);
+	}
+}
+
+Error AudioDriverAndroid::capture_start() {
+
+	if (capture_active) {
+		if (!capture_error.load()) {
+			return OK;
+		}
+		// The previous capture failed, start over.
+		capture_stop();
+	}
+
+	if (!OS::get_singleton()->request_permission("RECORD_AUDIO")) {
+		// The user is asked for the permission in the background. AudioServer only starts the
+		// capture once, so the microphone stream has to be restarted after it is granted.
+		ERR_FAIL_V_MSG(ERR_UNAUTHORIZED, "The RECORD_AUDIO permission is required to capture audio, restart the microphone stream once it is granted.");
 	}
+
+	int capture_frames = GLOBAL_GET("audio/android/capture_period_frames");
+	int period_frames = audioBufferFrames / 2;
+	uint32_t ring_size = next_power_of_2((capture_frames + period_frames) * 4);
+
+	lock();
+	capture_ring = memnew_arr(int16_t, ring_size);
+	capture_ring_mask = ring_size - 1;
+	capture_write_pos.store(0);
+	capture_read_pos.store(0);
+	input_buffer_init(period_frames);
+	capture_error.store(false);
+	capture_active = true;
+	unlock();
+
+	JNIEnv *env = ThreadAndroid::get_env();
+	if (!env->CallBooleanMethod(io, _capture_start, mix_rate, capture_frames)) {
+		lock();
+		capture_active = false;
+		memdelete_arr(capture_ring);
+		capture_ring = NULL;
+		unlock();
+		ERR_FAIL_V_MSG(ERR_CANT_OPEN, "Unable to start the audio capture.");
+	}
+
+	return OK;
+}
+
+Error AudioDriverAndroid::capture_stop() {
+
+	if (!capture_active) {
+		return OK;
+	}
+
+	// Waits for the capture thread to exit, nothing writes to the ring afterwards.
+	JNIEnv *env = ThreadAndroid::get_env();
+	env->CallVoidMethod(io, _capture_stop);
+
+	lock();
+	capture_active = false;
+	memdelete_arr(capture_ring);
+	capture_ring = NULL;
+	unlock();
+
+	return OK;
+}
+
+int AudioDriverAndroid::capture_write(JNIEnv *env, jobject p_buffer, int p_samples) {
+
+	const int16_t *src = (const int16_t *)env->GetDirectBufferAddress(p_buffer);
+	ERR_FAIL_COND_V(src == NULL || capture_ring == NULL, 0);
+
+	uint32_t write_pos = capture_write_pos.load(std::memory_order_relaxed);
+	uint32_t read_pos = capture_read_pos.load(std::memory_order_acquire);
+	uint32_t available = capture_ring_mask + 1 - (write_pos - read_pos);
+	uint32_t count = MIN((uint32_t)p_samples, available);
+
+	for (uint32_t i = 0; i < count; i++) {
+		capture_ring[(write_pos + i) & capture_ring_mask] = src[i];
+	}
+	capture_write_pos.store(write_pos + count, std::memory_order_release);
+
+	return count;
+}
+
+void AudioDriverAndroid::capture_failed(int p_error) {
+
+	// The mixer keeps mixing silence from the empty ring until the capture is stopped or restarted.
+	capture_error.store(true);
+	ERR_PRINT("Audio capture failed with error " + itos(p_error) + ".");
+}
+
+int AudioDriverAndroid::capture_get_queued() {
+
+	return capture_write_pos.load(std::memory_order_acquire) - capture_read_pos.load(std::memory_order_acquire);
+}
+
+void AudioDriverAndroid::_capture_drain() {
+
+	if (!capture_active) {
+		return;
+	}
+
+	uint32_t read_pos = capture_read_pos.load(std::memory_order_relaxed);
+	uint32_t write_pos = capture_write_pos.load(std::memory_order_acquire);
+
+	for (; read_pos != write_pos; read_pos++) {
+		int32_t sample = int32_t(uint32_t(uint16_t(capture_ring[read_pos & capture_ring_mask])) << 16);
+		input_buffer_write(sample);
+		input_buffer_write(sample); // call twice to convert to Stereo
+	}
+	capture_read_pos.store(read_pos, std::memory_order_release);
 }
 
 int AudioDriverAndroid::get_mix_rate() const {
@@ -160,6 +297,12 @@ int AudioDriverAndroid::get_mix_rate() const {
 	return mix_rate;
 }
 
+float AudioDriverAndroid::get_latency() {
+
+	JNIEnv *env = ThreadAndroid::get_env();
+	return env->CallFloatMethod(io, _get_latency);
+}
+
 AudioDriver::SpeakerMode AudioDriverAndroid::get_speaker_mode() const {
 
 	return SPEAKER_MODE_STEREO;
@@ -179,6 +322,11 @@ void AudioDriverAndroid::unlock() {
 
 void AudioDriverAndroid::finish() {
 
+	capture_stop();
+
+	// Let the audio thread exit its loop, the Java side then waits for it.
+	quit = true;
+
 	JNIEnv *env = ThreadAndroid::get_env();
 	env->CallVoidMethod(io, _quit);
 
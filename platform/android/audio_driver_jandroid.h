@@ -35,6 +35,8 @@
 
 #include "java_godot_lib_jni.h"
 
+#include <atomic>
+
 class AudioDriverAndroid : public AudioDriver {
 
 	static Mutex *mutex;
@@ -44,6 +46,10 @@ class AudioDriverAndroid : public AudioDriver {
 	static jmethodID _write_buffer;
 	static jmethodID _quit;
 	static jmethodID _pause;
+	static jmethodID _get_latency;
+	static jmethodID _is_float;
+	static jmethodID _capture_start;
+	static jmethodID _capture_stop;
 	static bool active;
 	static bool quit;
 
@@ -51,10 +57,22 @@ class AudioDriverAndroid : public AudioDriver {
 
 	static jobject audioBuffer;
 	static void *audioBufferPinned;
+	static bool audioBufferFloat;
 	static int32_t *audioBuffer32;
 	static int audioBufferFrames;
 	static int mix_rate;
 
+	// Single-producer (Java capture thread), single-consumer (mixer thread) ring of mono samples.
+	static int16_t *capture_ring;
+	static uint32_t capture_ring_mask;
+	static std::atomic<uint32_t> capture_write_pos;
+	static std::atomic<uint32_t> capture_read_pos;
+	static bool capture_active;
+	// Set by the capture thread when it stopped on an error.
+	static std::atomic<bool> capture_error;
+
+	void _capture_drain();
+
 public:
 	void set_singleton();
 
@@ -64,14 +82,21 @@ public:
 	virtual void start();
 	virtual int get_mix_rate() const;
 	virtual SpeakerMode get_speaker_mode() const;
+	virtual float get_latency();
 	virtual void lock();
 	virtual void unlock();
 	virtual void finish();
 
 	virtual void set_pause(bool p_pause);
 
+	virtual Error capture_start();
+	virtual Error capture_stop();
+
 	static void setup(jobject p_io);
 	static void thread_func(JNIEnv *env);
+	static int capture_write(JNIEnv *env, jobject p_buffer, int p_samples);
+	static int capture_get_queued();
+	static void capture_failed(int p_error);
 
 	AudioDriverAndroid();
 };
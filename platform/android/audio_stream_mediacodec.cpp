@@ -0,0 +1,217 @@
+/*************************************************************************/
+/*  audio_stream_mediacodec.cpp                                          */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+#include "api/audio_stream_mediacodec.h"
+
+#include "audio_decoder_jandroid.h"
+#include "core/project_settings.h"
+
+bool AudioStreamPlaybackMediaCodec::_next_chunk() {
+
+	while (true) {
+		int index = AudioDecoderJAndroid::next_chunk(decoder);
+		if (index == AudioDecoderJAndroid::END_OF_STREAM) {
+			ended = true;
+			return false;
+		}
+		if (index < 0 || index >= chunks.size()) {
+			// Not decoded yet.
+			return false;
+		}
+
+		const int32_t *header = (const int32_t *)chunks[index];
+		sample_count = header[0];
+		if (header[1] > 0 && header[1] != sample_rate) {
+			// The decoder reported its actual output format, see mix().
+			pending_sample_rate = header[1];
+		}
+		channels = MAX(header[2], 1);
+		if (header[3] != loops) {
+			loops = header[3];
+			frames_mixed = 0;
+		}
+		samples = (const int16_t *)(chunks[index] + AudioDecoderJAndroid::CHUNK_HEADER_SIZE);
+		sample_pos = 0;
+
+		if (sample_count > 0) {
+			return true;
+		}
+	}
+}
+
+void AudioStreamPlaybackMediaCodec::_mix_internal(AudioFrame *p_buffer, int p_frames) {
+
+	ERR_FAIL_COND(!active);
+
+	for (int i = 0; i < p_frames; i++) {
+
+		if (sample_pos >= sample_count && !_next_chunk()) {
+			// Mix silence while the decoder catches up.
+			for (; i < p_frames; i++) {
+				p_buffer[i] = AudioFrame(0, 0);
+			}
+			if (ended) {
+				active = false;
+			}
+			return;
+		}
+
+		if (pending_sample_rate) {
+			// Keep the chunk for when the resampler restarts at its rate.
+			for (; i < p_frames; i++) {
+				p_buffer[i] = AudioFrame(0, 0);
+			}
+			return;
+		}
+
+		float l = samples[sample_pos] / 32768.0;
+		float r = channels > 1 ? samples[sample_pos + 1] / 32768.0 : l;
+		p_buffer[i] = AudioFrame(l, r);
+		sample_pos += channels;
+		frames_mixed++;
+	}
+}
+
+void AudioStreamPlaybackMediaCodec::mix(AudioFrame *p_buffer, float p_rate_scale, int p_frames) {
+
+	if (pending_sample_rate) {
+		frames_mixed = frames_mixed * pending_sample_rate / sample_rate;
+		sample_rate = pending_sample_rate;
+		pending_sample_rate = 0;
+		_begin_resample();
+	}
+
+	AudioStreamPlaybackResampled::mix(p_buffer, p_rate_scale, p_frames);
+}
+
+float AudioStreamPlaybackMediaCodec::get_stream_sampling_rate() {
+
+	return sample_rate;
+}
+
+void AudioStreamPlaybackMediaCodec::start(float p_from_pos) {
+
+	active = true;
+	if (p_from_pos > 0 || frames_mixed > 0 || loops > 0 || ended) {
+		seek(p_from_pos);
+	}
+	_begin_resample();
+}
+
+void AudioStreamPlaybackMediaCodec::stop() {
+
+	active = false;
+}
+
+bool AudioStreamPlaybackMediaCodec::is_playing() const {
+
+	return active;
+}
+
+int AudioStreamPlaybackMediaCodec::get_loop_count() const {
+
+	return loops;
+}
+
+float AudioStreamPlaybackMediaCodec::get_playback_position() const {
+
+	return float(frames_mixed) / sample_rate;
+}
+
+void AudioStreamPlaybackMediaCodec::seek(float p_time) {
+
+	if (!active)
+		return;
+
+	if (stream->length > 0 && p_time >= stream->length) {
+		p_time = 0;
+	}
+
+	AudioDecoderJAndroid::seek(decoder, p_time);
+	sample_count = 0;
+	sample_pos = 0;
+	pending_sample_rate = 0;
+	frames_mixed = uint64_t(p_time * sample_rate);
+	ended = false;
+}
+
+AudioStreamPlaybackMediaCodec::AudioStreamPlaybackMediaCodec() {
+
+	decoder = -1;
+	samples = NULL;
+	sample_count = 0;
+	sample_pos = 0;
+	sample_rate = 44100;
+	pending_sample_rate = 0;
+	channels = 2;
+	frames_mixed = 0;
+	active = false;
+	ended = false;
+	loops = 0;
+}
+
+AudioStreamPlaybackMediaCodec::~AudioStreamPlaybackMediaCodec() {
+
+	if (decoder >= 0) {
+		AudioDecoderJAndroid::close(decoder);
+	}
+}
+
+Ref<AudioStreamPlayback> AudioStreamMediaCodec::instance_playback() {
+
+	Ref<AudioStreamPlaybackMediaCodec> playback;
+
+	ERR_FAIL_COND_V(file.empty(), playback);
+
+	String path = file;
+	bool asset = path.begins_with("res://");
+	if (asset) {
+		path = path.substr(6, path.length());
+	} else {
+		path = ProjectSettings::get_singleton()->globalize_path(path);
+	}
+
+	// Decoding starts right away, so the first chunks are ready by the time the playback starts.
+	int decoder = AudioDecoderJAndroid::open(path, asset, loop);
+	ERR_FAIL_COND_V_MSG(decoder < 0, playback, "Unable to decode '" + file + "'.");
+
+	playback.instance();
+	playback->stream = Ref<AudioStreamMediaCodec>(this);
+	playback->decoder = decoder;
+	playback->chunks = AudioDecoderJAndroid::get_chunks(decoder);
+	AudioDecoderJAndroid::get_info(decoder, &playback->sample_rate, &playback->channels, &length);
+
+	return playback;
+}
+
+float AudioStreamMediaCodec::get_length() const {
+
+	return length;
+}
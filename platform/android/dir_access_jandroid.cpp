@@ -37,9 +37,9 @@
 jobject DirAccessJAndroid::io = NULL;
 jclass DirAccessJAndroid::cls = NULL;
 jmethodID DirAccessJAndroid::_dir_open = NULL;
-jmethodID DirAccessJAndroid::_dir_next = NULL;
 jmethodID DirAccessJAndroid::_dir_close = NULL;
-jmethodID DirAccessJAndroid::_dir_is_dir = NULL;
+jmethodID DirAccessJAndroid::_dir_list_all = NULL;
+jmethodID DirAccessJAndroid::_dir_exists = NULL;
 
 DirAccess *DirAccessJAndroid::create_fs() {
 
@@ -52,34 +52,57 @@ Error DirAccessJAndroid::list_dir_begin() {
 	JNIEnv *env = ThreadAndroid::get_env();
 
 	jstring js = env->NewStringUTF(current_dir.utf8().get_data());
-	int res = env->CallIntMethod(io, _dir_open, js);
-	if (res <= 0)
+	jobjectArray list = (jobjectArray)env->CallObjectMethod(io, _dir_list_all, js);
+	env->DeleteLocalRef(js);
+	if (!list)
 		return ERR_CANT_OPEN;
 
-	id = res;
+	jobjectArray names = (jobjectArray)env->GetObjectArrayElement(list, 0);
+	jbooleanArray is_dir = (jbooleanArray)env->GetObjectArrayElement(list, 1);
+
+	int count = env->GetArrayLength(names);
+	listing_names.resize(count);
+	listing_is_dir.resize(count);
+
+	jboolean *is_dir_elements = env->GetBooleanArrayElements(is_dir, NULL);
+	for (int i = 0; i < count; i++) {
+		jstring name = (jstring)env->GetObjectArrayElement(names, i);
+		listing_names.write[i] = jstring_to_string(name, env);
+		listing_is_dir.write[i] = is_dir_elements[i];
+		env->DeleteLocalRef(name);
+	}
+	env->ReleaseBooleanArrayElements(is_dir, is_dir_elements, JNI_ABORT);
+
+	env->DeleteLocalRef(is_dir);
+	env->DeleteLocalRef(names);
+	env->DeleteLocalRef(list);
+
+	listing = true;
+	listing_pos = 0;
 
 	return OK;
 }
 
 String DirAccessJAndroid::get_next() {
 
-	ERR_FAIL_COND_V(id == 0, "");
+	ERR_FAIL_COND_V(!listing, "");
 
-	JNIEnv *env = ThreadAndroid::get_env();
-	jstring str = (jstring)env->CallObjectMethod(io, _dir_next, id);
-	if (!str)
+	if (listing_pos >= listing_names.size()) {
+		current = "";
 		return "";
+	}
 
-	String ret = jstring_to_string((jstring)str, env);
-	env->DeleteLocalRef((jobject)str);
-	return ret;
+	current = listing_names[listing_pos];
+	listing_pos++;
+	return current;
 }
 
 bool DirAccessJAndroid::current_is_dir() const {
 
-	JNIEnv *env = ThreadAndroid::get_env();
+	if (!listing || listing_pos == 0 || listing_pos > listing_is_dir.size())
+		return false;
 
-	return env->CallBooleanMethod(io, _dir_is_dir, id);
+	return listing_is_dir[listing_pos - 1];
 }
 
 bool DirAccessJAndroid::current_is_hidden() const {
@@ -89,12 +112,10 @@ bool DirAccessJAndroid::current_is_hidden() const {
 
 void DirAccessJAndroid::list_dir_end() {
 
-	if (id == 0)
-		return;
-
-	JNIEnv *env = ThreadAndroid::get_env();
-	env->CallVoidMethod(io, _dir_close, id);
-	id = 0;
+	listing = false;
+	listing_names.clear();
+	listing_is_dir.clear();
+	listing_pos = 0;
 }
 
 int DirAccessJAndroid::get_drive_count() {
@@ -132,13 +153,11 @@ Error DirAccessJAndroid::change_dir(String p_dir) {
 	new_dir = new_dir.simplify_path();
 
 	jstring js = env->NewStringUTF(new_dir.utf8().get_data());
-	int res = env->CallIntMethod(io, _dir_open, js);
+	bool exists = env->CallBooleanMethod(io, _dir_exists, js);
 	env->DeleteLocalRef(js);
-	if (res <= 0)
+	if (!exists)
 		return ERR_INVALID_PARAMETER;
 
-	env->CallVoidMethod(io, _dir_close, res);
-
 	current_dir = new_dir;
 
 	return OK;
@@ -187,14 +206,9 @@ bool DirAccessJAndroid::dir_exists(String p_dir) {
 		path = path.substr(6, path.length());
 
 	jstring js = env->NewStringUTF(path.utf8().get_data());
-	int res = env->CallIntMethod(io, _dir_open, js);
+	bool exists = env->CallBooleanMethod(io, _dir_exists, js);
 	env->DeleteLocalRef(js);
-	if (res <= 0)
-		return false;
-
-	env->CallVoidMethod(io, _dir_close, res);
-
-	return true;
+	return exists;
 }
 
 Error DirAccessJAndroid::make_dir(String p_dir) {
@@ -232,16 +246,17 @@ void DirAccessJAndroid::setup(jobject p_io) {
 	cls = (jclass)env->NewGlobalRef(c);
 
 	_dir_open = env->GetMethodID(cls, "dir_open", "(Ljava/lang/String;)I");
-	_dir_next = env->GetMethodID(cls, "dir_next", "(I)Ljava/lang/String;");
 	_dir_close = env->GetMethodID(cls, "dir_close", "(I)V");
-	_dir_is_dir = env->GetMethodID(cls, "dir_is_dir", "(I)Z");
+	_dir_list_all = env->GetMethodID(cls, "dir_list_all", "(Ljava/lang/String;)[Ljava/lang/Object;");
+	_dir_exists = env->GetMethodID(cls, "dir_exists", "(Ljava/lang/String;)Z");
 
 	//(*env)->CallVoidMethod(env,obj,aMethodID, myvar);
 }
 
 DirAccessJAndroid::DirAccessJAndroid() {
 
-	id = 0;
+	listing = false;
+	listing_pos = 0;
 }
 
 DirAccessJAndroid::~DirAccessJAndroid() {
@@ -43,15 +43,19 @@ class DirAccessJAndroid : public DirAccess {
 	static jclass cls;
 
 	static jmethodID _dir_open;
-	static jmethodID _dir_next;
 	static jmethodID _dir_close;
-	static jmethodID _dir_is_dir;
-
-	int id;
+	static jmethodID _dir_list_all;
+	static jmethodID _dir_exists;
 
 	String current_dir;
 	String current;
 
+	// Listing of the current dir, fetched in a single call by list_dir_begin().
+	bool listing;
+	Vector<String> listing_names;
+	Vector<bool> listing_is_dir;
+	int listing_pos;
+
 	static DirAccess *create_fs();
 
 public:
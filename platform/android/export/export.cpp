@@ -250,10 +250,19 @@ class EditorExportPlatformAndroid : public EditorExportPlatform {
 		int api_level;
 	};
 
+	struct AssetManifestEntry {
+
+		String path;
+		uint64_t size;
+		bool compressed;
+		int64_t offset;
+	};
+
 	struct APKExportData {
 
 		zipFile apk;
 		EditorProgress *ep;
+		Vector<AssetManifestEntry> *asset_manifest;
 	};
 
 	Vector<PluginConfig> plugins;
@@ -735,11 +744,55 @@ class EditorExportPlatformAndroid : public EditorExportPlatform {
 	static Error save_apk_file(void *p_userdata, const String &p_path, const Vector<uint8_t> &p_data, int p_file, int p_total) {
 		APKExportData *ed = (APKExportData *)p_userdata;
 		String dst_path = p_path.replace_first("res://", "assets/");
+		bool compress = _should_compress_asset(p_path, p_data);
 
-		store_in_apk(ed, dst_path, p_data, _should_compress_asset(p_path, p_data) ? Z_DEFLATED : 0);
+		store_in_apk(ed, dst_path, p_data, compress ? Z_DEFLATED : 0);
+		_add_asset_manifest_entry(ed->asset_manifest, dst_path, p_data.size(), compress);
 		return OK;
 	}
 
+	static void _add_asset_manifest_entry(Vector<AssetManifestEntry> *r_asset_manifest, const String &p_apk_path, uint64_t p_size, bool p_compressed) {
+		if (!r_asset_manifest || !p_apk_path.begins_with("assets/")) {
+			return;
+		}
+
+		AssetManifestEntry entry;
+		entry.path = p_apk_path.substr(7, p_apk_path.length() - 7);
+		entry.size = p_size;
+		entry.compressed = p_compressed;
+		// Known once the apk is aligned, see export_project().
+		entry.offset = -1;
+		r_asset_manifest->push_back(entry);
+	}
+
+	static void _put_big_endian(Vector<uint8_t> &r_data, uint64_t p_value, int p_bytes) {
+		for (int i = p_bytes - 1; i >= 0; i--) {
+			r_data.push_back((p_value >> (i * 8)) & 0xFF);
+		}
+	}
+
+	// Serializes the manifest of the packaged assets read by org.godotengine.godot.io.AssetManifest.
+	static Vector<uint8_t> _make_asset_manifest(const Vector<AssetManifestEntry> &p_asset_manifest) {
+		Vector<uint8_t> data;
+
+		_put_big_endian(data, 0x4744414D, 4); // 'GDAM'
+		_put_big_endian(data, 1, 4); // Version
+		_put_big_endian(data, p_asset_manifest.size(), 4);
+		for (int i = 0; i < p_asset_manifest.size(); i++) {
+			const AssetManifestEntry &entry = p_asset_manifest[i];
+			CharString path = entry.path.utf8();
+			_put_big_endian(data, path.length(), 2);
+			for (int j = 0; j < path.length(); j++) {
+				data.push_back(path[j]);
+			}
+			_put_big_endian(data, entry.size, 8);
+			_put_big_endian(data, entry.compressed ? 1 : 0, 1);
+			_put_big_endian(data, (uint64_t)entry.offset, 8);
+		}
+
+		return data;
+	}
+
 	static Error ignore_apk_file(void *p_userdata, const String &p_path, const Vector<uint8_t> &p_data, int p_file, int p_total) {
 		return OK;
 	}
@@ -2465,6 +2518,8 @@ public:
 			ImageLoader::load_image(path, launcher_adaptive_icon_background_image);
 		}
 
+		Vector<AssetManifestEntry> asset_manifest;
+
 		Vector<String> invalid_abis(enabled_abis);
 		while (ret == UNZ_OK) {
 
@@ -2525,6 +2580,11 @@ public:
 				skip = true;
 			}
 
+			if (file == "assets/_asset_manifest_") {
+				// Regenerated below, once the project files are added.
+				skip = true;
+			}
+
 			if (!skip) {
 				print_line("ADDING: " + file);
 
@@ -2546,6 +2606,8 @@ public:
 
 				zipWriteInFileInZip(unaligned_apk, data.ptr(), data.size());
 				zipCloseFileInZip(unaligned_apk);
+
+				_add_asset_manifest_entry(&asset_manifest, file, data.size(), !uncompressed);
 			}
 
 			ret = unzGoToNextFile(pkg);
@@ -2577,6 +2639,7 @@ public:
 			APKExportData ed;
 			ed.ep = &ep;
 			ed.apk = unaligned_apk;
+			ed.asset_manifest = &asset_manifest;
 			err = export_project_files(p_preset, ignore_apk_file, &ed, save_apk_so);
 		} else {
 			//all files
@@ -2605,6 +2668,7 @@ public:
 				APKExportData ed;
 				ed.ep = &ep;
 				ed.apk = unaligned_apk;
+				ed.asset_manifest = &asset_manifest;
 
 				err = export_project_files(p_preset, save_apk_file, &ed, save_apk_so);
 			}
@@ -2660,6 +2724,29 @@ public:
 
 			zipWriteInFileInZip(unaligned_apk, clf.ptr(), clf.size());
 			zipCloseFileInZip(unaligned_apk);
+
+			_add_asset_manifest_entry(&asset_manifest, "assets/_cl_", clf.size(), false);
+		}
+
+		if (err == OK) {
+			// Lets the runtime look up assets without going through the asset manager.
+			Vector<uint8_t> manifest = _make_asset_manifest(asset_manifest);
+
+			zip_fileinfo zipfi = get_zip_fileinfo();
+
+			zipOpenNewFileInZip(unaligned_apk,
+					"assets/_asset_manifest_",
+					&zipfi,
+					NULL,
+					0,
+					NULL,
+					0,
+					NULL,
+					0, // Memory-mapped at runtime
+					Z_DEFAULT_COMPRESSION);
+
+			zipWriteInFileInZip(unaligned_apk, manifest.ptr(), manifest.size());
+			zipCloseFileInZip(unaligned_apk);
 		}
 
 		zipClose(unaligned_apk, NULL);
@@ -2776,6 +2863,11 @@ public:
 		io2.opaque = &dst_f;
 		zipFile final_apk = zipOpen2(p_path.utf8().get_data(), APPEND_STATUS_CREATE, NULL, &io2);
 
+		// The asset manifest is rewritten last with the offsets of the assets in the aligned APK.
+		// A signed APK keeps the manifest it was signed with, so its offsets stay unknown there.
+		const bool record_asset_offsets = !_signed;
+		Map<String, int64_t> asset_offsets;
+
 		// Take files from the unaligned APK and write them out to the aligned one
 		// in raw mode, i.e. not uncompressing and recompressing, aligning them as needed,
 		// following what is done in https://github.com/android/platform_build/blob/master/tools/zipalign/ZipAlign.cpp
@@ -2791,6 +2883,11 @@ public:
 
 			String file = fname;
 
+			if (record_asset_offsets && file == "assets/_asset_manifest_") {
+				ret = unzGoToNextFile(tmp_unaligned);
+				continue;
+			}
+
 			Vector<uint8_t> data;
 			data.resize(info.compressed_size);
 
@@ -2825,6 +2922,10 @@ public:
 					method,
 					level,
 					1); // raw write
+			if (record_asset_offsets && file.begins_with("assets/")) {
+				// The local header is written, the data starts here.
+				asset_offsets[file.substr(7, file.length() - 7)] = dst_f->get_position();
+			}
 			zipWriteInFileInZip(final_apk, data.ptr(), data.size());
 			zipCloseFileInZipRaw(final_apk, info.uncompressed_size, info.crc);
 
@@ -2833,6 +2934,39 @@ public:
 			ret = unzGoToNextFile(tmp_unaligned);
 		}
 
+		if (record_asset_offsets) {
+			for (int i = 0; i < asset_manifest.size(); i++) {
+				Map<String, int64_t>::Element *E = asset_offsets.find(asset_manifest[i].path);
+				if (E) {
+					asset_manifest.write[i].offset = E->get();
+				}
+			}
+			Vector<uint8_t> manifest = _make_asset_manifest(asset_manifest);
+
+			// Stored and aligned like the other uncompressed files, it's memory-mapped at runtime.
+			static const char *manifest_path = "assets/_asset_manifest_";
+			const int header_size = 30 + strlen(manifest_path);
+			int padding = (ZIP_ALIGNMENT - ((dst_f->get_position() + header_size) % ZIP_ALIGNMENT)) % ZIP_ALIGNMENT;
+			char padding_extra[ZIP_ALIGNMENT];
+			memset(padding_extra, 0, ZIP_ALIGNMENT);
+
+			zip_fileinfo zipfi = get_zip_fileinfo();
+
+			zipOpenNewFileInZip(final_apk,
+					manifest_path,
+					&zipfi,
+					padding > 0 ? padding_extra : NULL,
+					padding,
+					NULL,
+					0,
+					NULL,
+					0,
+					Z_DEFAULT_COMPRESSION);
+
+			zipWriteInFileInZip(final_apk, manifest.ptr(), manifest.size());
+			zipCloseFileInZip(final_apk);
+		}
+
 		zipClose(final_apk, NULL);
 		unzClose(tmp_unaligned);
 
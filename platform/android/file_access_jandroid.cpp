@@ -30,6 +30,7 @@
 
 #include "file_access_jandroid.h"
 #include "core/os/os.h"
+#include "core/print_string.h"
 #include "thread_jandroid.h"
 #include <unistd.h>
 
@@ -39,9 +40,11 @@ jmethodID FileAccessJAndroid::_file_open = 0;
 jmethodID FileAccessJAndroid::_file_get_size = 0;
 jmethodID FileAccessJAndroid::_file_seek = 0;
 jmethodID FileAccessJAndroid::_file_read = 0;
+jmethodID FileAccessJAndroid::_file_read_buffer = 0;
 jmethodID FileAccessJAndroid::_file_tell = 0;
 jmethodID FileAccessJAndroid::_file_eof = 0;
 jmethodID FileAccessJAndroid::_file_close = 0;
+jmethodID FileAccessJAndroid::_file_exists = 0;
 
 FileAccess *FileAccessJAndroid::create_jandroid() {
 
@@ -65,7 +68,7 @@ Error FileAccessJAndroid::_open(const String &p_path, int p_mode_flags) {
 	int res = env->CallIntMethod(io, _file_open, js, (p_mode_flags & WRITE) ? true : false);
 	env->DeleteLocalRef(js);
 
-	OS::get_singleton()->print("fopen: '%s' ret %i\n", path.utf8().get_data(), res);
+	print_verbose("fopen: '" + path + "' ret " + itos(res));
 
 	if (res <= 0)
 		return ERR_FILE_CANT_OPEN;
@@ -95,7 +98,7 @@ void FileAccessJAndroid::seek(size_t p_position) {
 	JNIEnv *env = ThreadAndroid::get_env();
 
 	ERR_FAIL_COND_MSG(!is_open(), "File must be opened before use.");
-	env->CallVoidMethod(io, _file_seek, id, p_position);
+	env->CallVoidMethod(io, _file_seek, id, (jlong)p_position);
 }
 
 void FileAccessJAndroid::seek_end(int64_t p_position) {
@@ -109,14 +112,14 @@ size_t FileAccessJAndroid::get_position() const {
 
 	JNIEnv *env = ThreadAndroid::get_env();
 	ERR_FAIL_COND_V_MSG(!is_open(), 0, "File must be opened before use.");
-	return env->CallIntMethod(io, _file_tell, id);
+	return env->CallLongMethod(io, _file_tell, id);
 }
 
 size_t FileAccessJAndroid::get_len() const {
 
 	JNIEnv *env = ThreadAndroid::get_env();
 	ERR_FAIL_COND_V_MSG(!is_open(), 0, "File must be opened before use.");
-	return env->CallIntMethod(io, _file_get_size, id);
+	return env->CallLongMethod(io, _file_get_size, id);
 }
 
 bool FileAccessJAndroid::eof_reached() const {
@@ -140,11 +143,21 @@ int FileAccessJAndroid::get_buffer(uint8_t *p_dst, int p_length) const {
 		return 0;
 	JNIEnv *env = ThreadAndroid::get_env();
 
-	jbyteArray jca = (jbyteArray)env->CallObjectMethod(io, _file_read, id, p_length);
+	// Let the Java side write straight into the destination memory.
+	jobject buffer = env->NewDirectByteBuffer(p_dst, p_length);
+	if (!buffer) {
+		env->ExceptionClear();
+		jbyteArray jca = (jbyteArray)env->CallObjectMethod(io, _file_read, id, p_length);
 
-	int len = env->GetArrayLength(jca);
-	env->GetByteArrayRegion(jca, 0, len, (jbyte *)p_dst);
-	env->DeleteLocalRef((jobject)jca);
+		int len = env->GetArrayLength(jca);
+		env->GetByteArrayRegion(jca, 0, len, (jbyte *)p_dst);
+		env->DeleteLocalRef((jobject)jca);
+
+		return len;
+	}
+
+	int len = env->CallIntMethod(io, _file_read_buffer, id, buffer);
+	env->DeleteLocalRef(buffer);
 
 	return len;
 }
@@ -173,14 +186,9 @@ bool FileAccessJAndroid::file_exists(const String &p_path) {
 		path = path.substr(6, path.length());
 
 	jstring js = env->NewStringUTF(path.utf8().get_data());
-	int res = env->CallIntMethod(io, _file_open, js, false);
-	if (res <= 0) {
-		env->DeleteLocalRef(js);
-		return false;
-	}
-	env->CallVoidMethod(io, _file_close, res);
+	bool exists = env->CallBooleanMethod(io, _file_exists, js);
 	env->DeleteLocalRef(js);
-	return true;
+	return exists;
 }
 
 void FileAccessJAndroid::setup(jobject p_io) {
@@ -192,12 +200,14 @@ void FileAccessJAndroid::setup(jobject p_io) {
 	cls = (jclass)env->NewGlobalRef(c);
 
 	_file_open = env->GetMethodID(cls, "file_open", "(Ljava/lang/String;Z)I");
-	_file_get_size = env->GetMethodID(cls, "file_get_size", "(I)I");
-	_file_tell = env->GetMethodID(cls, "file_tell", "(I)I");
+	_file_get_size = env->GetMethodID(cls, "file_get_size", "(I)J");
+	_file_tell = env->GetMethodID(cls, "file_tell", "(I)J");
 	_file_eof = env->GetMethodID(cls, "file_eof", "(I)Z");
-	_file_seek = env->GetMethodID(cls, "file_seek", "(II)V");
+	_file_seek = env->GetMethodID(cls, "file_seek", "(IJ)V");
 	_file_read = env->GetMethodID(cls, "file_read", "(II)[B");
+	_file_read_buffer = env->GetMethodID(cls, "file_read_buffer", "(ILjava/nio/ByteBuffer;)I");
 	_file_close = env->GetMethodID(cls, "file_close", "(I)V");
+	_file_exists = env->GetMethodID(cls, "file_exists", "(Ljava/lang/String;)Z");
 }
 
 FileAccessJAndroid::FileAccessJAndroid() {
@@ -44,7 +44,9 @@ class FileAccessJAndroid : public FileAccess {
 	static jmethodID _file_tell;
 	static jmethodID _file_eof;
 	static jmethodID _file_read;
+	static jmethodID _file_read_buffer;
 	static jmethodID _file_close;
+	static jmethodID _file_exists;
 
 	int id;
 	static FileAccess *create_jandroid();
@@ -0,0 +1,73 @@
+/*************************************************************************/
+/*  input_default_android.cpp                                            */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+#include "input_default_android.h"
+
+#include "java_godot_wrapper.h"
+
+void InputDefaultAndroid::_enable_sensor(Sensor p_sensor) const {
+
+	if (!sensor_enabled[p_sensor]) {
+		sensor_enabled[p_sensor] = true;
+		godot_java->enable_sensor(p_sensor);
+	}
+}
+
+Vector3 InputDefaultAndroid::get_gravity() const {
+
+	_enable_sensor(SENSOR_GRAVITY);
+	return InputDefault::get_gravity();
+}
+
+Vector3 InputDefaultAndroid::get_accelerometer() const {
+
+	_enable_sensor(SENSOR_ACCELEROMETER);
+	return InputDefault::get_accelerometer();
+}
+
+Vector3 InputDefaultAndroid::get_magnetometer() const {
+
+	_enable_sensor(SENSOR_MAGNETOMETER);
+	return InputDefault::get_magnetometer();
+}
+
+Vector3 InputDefaultAndroid::get_gyroscope() const {
+
+	_enable_sensor(SENSOR_GYROSCOPE);
+	return InputDefault::get_gyroscope();
+}
+
+InputDefaultAndroid::InputDefaultAndroid(GodotJavaWrapper *p_godot_java) {
+
+	godot_java = p_godot_java;
+	for (int i = 0; i < SENSOR_MAX; i++) {
+		sensor_enabled[i] = false;
+	}
+}
@@ -0,0 +1,69 @@
+/*************************************************************************/
+/*  input_default_android.h                                              */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+#ifndef INPUT_DEFAULT_ANDROID_H
+#define INPUT_DEFAULT_ANDROID_H
+
+#include "main/input_default.h"
+
+class GodotJavaWrapper;
+
+// Only registers the motion sensors the engine actually reads, since delivering their samples
+// costs CPU time and battery even when nobody looks at them.
+class InputDefaultAndroid : public InputDefault {
+
+	GDCLASS(InputDefaultAndroid, InputDefault);
+
+public:
+	// Keep in sync with GodotSensorHandler.SENSOR_*.
+	enum Sensor {
+		SENSOR_ACCELEROMETER,
+		SENSOR_GRAVITY,
+		SENSOR_MAGNETOMETER,
+		SENSOR_GYROSCOPE,
+		SENSOR_MAX
+	};
+
+private:
+	GodotJavaWrapper *godot_java;
+	mutable bool sensor_enabled[SENSOR_MAX];
+
+	void _enable_sensor(Sensor p_sensor) const;
+
+public:
+	virtual Vector3 get_gravity() const;
+	virtual Vector3 get_accelerometer() const;
+	virtual Vector3 get_magnetometer() const;
+	virtual Vector3 get_gyroscope() const;
+
+	InputDefaultAndroid(GodotJavaWrapper *p_godot_java);
+};
+
+#endif // INPUT_DEFAULT_ANDROID_H
@@ -30,11 +30,18 @@
 
 package org.godotengine.godot;
 
+import org.godotengine.godot.audio.AudioStatsSingleton;
 import org.godotengine.godot.input.GodotEditText;
+import org.godotengine.godot.input.InputEventRing;
+import org.godotengine.godot.input.InputLatencySingleton;
+import org.godotengine.godot.input.InputLatencyStats;
+import org.godotengine.godot.io.IOStatsSingleton;
+import org.godotengine.godot.io.ZipArchive;
 import org.godotengine.godot.plugin.GodotPlugin;
 import org.godotengine.godot.plugin.GodotPluginRegistry;
 import org.godotengine.godot.utils.GodotNetUtils;
 import org.godotengine.godot.utils.PermissionsUtil;
+import org.godotengine.godot.video.VideoSingleton;
 import org.godotengine.godot.xr.XRMode;
 
 import android.annotation.SuppressLint;
@@ -58,7 +65,6 @@ import android.graphics.Rect;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
-import android.hardware.SensorManager;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Environment;
@@ -68,7 +74,6 @@ import android.os.Messenger;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.provider.Settings.Secure;
-import android.view.Display;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.Surface;
@@ -248,11 +253,6 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 	public GodotView mView;
 	private boolean godot_initialized = false;
 
-	private SensorManager mSensorManager;
-	private Sensor mAccelerometer;
-	private Sensor mGravity;
-	private Sensor mMagnetometer;
-	private Sensor mGyroscope;
 
 	public static GodotIO io;
 	public static GodotNetUtils netUtils;
@@ -353,6 +353,15 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 
 				setKeepScreenOn("True".equals(GodotLib.getGlobal("display/window/energy_saving/keep_screen_on")));
 
+				io.loadSettings();
+				mView.getTouchPredictor().setLeadTime((int)GodotIO.getGlobalLong("input_devices/pointing/android/touch_prediction_msec", 0));
+				mView.getSensorHandler().configure((int)GodotIO.getGlobalLong("input_devices/sensors/android/sampling_period_usec", 20000), (int)GodotIO.getGlobalLong("input_devices/sensors/android/max_report_latency_usec", 0));
+				setLowLatencyMode("True".equals(GodotLib.getGlobal("input_devices/android/low_latency_mode")));
+				new IOStatsSingleton(io);
+				new AudioStatsSingleton(io.getAudioOutput(), io.getAudioCapture());
+				new VideoSingleton(io.getVideoPlayer());
+				new InputLatencySingleton(Godot.this);
+
 				// The Godot Android plugins are setup on completion of GodotLib.setup
 				mainThreadHandler.post(new Runnable() {
 					@Override
@@ -391,6 +400,15 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 		});
 	}
 
+	public void setLowLatencyMode(final boolean p_enabled) {
+		runOnUiThread(new Runnable() {
+			@Override
+			public void run() {
+				mView.setLowLatencyMode(p_enabled);
+			}
+		});
+	}
+
 	/**
 	 * Used by the native code (java_godot_wrapper.h) to vibrate the device.
 	 * @param durationMs
@@ -519,7 +537,20 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 
 	private void initializeGodot() {
 
-		if (expansion_pack_path != null) {
+		io = new GodotIO(this);
+		io.unique_id = Secure.getString(getContentResolver(), Secure.ANDROID_ID);
+		GodotLib.io = io;
+
+		// ZIP-formatted expansion files are read in place through GodotIO, along with the
+		// optional patch file, rather than loaded as the main pack.
+		boolean use_expansion_archives = false;
+		if (expansion_pack_path != null && ZipArchive.isZipFile(new File(expansion_pack_path))) {
+			File main_file = new File(expansion_pack_path);
+			File patch_file = new File(main_file.getParentFile(), main_file.getName().replaceFirst("^main\\.", "patch."));
+			use_expansion_archives = io.mountExpansionFiles(main_file, patch_file);
+		}
+
+		if (expansion_pack_path != null && !use_expansion_archives) {
 
 			String[] new_cmdline;
 			int cll = 0;
@@ -538,21 +569,9 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 			command_line = new_cmdline;
 		}
 
-		io = new GodotIO(this);
-		io.unique_id = Secure.getString(getContentResolver(), Secure.ANDROID_ID);
-		GodotLib.io = io;
 		netUtils = new GodotNetUtils(this);
-		mSensorManager = (SensorManager)getSystemService(Context.SENSOR_SERVICE);
-		mAccelerometer = mSensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
-		mSensorManager.registerListener(this, mAccelerometer, SensorManager.SENSOR_DELAY_GAME);
-		mGravity = mSensorManager.getDefaultSensor(Sensor.TYPE_GRAVITY);
-		mSensorManager.registerListener(this, mGravity, SensorManager.SENSOR_DELAY_GAME);
-		mMagnetometer = mSensorManager.getDefaultSensor(Sensor.TYPE_MAGNETIC_FIELD);
-		mSensorManager.registerListener(this, mMagnetometer, SensorManager.SENSOR_DELAY_GAME);
-		mGyroscope = mSensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE);
-		mSensorManager.registerListener(this, mGyroscope, SensorManager.SENSOR_DELAY_GAME);
-
-		GodotLib.initialize(this, getAssets(), use_apk_expansion);
+
+		GodotLib.initialize(this, getAssets(), use_apk_expansion && !use_expansion_archives, use_expansion_archives);
 
 		result_callback = null;
 
@@ -741,7 +760,7 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 		}
 		mView.onPause();
 
-		mSensorManager.unregisterListener(this);
+		mView.getSensorHandler().onPause();
 
 		for (int i = 0; i < singleton_count; i++) {
 			singletons[i].onMainPause();
@@ -751,6 +770,25 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 		}
 	}
 
+	@Override
+	public void onTrimMemory(int level) {
+		super.onTrimMemory(level);
+
+		// Cached asset data can be read again from the apk, drop it when the system is short on memory.
+		if (io != null && level >= TRIM_MEMORY_RUNNING_LOW) {
+			io.getAssetCache().clear();
+		}
+	}
+
+	@Override
+	public void onLowMemory() {
+		super.onLowMemory();
+
+		if (io != null) {
+			io.getAssetCache().clear();
+		}
+	}
+
 	public String getClipboard() {
 
 		String copiedText = "";
@@ -782,10 +820,7 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 
 		mView.onResume();
 
-		mSensorManager.registerListener(this, mAccelerometer, SensorManager.SENSOR_DELAY_GAME);
-		mSensorManager.registerListener(this, mGravity, SensorManager.SENSOR_DELAY_GAME);
-		mSensorManager.registerListener(this, mMagnetometer, SensorManager.SENSOR_DELAY_GAME);
-		mSensorManager.registerListener(this, mGyroscope, SensorManager.SENSOR_DELAY_GAME);
+		mView.getSensorHandler().onResume();
 
 		if (use_immersive && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) { // check if the application runs on an android 4.4+
 			Window window = getWindow();
@@ -827,53 +862,26 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 		});
 	}
 
+	/**
+	 * The activity no longer listens to the sensors, they are registered on demand. Kept for the
+	 * subclasses which override it or call it from their own listener: the samples are still
+	 * forwarded to the engine.
+	 * @deprecated Sensors are handled by {@link GodotView#getSensorHandler()}.
+	 */
+	@Deprecated
 	@Override
 	public void onSensorChanged(SensorEvent event) {
-		Display display = ((WindowManager)getSystemService(WINDOW_SERVICE)).getDefaultDisplay();
-		int displayRotation = display.getRotation();
-
-		float[] adjustedValues = new float[3];
-		final int axisSwap[][] = {
-			{ 1, -1, 0, 1 }, // ROTATION_0
-			{ -1, -1, 1, 0 }, // ROTATION_90
-			{ -1, 1, 0, 1 }, // ROTATION_180
-			{ 1, 1, 1, 0 }
-		}; // ROTATION_270
-
-		final int[] as = axisSwap[displayRotation];
-		adjustedValues[0] = (float)as[0] * event.values[as[2]];
-		adjustedValues[1] = (float)as[1] * event.values[as[3]];
-		adjustedValues[2] = event.values[2];
-
-		final float x = adjustedValues[0];
-		final float y = adjustedValues[1];
-		final float z = adjustedValues[2];
-
-		final int typeOfSensor = event.sensor.getType();
 		if (mView != null) {
-			mView.queueEvent(new Runnable() {
-				@Override
-				public void run() {
-					if (typeOfSensor == Sensor.TYPE_ACCELEROMETER) {
-						GodotLib.accelerometer(-x, y, -z);
-					}
-					if (typeOfSensor == Sensor.TYPE_GRAVITY) {
-						GodotLib.gravity(-x, y, -z);
-					}
-					if (typeOfSensor == Sensor.TYPE_MAGNETIC_FIELD) {
-						GodotLib.magnetometer(-x, y, -z);
-					}
-					if (typeOfSensor == Sensor.TYPE_GYROSCOPE) {
-						GodotLib.gyroscope(x, -y, z);
-					}
-				}
-			});
+			mView.getSensorHandler().onSensorChanged(event);
 		}
 	}
 
+	/**
+	 * @deprecated See {@link #onSensorChanged(SensorEvent)}.
+	 */
+	@Deprecated
 	@Override
-	public final void onAccuracyChanged(Sensor sensor, int accuracy) {
-		// Do something here if sensor accuracy changes.
+	public void onAccuracyChanged(Sensor sensor, int accuracy) {
 	}
 
 	/*
@@ -976,60 +984,78 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 	}
 
 	public boolean gotTouchEvent(final MotionEvent event) {
+		final long receivedNs = System.nanoTime();
 
 		final int evcount = event.getPointerCount();
 		if (evcount == 0)
 			return true;
 
 		if (mView != null) {
-			final int[] arr = new int[event.getPointerCount() * 3];
+			final int action;
+			switch (event.getActionMasked()) {
+				case MotionEvent.ACTION_DOWN:
+					action = InputEventRing.TOUCH_DOWN;
+					break;
+				case MotionEvent.ACTION_MOVE:
+					action = InputEventRing.TOUCH_MOVE;
+					break;
+				case MotionEvent.ACTION_POINTER_UP:
+					action = InputEventRing.TOUCH_POINTER_UP;
+					break;
+				case MotionEvent.ACTION_POINTER_DOWN:
+					action = InputEventRing.TOUCH_POINTER_DOWN;
+					break;
+				case MotionEvent.ACTION_CANCEL:
+				case MotionEvent.ACTION_UP:
+					action = InputEventRing.TOUCH_UP;
+					break;
+				default:
+					return true;
+			}
 
-			for (int i = 0; i < event.getPointerCount(); i++) {
+			// Moves carry the samples batched since the previous event, oldest first, followed by
+			// the current one.
+			final int samples = action == InputEventRing.TOUCH_MOVE ? event.getHistorySize() + 1 : 1;
+
+			// Written straight into the input queue, the pointers are not copied anywhere else.
+			final InputEventRing ring = mView.getInputEventRing();
+			final int size = 4 + evcount + samples * (2 + evcount * 2);
+			// Lifting a finger must reach the engine even when the queue is filled with moves.
+			final boolean stateChange = action == InputEventRing.TOUCH_UP || action == InputEventRing.TOUCH_POINTER_UP;
+			final long record = stateChange ? ring.reserveStateChange(InputEventRing.TYPE_TOUCH, size) : ring.reserve(InputEventRing.TYPE_TOUCH, size);
+			if (record < 0)
+				return true;
 
-				arr[i * 3 + 0] = (int)event.getPointerId(i);
-				arr[i * 3 + 1] = (int)event.getX(i);
-				arr[i * 3 + 2] = (int)event.getY(i);
+			boolean pointerEvent = action == InputEventRing.TOUCH_POINTER_DOWN || action == InputEventRing.TOUCH_POINTER_UP;
+			ring.set(record, 0, action);
+			ring.set(record, 1, pointerEvent ? event.getPointerId(event.getActionIndex()) : 0);
+			ring.set(record, 2, evcount);
+			ring.set(record, 3, samples);
+			for (int i = 0; i < evcount; i++) {
+				ring.set(record, 4 + i, event.getPointerId(i));
 			}
-			final int pointer_idx = event.getPointerId(event.getActionIndex());
 
-			//System.out.printf("gaction: %d\n",event.getAction());
-			final int action = event.getAction() & MotionEvent.ACTION_MASK;
-			mView.queueEvent(new Runnable() {
-				@Override
-				public void run() {
-					switch (action) {
-						case MotionEvent.ACTION_DOWN: {
-							GodotLib.touch(0, 0, evcount, arr);
-							//System.out.printf("action down at: %f,%f\n", event.getX(),event.getY());
-						} break;
-						case MotionEvent.ACTION_MOVE: {
-							GodotLib.touch(1, 0, evcount, arr);
-							/*
-							for(int i=0;i<event.getPointerCount();i++) {
-								System.out.printf("%d - moved to: %f,%f\n",i, event.getX(i),event.getY(i));
-							}
-							*/
-						} break;
-						case MotionEvent.ACTION_POINTER_UP: {
-							GodotLib.touch(4, pointer_idx, evcount, arr);
-							//System.out.printf("%d - s.up at: %f,%f\n",pointer_idx, event.getX(pointer_idx),event.getY(pointer_idx));
-						} break;
-						case MotionEvent.ACTION_POINTER_DOWN: {
-							GodotLib.touch(3, pointer_idx, evcount, arr);
-							//System.out.printf("%d - s.down at: %f,%f\n",pointer_idx, event.getX(pointer_idx),event.getY(pointer_idx));
-						} break;
-						case MotionEvent.ACTION_CANCEL:
-						case MotionEvent.ACTION_UP: {
-							GodotLib.touch(2, 0, evcount, arr);
-							/*
-							for(int i=0;i<event.getPointerCount();i++) {
-								System.out.printf("%d - up! %f,%f\n",i, event.getX(i),event.getY(i));
-							}
-							*/
-						} break;
-					}
+			int index = 4 + evcount;
+			final int history = samples - 1;
+			for (int h = 0; h < history; h++) {
+				ring.setLong(record, index, event.getHistoricalEventTime(h));
+				index += 2;
+				for (int i = 0; i < evcount; i++) {
+					ring.setFloat(record, index++, event.getHistoricalX(i, h));
+					ring.setFloat(record, index++, event.getHistoricalY(i, h));
 				}
-			});
+			}
+			ring.setLong(record, index, event.getEventTime());
+			index += 2;
+			for (int i = 0; i < evcount; i++) {
+				ring.setFloat(record, index++, event.getX(i));
+				ring.setFloat(record, index++, event.getY(i));
+			}
+			ring.publish(record);
+			mView.getInputLatencyStats().onEventQueued(InputLatencyStats.SOURCE_TOUCH, event.getEventTime(), receivedNs);
+
+			// Predictions are sent after the samples they're based on.
+			mView.getTouchPredictor().onTouchEvent(event, ring);
 		}
 		return true;
 	}
@@ -1040,24 +1066,11 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 		if (s == null || s.length() == 0)
 			return super.onKeyMultiple(inKeyCode, repeatCount, event);
 
-		final char[] cc = s.toCharArray();
 		int cnt = 0;
-		for (int i = cc.length; --i >= 0; cnt += cc[i] != 0 ? 1 : 0)
+		for (int i = s.length(); --i >= 0; cnt += s.charAt(i) != 0 ? 1 : 0)
 			;
 		if (cnt == 0) return super.onKeyMultiple(inKeyCode, repeatCount, event);
-		mView.queueEvent(new Runnable() {
-			// This method will be called on the rendering thread:
-			public void run() {
-				for (int i = 0, n = cc.length; i < n; i++) {
-					int keyCode;
-					if ((keyCode = cc[i]) != 0) {
-						// Simulate key down and up...
-						GodotLib.key(0, keyCode, true);
-						GodotLib.key(0, keyCode, false);
-					}
-				}
-			}
-		});
+		mView.getInputEventRing().pushText(0, s, 0, s.length(), false);
 		return true;
 	}
 
@@ -1169,4 +1182,12 @@ public abstract class Godot extends FragmentActivity implements SensorEventListe
 	public void initInputDevices() {
 		mView.initInputDevices();
 	}
+
+	/**
+	 * Called by the engine the first time it reads a motion sensor.
+	 * @param sensor One of the GodotSensorHandler.SENSOR_* constants
+	 */
+	public void enableSensor(int sensor) {
+		mView.getSensorHandler().enableSensor(sensor);
+	}
 }
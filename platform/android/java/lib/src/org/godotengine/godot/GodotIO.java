@@ -30,32 +30,60 @@
 
 package org.godotengine.godot;
 
+import org.godotengine.godot.audio.AudioCapture;
+import org.godotengine.godot.audio.AudioDecoder;
+import org.godotengine.godot.audio.AudioDecoderService;
+import org.godotengine.godot.audio.AudioOutput;
 import org.godotengine.godot.input.*;
+import org.godotengine.godot.io.AssetBlockCache;
+import org.godotengine.godot.io.AssetExtractionCache;
+import org.godotengine.godot.io.AssetIndex;
+import org.godotengine.godot.io.AssetStreamAccess;
+import org.godotengine.godot.io.CachedAssetAccess;
+import org.godotengine.godot.io.DataAccess;
+import org.godotengine.godot.io.DataAccessMediaSource;
+import org.godotengine.godot.io.HandleTable;
+import org.godotengine.godot.io.IOStats;
+import org.godotengine.godot.io.InstrumentedAccess;
+import org.godotengine.godot.io.MappedDataAccess;
+import org.godotengine.godot.io.ReadAheadAccess;
+import org.godotengine.godot.io.ZipArchive;
+import org.godotengine.godot.video.VideoPlayer;
 
 import android.content.*;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.media.*;
 import android.net.Uri;
 import android.os.*;
 import android.util.DisplayMetrics;
 import android.util.Log;
-import android.util.SparseArray;
 
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Locale;
 
 // Wrapper for native library
 
 public class GodotIO {
 
+	private static final String TAG = GodotIO.class.getSimpleName();
+
 	AssetManager am;
 	Godot activity;
 	GodotEditText edit;
 
-	MediaPlayer mediaPlayer;
+	final VideoPlayer videoPlayer = new VideoPlayer();
 
 	final int SCREEN_LANDSCAPE = 0;
 	final int SCREEN_PORTRAIT = 1;
@@ -69,374 +97,577 @@ public class GodotIO {
 	/// FILES
 	/////////////////////////
 
-	public int last_file_id = 1;
+	// File and directory handles may be used concurrently from several native threads (e.g:
+	// threaded resource loading). The tables are thread-safe and each handle is locked while
+	// in use, so independent handles can be read in parallel.
+	final HandleTable<DataAccess> streams = new HandleTable<DataAccess>();
+
+	// Default byte budget of the asset cache, see 'memory/limits/android/asset_cache_size_kb'.
+	static final long DEFAULT_ASSET_CACHE_SIZE = 8 * 1024 * 1024;
+
+	// Compressed assets are served out of this cache, shared by all the file handles.
+	final AssetBlockCache assetCache = new AssetBlockCache(DEFAULT_ASSET_CACHE_SIZE);
+
+	// Counters for all the file handles, see IOStatsSingleton.
+	final IOStats ioStats = new IOStats();
+
+	// Number of bytes prefetched ahead of sequential readers of compressed assets, 0 to disable.
+	// See 'memory/limits/android/asset_read_ahead_kb'.
+	private volatile int readAheadSize = 0;
+
+	// Compressed assets larger than a cache block are extracted there when enabled.
+	// See 'memory/limits/android/asset_extraction_cache_mb'.
+	private volatile AssetExtractionCache extractionCache;
+
+	/**
+	 * Opens the given asset, memory-mapping it when it's stored uncompressed in the apk and
+	 * falling back to a stream otherwise.
+	 * <p>
+	 * The asset index is checked first, so missing paths are rejected without going through
+	 * the asset manager and compressed assets skip the mapping attempt. Files provided by a
+	 * mounted expansion archive are read from it instead.
+	 */
+	private DataAccess openAsset(String path) throws IOException {
+		AssetIndex.Entry entry = getAssetIndex().get(path);
+		if (entry == null || entry.directory) {
+			throw new FileNotFoundException(path);
+		}
 
-	class AssetData {
+		if (entry.archive != null) {
+			return entry.archive.open(entry.archiveEntry);
+		}
 
-		public boolean eof = false;
-		public String path;
-		public InputStream is;
-		public int len;
-		public int pos;
+		if (!entry.compressed) {
+			try {
+				AssetFileDescriptor afd = am.openFd(path);
+				try {
+					FileInputStream fis = afd.createInputStream();
+					return MappedDataAccess.map(fis.getChannel(), afd.getStartOffset(), afd.getDeclaredLength());
+				} finally {
+					afd.close();
+				}
+			} catch (FileNotFoundException e) {
+				// Stored compressed after all (the index may only know sizes).
+			}
+		}
+
+		// Starts the extraction in the background on first open, served from the apk meanwhile.
+		AssetExtractionCache extraction = extractionCache;
+		if (extraction != null && entry.size > AssetBlockCache.BLOCK_SIZE) {
+			DataAccess extracted = extraction.open(path, entry.size);
+			if (extracted != null) {
+				return extracted;
+			}
+		}
+
+		DataAccess da;
+		if (assetCache.isEnabled()) {
+			da = new CachedAssetAccess(assetCache, am, path, entry.size);
+		} else {
+			da = new AssetStreamAccess(am, path, entry.size);
+		}
+
+		int readAhead = readAheadSize;
+		if (readAhead > 0) {
+			da = new ReadAheadAccess(da, readAhead);
+		}
+		return da;
 	}
 
-	SparseArray<AssetData> streams;
+	/**
+	 * Applies the asset access related project settings. Must be called once GodotLib.setup has
+	 * completed.
+	 */
+	public void loadSettings() {
+		setAssetCacheSize(getGlobalLong("memory/limits/android/asset_cache_size_kb", DEFAULT_ASSET_CACHE_SIZE / 1024) * 1024);
+		setReadAheadSize((int)getGlobalLong("memory/limits/android/asset_read_ahead_kb", 0) * 1024);
+		audioDecoders.setBudget(getGlobalLong("memory/limits/android/audio_decoder_memory_kb", AudioDecoderService.DEFAULT_BUDGET / 1024) * 1024);
+
+		long extractionCacheSize = getGlobalLong("memory/limits/android/asset_extraction_cache_mb", 0) * 1024 * 1024;
+		if (extractionCacheSize > 0) {
+			extractionCache = new AssetExtractionCache(activity, am, extractionCacheSize);
+		}
+	}
 
-	public int file_open(String path, boolean write) {
+	static long getGlobalLong(String setting, long defaultValue) {
+		try {
+			return Long.parseLong(GodotLib.getGlobal(setting));
+		} catch (NumberFormatException e) {
+			Log.w(TAG, "Invalid value for " + setting + ", using " + defaultValue);
+			return defaultValue;
+		}
+	}
 
-		//System.out.printf("file_open: Attempt to Open %s\n",path);
+	/**
+	 * Changes how many bytes are prefetched ahead of sequential readers of compressed assets,
+	 * 0 to disable it. Only affects the files opened afterwards.
+	 */
+	public void setReadAheadSize(int bytes) {
+		readAheadSize = Math.max(0, bytes);
+	}
 
-		//Log.v("MyApp", "TRYING TO OPEN FILE: " + path);
-		if (write)
-			return -1;
+	/**
+	 * Changes the byte budget of the asset cache, 0 to disable it.
+	 */
+	public void setAssetCacheSize(long bytes) {
+		assetCache.setBudget(bytes);
+	}
 
-		AssetData ad = new AssetData();
+	public AssetBlockCache getAssetCache() {
+		return assetCache;
+	}
+
+	public IOStats getIOStats() {
+		return ioStats;
+	}
 
+	/**
+	 * Writes the I/O counters as JSON to 'io_stats.json' in the data dir.
+	 * @return the path of the written file, or an empty string on failure.
+	 */
+	public String dumpIOStats() {
+		File file = new File(getDataDir(), "io_stats.json");
 		try {
-			ad.is = am.open(path);
+			FileOutputStream os = new FileOutputStream(file);
+			try {
+				os.write(ioStats.toJson().toString(1).getBytes("UTF-8"));
+			} finally {
+				os.close();
+			}
+		} catch (IOException | JSONException e) {
+			Log.w(TAG, "Unable to write the I/O stats to " + file, e);
+			return "";
+		}
+		return file.getAbsolutePath();
+	}
 
-		} catch (Exception e) {
+	public int file_open(String path, boolean write) {
 
-			//System.out.printf("Exception on file_open: %s\n",path);
+		//System.out.printf("file_open: Attempt to Open %s\n",path);
+
+		//Log.v("MyApp", "TRYING TO OPEN FILE: " + path);
+		if (write)
 			return -1;
-		}
 
+		DataAccess da;
+		long start = System.nanoTime();
 		try {
-			ad.len = ad.is.available();
+			da = openAsset(path);
 		} catch (Exception e) {
+			ioStats.recordOpen(path, System.nanoTime() - start, false);
 
-			System.out.printf("Exception availabling on file_open: %s\n", path);
+			//System.out.printf("Exception on file_open: %s\n",path);
 			return -1;
 		}
+		ioStats.recordOpen(path, System.nanoTime() - start, true);
 
-		ad.path = path;
-		ad.pos = 0;
-		++last_file_id;
-		streams.put(last_file_id, ad);
+		return streams.add(new InstrumentedAccess(da, path, ioStats));
+	}
 
-		return last_file_id;
+	/**
+	 * Checks the asset index only, without opening the asset (which may map, prefetch or
+	 * extract it).
+	 */
+	public boolean file_exists(String path) {
+		AssetIndex.Entry entry = getAssetIndex().get(path);
+		return entry != null && !entry.directory;
 	}
-	public int file_get_size(int id) {
+	public long file_get_size(int id) {
 
-		if (streams.get(id) == null) {
+		DataAccess da = streams.get(id);
+		if (da == null) {
 			System.out.printf("file_get_size: Invalid file id: %d\n", id);
 			return -1;
 		}
 
-		return streams.get(id).len;
+		synchronized (da) {
+			return da.size();
+		}
 	}
-	public void file_seek(int id, int bytes) {
+	public void file_seek(int id, long bytes) {
 
-		if (streams.get(id) == null) {
-			System.out.printf("file_get_size: Invalid file id: %d\n", id);
+		DataAccess da = streams.get(id);
+		if (da == null) {
+			System.out.printf("file_seek: Invalid file id: %d\n", id);
 			return;
 		}
-		//seek sucks
-		AssetData ad = streams.get(id);
-		if (bytes > ad.len)
-			bytes = ad.len;
-		if (bytes < 0)
-			bytes = 0;
-
-		try {
-
-			if (bytes > (int)ad.pos) {
-				int todo = bytes - (int)ad.pos;
-				while (todo > 0) {
-					todo -= ad.is.skip(todo);
-				}
-				ad.pos = bytes;
-			} else if (bytes < (int)ad.pos) {
 
-				ad.is = am.open(ad.path);
+		synchronized (da) {
+			try {
+				da.seek(bytes);
+			} catch (IOException e) {
 
-				ad.pos = bytes;
-				int todo = bytes;
-				while (todo > 0) {
-					todo -= ad.is.skip(todo);
-				}
+				System.out.printf("Exception on file_seek: %s\n", e);
 			}
-
-			ad.eof = false;
-		} catch (IOException e) {
-
-			System.out.printf("Exception on file_seek: %s\n", e);
-			return;
 		}
 	}
 
-	public int file_tell(int id) {
+	public long file_tell(int id) {
 
-		if (streams.get(id) == null) {
+		DataAccess da = streams.get(id);
+		if (da == null) {
 			System.out.printf("file_read: Can't tell eof for invalid file id: %d\n", id);
 			return 0;
 		}
 
-		AssetData ad = streams.get(id);
-		return ad.pos;
+		synchronized (da) {
+			return da.position();
+		}
 	}
 	public boolean file_eof(int id) {
 
-		if (streams.get(id) == null) {
+		DataAccess da = streams.get(id);
+		if (da == null) {
 			System.out.printf("file_read: Can't check eof for invalid file id: %d\n", id);
 			return false;
 		}
 
-		AssetData ad = streams.get(id);
-		return ad.eof;
+		synchronized (da) {
+			return da.eof();
+		}
 	}
 
 	public byte[] file_read(int id, int bytes) {
 
-		if (streams.get(id) == null) {
-			System.out.printf("file_read: Can't read invalid file id: %d\n", id);
+		DataAccess da = streams.get(id);
+		if (da == null) {
+			Log.e(TAG, "file_read: Can't read invalid file id: " + id);
 			return new byte[0];
 		}
 
-		AssetData ad = streams.get(id);
-
-		if (ad.pos + bytes > ad.len) {
-
-			bytes = ad.len - ad.pos;
-			ad.eof = true;
-		}
-
-		if (bytes == 0) {
-
-			return new byte[0];
-		}
+		synchronized (da) {
+			// The data source clamps the read to its size and flags the eof.
+			byte[] buf1 = new byte[(int)Math.max(0, Math.min(bytes, da.size() - da.position()))];
+			int r = 0;
+			try {
+				r = da.read(buf1, 0, buf1.length);
+			} catch (IOException e) {
+				// Reported as a short read, rather than as data made of zeros.
+				Log.e(TAG, "Exception on file_read", e);
+			}
 
-		byte[] buf1 = new byte[bytes];
-		int r = 0;
-		try {
-			r = ad.is.read(buf1);
-		} catch (IOException e) {
+			if (r < buf1.length) {
+				return Arrays.copyOf(buf1, r);
+			}
 
-			System.out.printf("Exception on file_read: %s\n", e);
-			return new byte[bytes];
+			return buf1;
 		}
+	}
 
-		if (r == 0) {
-			return new byte[0];
+	/**
+	 * Reads up to {@link ByteBuffer#remaining()} bytes from the given file directly into |buffer|.
+	 * <p>
+	 * Used by the native code with a direct buffer wrapping the destination memory, which avoids
+	 * the intermediate array allocations and copies done by {@link #file_read(int, int)}.
+	 * @return the number of bytes read.
+	 */
+	public int file_read_buffer(int id, ByteBuffer buffer) {
+
+		DataAccess da = streams.get(id);
+		if (da == null) {
+			System.out.printf("file_read_buffer: Can't read invalid file id: %d\n", id);
+			return 0;
 		}
 
-		ad.pos += r;
-
-		if (r < bytes) {
-
-			byte[] buf2 = new byte[r];
-			for (int i = 0; i < r; i++)
-				buf2[i] = buf1[i];
-			return buf2;
-		} else {
+		synchronized (da) {
+			try {
+				return da.read(buffer);
+			} catch (IOException e) {
 
-			return buf1;
+				System.out.printf("Exception on file_read_buffer: %s\n", e);
+				return 0;
+			}
 		}
 	}
 
 	public void file_close(int id) {
 
-		if (streams.get(id) == null) {
+		DataAccess da = streams.remove(id);
+		if (da == null) {
 			System.out.printf("file_close: Can't close invalid file id: %d\n", id);
 			return;
 		}
 
-		streams.remove(id);
+		synchronized (da) {
+			da.close();
+		}
 	}
 
 	/////////////////////////
 	/// DIRECTORIES
 	/////////////////////////
 
+	private final Object assetIndexLock = new Object();
+	private AssetIndex assetIndex;
+	private ZipArchive[] expansionArchives = new ZipArchive[0];
+
+	/**
+	 * Mounts the given ZIP-formatted expansion files (e.g: main and patch OBBs, by increasing
+	 * priority) on top of the apk assets, so their files are read in place through the file and
+	 * directory API. Missing files are ignored.
+	 * @return false if none could be mounted.
+	 */
+	public boolean mountExpansionFiles(File... files) {
+		ArrayList<ZipArchive> archives = new ArrayList<ZipArchive>();
+		for (File file : files) {
+			if (file == null || !file.isFile()) {
+				continue;
+			}
+			try {
+				archives.add(ZipArchive.open(file));
+			} catch (IOException e) {
+				Log.w(TAG, "Unable to mount expansion file " + file, e);
+			}
+		}
+
+		synchronized (assetIndexLock) {
+			expansionArchives = archives.toArray(new ZipArchive[0]);
+			// Rebuilt with the archives on next use.
+			assetIndex = null;
+		}
+		return !archives.isEmpty();
+	}
+
+	/**
+	 * Returns the index of the packaged assets, building it on first use.
+	 */
+	AssetIndex getAssetIndex() {
+		synchronized (assetIndexLock) {
+			if (assetIndex == null) {
+				assetIndex = AssetIndex.build(activity, am, expansionArchives);
+			}
+			return assetIndex;
+		}
+	}
+
 	class AssetDir {
 
-		public String[] files;
+		public AssetIndex.Entry[] files;
 		public int current;
 		public String path;
 	}
 
-	public int last_dir_id = 1;
-
-	SparseArray<AssetDir> dirs;
+	final HandleTable<AssetDir> dirs = new HandleTable<AssetDir>();
 
 	public int dir_open(String path) {
 
+		AssetIndex.Entry entry = getAssetIndex().get(path);
+		// Empty directories aren't packaged in the apk, so this only rejects files and missing paths.
+		if (entry == null || !entry.directory || entry.getChildren().length == 0) {
+			return -1;
+		}
+
 		AssetDir ad = new AssetDir();
 		ad.current = 0;
 		ad.path = path;
-
-		try {
-			ad.files = am.list(path);
-			// no way to find path is directory or file exactly.
-			// but if ad.files.length==0, then it's an empty directory or file.
-			if (ad.files.length == 0) {
-				return -1;
-			}
-		} catch (IOException e) {
-
-			System.out.printf("Exception on dir_open: %s\n", e);
-			return -1;
-		}
+		ad.files = entry.getChildren();
 
 		//System.out.printf("Opened dir: %s\n",path);
-		++last_dir_id;
-		dirs.put(last_dir_id, ad);
+		return dirs.add(ad);
+	}
 
-		return last_dir_id;
+	/**
+	 * Same check as {@link #dir_open(String)}, without allocating a handle.
+	 */
+	public boolean dir_exists(String path) {
+		AssetIndex.Entry entry = getAssetIndex().get(path);
+		return entry != null && entry.directory && entry.getChildren().length > 0;
 	}
 
 	public boolean dir_is_dir(int id) {
-		if (dirs.get(id) == null) {
+		AssetDir ad = dirs.get(id);
+		if (ad == null) {
 			System.out.printf("dir_next: invalid dir id: %d\n", id);
 			return false;
 		}
-		AssetDir ad = dirs.get(id);
-		//System.out.printf("go next: %d,%d\n",ad.current,ad.files.length);
-		int idx = ad.current;
-		if (idx > 0)
-			idx--;
 
-		if (idx >= ad.files.length)
-			return false;
-		String fname = ad.files[idx];
+		synchronized (ad) {
+			//System.out.printf("go next: %d,%d\n",ad.current,ad.files.length);
+			int idx = ad.current;
+			if (idx > 0)
+				idx--;
 
-		try {
-			if (ad.path.equals(""))
-				am.open(fname);
-			else
-				am.open(ad.path + "/" + fname);
-			return false;
-		} catch (Exception e) {
-			return true;
+			if (idx >= ad.files.length)
+				return false;
+			return ad.files[idx].directory;
 		}
 	}
 
 	public String dir_next(int id) {
 
-		if (dirs.get(id) == null) {
+		AssetDir ad = dirs.get(id);
+		if (ad == null) {
 			System.out.printf("dir_next: invalid dir id: %d\n", id);
 			return "";
 		}
 
-		AssetDir ad = dirs.get(id);
-		//System.out.printf("go next: %d,%d\n",ad.current,ad.files.length);
+		synchronized (ad) {
+			//System.out.printf("go next: %d,%d\n",ad.current,ad.files.length);
 
-		if (ad.current >= ad.files.length) {
+			if (ad.current >= ad.files.length) {
+				ad.current++;
+				return "";
+			}
+			String r = ad.files[ad.current].name;
 			ad.current++;
-			return "";
+			return r;
 		}
-		String r = ad.files[ad.current];
-		ad.current++;
-		return r;
 	}
 
 	public void dir_close(int id) {
 
-		if (dirs.get(id) == null) {
+		if (dirs.remove(id) == null) {
 			System.out.printf("dir_close: invalid dir id: %d\n", id);
-			return;
+		}
+	}
+
+	/**
+	 * Lists the content of the given asset directory in a single call.
+	 * @return an array holding the entry names (String[]), whether each entry is a directory
+	 * (boolean[]) and the entry sizes in bytes (long[], -1 when unknown); null if |path| isn't a
+	 * directory.
+	 */
+	public Object[] dir_list_all(String path) {
+
+		AssetIndex.Entry entry = getAssetIndex().get(path);
+		if (entry == null || !entry.directory || entry.getChildren().length == 0) {
+			return null;
 		}
 
-		dirs.remove(id);
+		AssetIndex.Entry[] children = entry.getChildren();
+		String[] names = new String[children.length];
+		boolean[] isDir = new boolean[children.length];
+		long[] sizes = new long[children.length];
+		for (int i = 0; i < children.length; i++) {
+			names[i] = children[i].name;
+			isDir[i] = children[i].directory;
+			sizes[i] = children[i].size;
+		}
+
+		return new Object[] { names, isDir, sizes };
 	}
 
 	GodotIO(Godot p_activity) {
 
 		am = p_activity.getAssets();
 		activity = p_activity;
-		//streams = new HashMap<Integer, AssetData>();
-		streams = new SparseArray<AssetData>();
-		dirs = new SparseArray<AssetDir>();
 	}
 
 	/////////////////////////
 	// AUDIO
 	/////////////////////////
 
-	private Object buf;
-	private Thread mAudioThread;
-	private AudioTrack mAudioTrack;
+	private final AudioOutput audioOutput = new AudioOutput();
+	private final AudioCapture audioCapture = new AudioCapture();
 
-	public Object audioInit(int sampleRate, int desiredFrames) {
-		int channelConfig = AudioFormat.CHANNEL_OUT_STEREO;
-		int audioFormat = AudioFormat.ENCODING_PCM_16BIT;
-		int frameSize = 4;
+	public Object audioInit(int sampleRate, int desiredFrames, boolean adaptive, boolean useFloat) {
+		return audioOutput.init(sampleRate, desiredFrames, adaptive, useFloat);
+	}
 
-		System.out.printf("audioInit: initializing audio:\n");
+	public boolean audioIsFloat() {
+		return audioOutput.isFloat();
+	}
 
-		//Log.v("Godot", "Godot audio: wanted " + (isStereo ? "stereo" : "mono") + " " + (is16Bit ? "16-bit" : "8-bit") + " " + ((float)sampleRate / 1000f) + "kHz, " + desiredFrames + " frames buffer");
+	public void audioWriteBuffer() {
+		audioOutput.write();
+	}
 
-		// Let the user pick a larger buffer if they really want -- but ye
-		// gods they probably shouldn't, the minimums are horrifyingly high
-		// latency already
-		desiredFrames = Math.max(desiredFrames, (AudioTrack.getMinBufferSize(sampleRate, channelConfig, audioFormat) + frameSize - 1) / frameSize);
+	public void audioQuit() {
+		audioOutput.quit();
+	}
 
-		mAudioTrack = new AudioTrack(AudioManager.STREAM_MUSIC, sampleRate,
-				channelConfig, audioFormat, desiredFrames * frameSize, AudioTrack.MODE_STREAM);
+	public void audioPause(boolean p_pause) {
+		audioOutput.setPaused(p_pause);
+	}
 
-		audioStartThread();
+	public float audioGetLatency() {
+		return audioOutput.getLatency();
+	}
 
-		//Log.v("Godot", "Godot audio: got " + ((mAudioTrack.getChannelCount() >= 2) ? "stereo" : "mono") + " " + ((mAudioTrack.getAudioFormat() == AudioFormat.ENCODING_PCM_16BIT) ? "16-bit" : "8-bit") + " " + ((float)mAudioTrack.getSampleRate() / 1000f) + "kHz, " + desiredFrames + " frames buffer");
+	public AudioOutput getAudioOutput() {
+		return audioOutput;
+	}
 
-		buf = new short[desiredFrames * 2];
-		return buf;
+	public boolean audioCaptureStart(int sampleRate, int periodFrames) {
+		return audioCapture.start(sampleRate, periodFrames);
 	}
 
-	public void audioStartThread() {
-		mAudioThread = new Thread(new Runnable() {
-			public void run() {
-				mAudioTrack.play();
-				GodotLib.audio();
-			}
-		});
+	public void audioCaptureStop() {
+		audioCapture.stop();
+	}
 
-		// I'd take REALTIME if I could get it!
-		mAudioThread.setPriority(Thread.MAX_PRIORITY);
-		mAudioThread.start();
+	public AudioCapture getAudioCapture() {
+		return audioCapture;
 	}
 
-	public void audioWriteShortBuffer(short[] buffer) {
-		for (int i = 0; i < buffer.length;) {
-			int result = mAudioTrack.write(buffer, i, buffer.length - i);
-			if (result > 0) {
-				i += result;
-			} else if (result == 0) {
+	/////////////////////////
+	// AUDIO DECODING
+	/////////////////////////
+
+	private final AudioDecoderService audioDecoders = new AudioDecoderService();
+
+	/**
+	 * Starts decoding |path| ahead, see {@link AudioDecoderService}.
+	 * @param asset whether |path| is relative to the assets (res://) or an absolute file path.
+	 * @return the id of the decoder, or -1 on failure.
+	 */
+	public int decoderOpen(String path, boolean asset, boolean loop) {
+		MediaExtractor extractor = new MediaExtractor();
+		try {
+			if (!asset) {
+				extractor.setDataSource(path);
+			} else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+				// Goes through the same access paths as the engine files.
+				extractor.setDataSource(new DataAccessMediaSource(openAsset(path)));
+			} else {
+				// Only works for assets stored uncompressed.
+				AssetFileDescriptor afd = am.openFd(path);
 				try {
-					Thread.sleep(1);
-				} catch (InterruptedException e) {
-					// Nom nom
+					extractor.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
+				} finally {
+					afd.close();
 				}
-			} else {
-				Log.w("Godot", "Godot audio: error return from write(short)");
-				return;
 			}
+		} catch (IOException e) {
+			Log.e(TAG, "Unable to open " + path + " for decoding.", e);
+			extractor.release();
+			return -1;
 		}
-	}
 
-	public void audioQuit() {
-		if (mAudioThread != null) {
-			try {
-				mAudioThread.join();
-			} catch (Exception e) {
-				Log.v("Godot", "Problem stopping audio thread: " + e);
-			}
-			mAudioThread = null;
+		return audioDecoders.open(extractor, loop);
+	}
 
-			//Log.v("Godot", "Finished waiting for audio thread");
+	/**
+	 * @return the sample rate, channel count and duration in milliseconds declared by the
+	 * container, or null if |id| is invalid.
+	 */
+	public int[] decoderGetInfo(int id) {
+		AudioDecoder decoder = audioDecoders.get(id);
+		if (decoder == null) {
+			return null;
 		}
+		return new int[] { decoder.getSampleRate(), decoder.getChannels(), (int)(decoder.getDurationUs() / 1000) };
+	}
 
-		if (mAudioTrack != null) {
-			mAudioTrack.stop();
-			mAudioTrack = null;
-		}
+	public Object[] decoderGetChunks(int id) {
+		AudioDecoder decoder = audioDecoders.get(id);
+		return decoder == null ? null : decoder.getChunks();
 	}
 
-	public void audioPause(boolean p_pause) {
+	public int decoderNextChunk(int id) {
+		AudioDecoder decoder = audioDecoders.get(id);
+		return decoder == null ? AudioDecoder.END_OF_STREAM : decoder.nextChunk();
+	}
+
+	public void decoderSeek(int id, double seconds) {
+		AudioDecoder decoder = audioDecoders.get(id);
+		if (decoder != null) {
+			decoder.seek(seconds);
+		}
+	}
 
-		if (p_pause)
-			mAudioTrack.pause();
-		else
-			mAudioTrack.play();
+	public void decoderClose(int id) {
+		audioDecoders.close(id);
 	}
 
 	/////////////////////////
@@ -538,38 +769,56 @@ public class GodotIO {
 		edit = _edit;
 	}
 
-	public void playVideo(String p_path) {
-		Uri filePath = Uri.parse(p_path);
-		mediaPlayer = new MediaPlayer();
-
+	/**
+	 * Starts playing |path| without blocking, see {@link VideoPlayer}.
+	 * @param asset whether |path| is relative to the assets (res://) or an absolute file path.
+	 */
+	public void playVideo(String path, boolean asset, float volume) {
+		MediaPlayer mediaPlayer = new MediaPlayer();
 		try {
 			mediaPlayer.setAudioStreamType(AudioManager.STREAM_MUSIC);
-			mediaPlayer.setDataSource(activity.getApplicationContext(), filePath);
-			mediaPlayer.prepare();
-			mediaPlayer.start();
-		} catch (IOException e) {
-			System.out.println("IOError while playing video");
+			if (!asset) {
+				mediaPlayer.setDataSource(path);
+			} else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+				mediaPlayer.setDataSource(new DataAccessMediaSource(openAsset(path)));
+			} else {
+				// Only works for assets stored uncompressed.
+				AssetFileDescriptor afd = am.openFd(path);
+				try {
+					mediaPlayer.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
+				} finally {
+					afd.close();
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// setDataSource() also throws IllegalArgumentException/IllegalStateException.
+			Log.e(TAG, "Unable to open video " + path + ".", e);
+			mediaPlayer.release();
+			videoPlayer.fail();
+			return;
 		}
+
+		videoPlayer.play(mediaPlayer, volume);
 	}
 
 	public boolean isVideoPlaying() {
-		if (mediaPlayer != null) {
-			return mediaPlayer.isPlaying();
-		}
-		return false;
+		return videoPlayer.isPlaying();
 	}
 
 	public void pauseVideo() {
-		if (mediaPlayer != null) {
-			mediaPlayer.pause();
-		}
+		videoPlayer.pause();
+	}
+
+	public void resumeVideo() {
+		videoPlayer.resume();
 	}
 
 	public void stopVideo() {
-		if (mediaPlayer != null) {
-			mediaPlayer.release();
-			mediaPlayer = null;
-		}
+		videoPlayer.stop();
+	}
+
+	public VideoPlayer getVideoPlayer() {
+		return videoPlayer;
 	}
 
 	public static final int SYSTEM_DIR_DESKTOP = 0;
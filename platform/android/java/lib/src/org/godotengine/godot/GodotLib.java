@@ -33,6 +33,8 @@ package org.godotengine.godot;
 import android.app.Activity;
 import android.hardware.SensorEvent;
 
+import java.nio.ByteBuffer;
+
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
@@ -50,7 +52,7 @@ public class GodotLib {
 	/**
 	 * Invoked on the main thread to initialize Godot native layer.
 	 */
-	public static native void initialize(Godot p_instance, Object p_asset_manager, boolean use_apk_expansion);
+	public static native void initialize(Godot p_instance, Object p_asset_manager, boolean use_apk_expansion, boolean use_java_file_access);
 
 	/**
 	 * Invoked on the main thread to clean up Godot native layer.
@@ -90,6 +92,13 @@ public class GodotLib {
 	 */
 	public static native void step();
 
+	/**
+	 * Dispatches a batch of input events packed by {@link org.godotengine.godot.input.InputEventRing}.
+	 * @param events Direct buffer holding the events
+	 * @param length Number of ints to read from |events|
+	 */
+	public static native void dispatchInputEvents(ByteBuffer events, int length);
+
 	/**
 	 * Forward touch events from the main thread to the GL thread.
 	 */
@@ -176,6 +185,31 @@ public class GodotLib {
 	 */
 	public static native void audio();
 
+	/**
+	 * Queues captured audio for the mixer, invoked from the capture thread.
+	 * @param buffer Direct buffer holding mono 16-bit PCM samples in native byte order
+	 * @param samples Number of samples in the buffer
+	 * @return Number of samples queued, lower than |samples| when the capture ring is full
+	 */
+	public static native int audioCaptureWrite(ByteBuffer buffer, int samples);
+
+	/**
+	 * @return Number of captured samples waiting to be consumed by the mixer
+	 */
+	public static native int audioCaptureQueued();
+
+	/**
+	 * Reports that the capture stopped on an error, invoked from the capture thread.
+	 * @param error The AudioRecord error code
+	 */
+	public static native void audioCaptureFailed(int error);
+
+	/**
+	 * Invoked when the state of the video started by OS.native_video_play() changes.
+	 * @param state One of the VideoPlayer.STATE_* constants
+	 */
+	public static native void videoStateChanged(int state);
+
 	/**
 	 * Used to access Godot global properties.
 	 * @param p_key Property key
@@ -30,11 +30,13 @@
 
 package org.godotengine.godot;
 
+import org.godotengine.godot.input.GodotInputHandler;
 import org.godotengine.godot.plugin.GodotPlugin;
 import org.godotengine.godot.plugin.GodotPluginRegistry;
 import org.godotengine.godot.utils.GLUtils;
 
 import android.opengl.GLSurfaceView;
+import android.os.Trace;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -45,10 +47,12 @@ import javax.microedition.khronos.opengles.GL10;
 class GodotRenderer implements GLSurfaceView.Renderer {
 
 	private final GodotPluginRegistry pluginRegistry;
+	private final GodotInputHandler inputHandler;
 	private boolean activityJustResumed = false;
 
-	GodotRenderer() {
+	GodotRenderer(GodotInputHandler inputHandler) {
 		this.pluginRegistry = GodotPluginRegistry.getPluginRegistry();
+		this.inputHandler = inputHandler;
 	}
 
 	public void onDrawFrame(GL10 gl) {
@@ -57,13 +61,28 @@ class GodotRenderer implements GLSurfaceView.Renderer {
 			activityJustResumed = false;
 		}
 
-		GodotLib.step();
+		// All the input received since the last frame, in a single call.
+		inputHandler.dispatchFrameInput();
+
+		// Latch the last decoded video frame before the engine samples it.
+		if (Godot.io != null) {
+			Godot.io.getVideoPlayer().onGLDrawFrame();
+		}
+
+		Trace.beginSection("Godot step");
+		try {
+			GodotLib.step();
+		} finally {
+			Trace.endSection();
+		}
 		for (int i = 0; i < Godot.singleton_count; i++) {
 			Godot.singletons[i].onGLDrawFrame(gl);
 		}
 		for (GodotPlugin plugin : pluginRegistry.getAllPlugins()) {
 			plugin.onGLDrawFrame(gl);
 		}
+
+		inputHandler.onFrameFinished();
 	}
 
 	public void onSurfaceChanged(GL10 gl, int width, int height) {
@@ -32,6 +32,10 @@ package org.godotengine.godot;
 
 import org.godotengine.godot.input.GodotGestureHandler;
 import org.godotengine.godot.input.GodotInputHandler;
+import org.godotengine.godot.input.GodotSensorHandler;
+import org.godotengine.godot.input.InputEventRing;
+import org.godotengine.godot.input.InputLatencyStats;
+import org.godotengine.godot.input.TouchPredictor;
 import org.godotengine.godot.utils.GLUtils;
 import org.godotengine.godot.xr.XRMode;
 import org.godotengine.godot.xr.ovr.OvrConfigChooser;
@@ -44,6 +48,9 @@ import org.godotengine.godot.xr.regular.RegularFallbackConfigChooser;
 import android.annotation.SuppressLint;
 import android.graphics.PixelFormat;
 import android.opengl.GLSurfaceView;
+import android.os.Build;
+import android.os.Trace;
+import android.view.Choreographer;
 import android.view.GestureDetector;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
@@ -71,9 +78,29 @@ public class GodotView extends GLSurfaceView {
 	private static String TAG = GodotView.class.getSimpleName();
 
 	private final Godot activity;
+	private final GodotSensorHandler sensorHandler;
 	private final GodotInputHandler inputHandler;
 	private final GestureDetector detector;
 	private final GodotRenderer godotRenderer;
+	private final InputEventRing inputEventRing = new InputEventRing();
+	private final TouchPredictor touchPredictor = new TouchPredictor();
+	private final InputLatencyStats inputLatencyStats = new InputLatencyStats();
+
+	// Only written on the UI thread.
+	private volatile boolean lowLatencyMode = false;
+	// Only accessed on the UI thread.
+	private boolean frameCallbackPosted = false;
+	private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			frameCallbackPosted = false;
+			if (lowLatencyMode) {
+				// The input of this vsync has just been delivered, start the frame consuming it.
+				requestRender();
+				postFrameCallback();
+			}
+		}
+	};
 
 	public GodotView(Godot activity, XRMode xrMode, boolean p_use_gl3, boolean p_use_32_bits, boolean p_use_debug_opengl) {
 		super(activity);
@@ -82,12 +109,75 @@ public class GodotView extends GLSurfaceView {
 		GLUtils.use_debug_opengl = p_use_debug_opengl;
 
 		this.activity = activity;
+		this.sensorHandler = new GodotSensorHandler(activity);
 		this.inputHandler = new GodotInputHandler(this);
 		this.detector = new GestureDetector(activity, new GodotGestureHandler(this));
-		this.godotRenderer = new GodotRenderer();
+		this.godotRenderer = new GodotRenderer(inputHandler);
 		init(xrMode, false, 16, 0);
 	}
 
+	/**
+	 * Queue of the input events for the engine, drained at the start of each frame.
+	 */
+	public InputEventRing getInputEventRing() {
+		return inputEventRing;
+	}
+
+	/**
+	 * Disabled until configured, see 'input_devices/pointing/android/touch_prediction_msec'.
+	 */
+	public TouchPredictor getTouchPredictor() {
+		return touchPredictor;
+	}
+
+	public GodotSensorHandler getSensorHandler() {
+		return sensorHandler;
+	}
+
+	public InputLatencyStats getInputLatencyStats() {
+		return inputLatencyStats;
+	}
+
+	/**
+	 * In low latency mode, touch and stylus events are dispatched as soon as they are received
+	 * instead of once per vsync, and frames are started from the {@link Choreographer} right after
+	 * the input of each vsync has been delivered rather than whenever the previous swap returns.
+	 * <p>
+	 * Must be called on the UI thread, see 'input_devices/android/low_latency_mode'.
+	 */
+	public void setLowLatencyMode(boolean enabled) {
+		if (lowLatencyMode == enabled) {
+			return;
+		}
+
+		lowLatencyMode = enabled;
+		if (enabled) {
+			setRenderMode(RENDERMODE_WHEN_DIRTY);
+			postFrameCallback();
+		} else {
+			removeFrameCallback();
+			setRenderMode(RENDERMODE_CONTINUOUSLY);
+		}
+	}
+
+	public boolean isLowLatencyMode() {
+		return lowLatencyMode;
+	}
+
+	private void postFrameCallback() {
+		if (!frameCallbackPosted) {
+			Choreographer.getInstance().postFrameCallback(frameCallback);
+			frameCallbackPosted = true;
+		}
+	}
+
+	private void removeFrameCallback() {
+		if (frameCallbackPosted) {
+			Choreographer.getInstance().removeFrameCallback(frameCallback);
+			frameCallbackPosted = false;
+		}
+	}
+
 	public void initInputDevices() {
 		this.inputHandler.initInputDevices();
 	}
@@ -95,24 +185,49 @@ public class GodotView extends GLSurfaceView {
 	@SuppressLint("ClickableViewAccessibility")
 	@Override
 	public boolean onTouchEvent(MotionEvent event) {
-		super.onTouchEvent(event);
-		this.detector.onTouchEvent(event);
-		return activity.gotTouchEvent(event);
+		if (lowLatencyMode && event.getActionMasked() == MotionEvent.ACTION_DOWN && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			// Lasts until the end of the gesture.
+			requestUnbufferedDispatch(event);
+		}
+
+		Trace.beginSection("Godot touch event");
+		try {
+			super.onTouchEvent(event);
+			this.detector.onTouchEvent(event);
+			return activity.gotTouchEvent(event);
+		} finally {
+			Trace.endSection();
+		}
 	}
 
 	@Override
 	public boolean onKeyUp(final int keyCode, KeyEvent event) {
-		return inputHandler.onKeyUp(keyCode, event) || super.onKeyUp(keyCode, event);
+		Trace.beginSection("Godot key event");
+		try {
+			return inputHandler.onKeyUp(keyCode, event) || super.onKeyUp(keyCode, event);
+		} finally {
+			Trace.endSection();
+		}
 	}
 
 	@Override
 	public boolean onKeyDown(final int keyCode, KeyEvent event) {
-		return inputHandler.onKeyDown(keyCode, event) || super.onKeyDown(keyCode, event);
+		Trace.beginSection("Godot key event");
+		try {
+			return inputHandler.onKeyDown(keyCode, event) || super.onKeyDown(keyCode, event);
+		} finally {
+			Trace.endSection();
+		}
 	}
 
 	@Override
 	public boolean onGenericMotionEvent(MotionEvent event) {
-		return inputHandler.onGenericMotionEvent(event) || super.onGenericMotionEvent(event);
+		Trace.beginSection("Godot motion event");
+		try {
+			return inputHandler.onGenericMotionEvent(event) || super.onGenericMotionEvent(event);
+		} finally {
+			Trace.endSection();
+		}
 	}
 
 	private void init(XRMode xrMode, boolean translucent, int depth, int stencil) {
@@ -180,6 +295,9 @@ public class GodotView extends GLSurfaceView {
 	@Override
 	public void onResume() {
 		super.onResume();
+		if (lowLatencyMode) {
+			postFrameCallback();
+		}
 
 		queueEvent(new Runnable() {
 			@Override
@@ -194,6 +312,7 @@ public class GodotView extends GLSurfaceView {
 	@Override
 	public void onPause() {
 		super.onPause();
+		removeFrameCallback();
 
 		queueEvent(new Runnable() {
 			@Override
@@ -0,0 +1,271 @@
+/*************************************************************************/
+/*  AudioCapture.java                                                    */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.audio;
+
+import org.godotengine.godot.GodotLib;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.AudioTimestamp;
+import android.media.MediaRecorder;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Java side of the capture path of the 'audio_driver_jandroid' driver.
+ * <p>
+ * A dedicated thread reads mono 16-bit PCM from an {@link AudioRecord} into a direct buffer, one
+ * period at a time, and pushes it to the native driver with
+ * {@link GodotLib#audioCaptureWrite(ByteBuffer, int)}. The native side queues the samples in a
+ * single-producer/single-consumer lock-free ring which the mixer thread drains, so neither thread
+ * ever waits on the other. When the mixer falls behind and the ring is full, the newest samples are
+ * dropped and counted as overflows.
+ */
+public class AudioCapture {
+
+	private static final String TAG = AudioCapture.class.getSimpleName();
+
+	private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_MONO;
+	private static final int ENCODING = AudioFormat.ENCODING_PCM_16BIT;
+	private static final int SAMPLE_SIZE = 2;
+
+	private AudioRecord record;
+	// Guards the record between stop() and its release by the capture thread.
+	private final Object recordLock = new Object();
+	private boolean recordReleased;
+	private Thread thread;
+	private ByteBuffer buffer;
+	private final AudioTimestamp timestamp = new AudioTimestamp();
+
+	private volatile boolean running = false;
+	private int sampleRate;
+	private int periodFrames;
+
+	// Written by the capture thread, read by the stats getters.
+	private volatile long capturedFrames;
+	private volatile long droppedFrames;
+	private volatile int readErrors;
+	private volatile float recordLatency;
+
+	/**
+	 * Starts capturing from the microphone, the RECORD_AUDIO permission must have been granted.
+	 * @param periodFrames the number of frames read and handed to the native driver at once.
+	 * @return whether the capture could be started.
+	 */
+	public synchronized boolean start(int sampleRate, int periodFrames) {
+		if (running) {
+			return true;
+		}
+		// Cleans up after a capture which failed.
+		stop();
+
+		int minBytes = AudioRecord.getMinBufferSize(sampleRate, CHANNEL_CONFIG, ENCODING);
+		if (minBytes <= 0) {
+			Log.e(TAG, "Unsupported capture configuration: " + sampleRate + "Hz.");
+			return false;
+		}
+
+		try {
+			// Voice recognition is the source with the least processing, and thus latency,
+			// available on all devices.
+			record = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, sampleRate, CHANNEL_CONFIG, ENCODING, Math.max(minBytes, 2 * periodFrames * SAMPLE_SIZE));
+		} catch (IllegalArgumentException e) {
+			Log.e(TAG, "Unable to create the audio record.", e);
+			return false;
+		}
+
+		if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+			Log.e(TAG, "Unable to initialize the audio record.");
+			record.release();
+			record = null;
+			return false;
+		}
+
+		this.sampleRate = sampleRate;
+		this.periodFrames = periodFrames;
+		capturedFrames = 0;
+		droppedFrames = 0;
+		readErrors = 0;
+		recordLatency = 0;
+		if (buffer == null || buffer.capacity() != periodFrames * SAMPLE_SIZE) {
+			buffer = ByteBuffer.allocateDirect(periodFrames * SAMPLE_SIZE).order(ByteOrder.nativeOrder());
+		}
+
+		Log.v(TAG, "Audio capture: " + sampleRate + "Hz, " + periodFrames + " frames period");
+
+		running = true;
+		recordReleased = false;
+		final AudioRecord capturedRecord = record;
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+				try {
+					capturedRecord.startRecording();
+					captureLoop(capturedRecord);
+				} catch (IllegalStateException e) {
+					Log.e(TAG, "Unable to record audio.", e);
+					onCaptureFailed(AudioRecord.ERROR_INVALID_OPERATION);
+				} finally {
+					// Released here so a failed capture doesn't keep the microphone.
+					synchronized (recordLock) {
+						capturedRecord.release();
+						recordReleased = true;
+					}
+				}
+			}
+		}, "GodotAudioCapture");
+		thread.start();
+		return true;
+	}
+
+	private void captureLoop(AudioRecord record) {
+		while (running) {
+			buffer.clear();
+			int result;
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+				result = record.read(buffer, buffer.capacity(), AudioRecord.READ_BLOCKING);
+			} else {
+				// Always blocking.
+				result = record.read(buffer, buffer.capacity());
+			}
+
+			if (result < 0) {
+				readErrors++;
+				Log.e(TAG, "Error " + result + " reading audio data.");
+				onCaptureFailed(result);
+				return;
+			}
+
+			int samples = result / SAMPLE_SIZE;
+			if (samples == 0) {
+				// The record was stopped.
+				continue;
+			}
+
+			capturedFrames += samples;
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+				updateRecordLatency(record);
+			}
+
+			int queued = GodotLib.audioCaptureWrite(buffer, samples);
+			if (queued < samples) {
+				droppedFrames += samples - queued;
+			}
+		}
+	}
+
+	/**
+	 * Measures how long ago the last frame read was captured by the hardware.
+	 */
+	private void updateRecordLatency(AudioRecord record) {
+		if (record.getTimestamp(timestamp, AudioTimestamp.TIMEBASE_MONOTONIC) != AudioRecord.SUCCESS) {
+			return;
+		}
+
+		long capturedTime = timestamp.nanoTime + (capturedFrames - timestamp.framePosition) * 1000000000L / sampleRate;
+		recordLatency = Math.max(0, System.nanoTime() - capturedTime) / 1e9f;
+	}
+
+	private void onCaptureFailed(int error) {
+		running = false;
+		// Lets the driver stop waiting for data, and restart the capture when asked to.
+		GodotLib.audioCaptureFailed(error);
+	}
+
+	/**
+	 * Stops capturing and waits for the capture thread to exit.
+	 */
+	public synchronized void stop() {
+		if (thread == null) {
+			return;
+		}
+
+		running = false;
+		synchronized (recordLock) {
+			if (!recordReleased) {
+				// Unblocks a pending read.
+				record.stop();
+			}
+		}
+
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Log.w(TAG, "Interrupted while stopping the capture thread.");
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+		record = null;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getPeriodFrames() {
+		return periodFrames;
+	}
+
+	public long getCapturedFrames() {
+		return capturedFrames;
+	}
+
+	/**
+	 * Returns the frames dropped because the native ring was full.
+	 */
+	public long getDroppedFrames() {
+		return droppedFrames;
+	}
+
+	public int getReadErrors() {
+		return readErrors;
+	}
+
+	/**
+	 * Returns the capture latency in seconds: the age of the last frame handed to the native
+	 * driver, measured on API 24+, plus the time the queued frames wait for the mixer.
+	 */
+	public float getLatency() {
+		if (!running || sampleRate == 0) {
+			return 0;
+		}
+		return recordLatency + (float)GodotLib.audioCaptureQueued() / sampleRate;
+	}
+}
@@ -0,0 +1,499 @@
+/*************************************************************************/
+/*  AudioDecoder.java                                                    */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.audio;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decodes the first audio track of a {@link MediaExtractor} with {@link MediaCodec} into a fixed
+ * set of direct chunks, ahead of the native consumer.
+ * <p>
+ * Decoding runs on the worker of the owning {@link AudioDecoderService} until every chunk is
+ * filled, and resumes whenever the consumer hands a chunk back through {@link #nextChunk()}.
+ * Chunks go back and forth through lock-free queues, so the consumer (the audio mixer) never
+ * waits for the codec, even while it seeks or flushes.
+ * Each chunk starts with a header of {@link #CHUNK_HEADER_SIZE} bytes made of four native order
+ * ints: the number of 16-bit samples that follow, the sample rate, the channel count and the
+ * number of times the stream looped before the first sample. Samples are interleaved, and chunks
+ * always hold whole frames.
+ */
+public class AudioDecoder implements Runnable {
+
+	private static final String TAG = AudioDecoder.class.getSimpleName();
+
+	public static final int CHUNK_HEADER_SIZE = 16;
+
+	/** Returned by {@link #nextChunk()} when no chunk has been decoded yet. */
+	public static final int NOT_READY = -1;
+	/** Returned by {@link #nextChunk()} once the whole stream was consumed. */
+	public static final int END_OF_STREAM = -2;
+
+	private static final long DEQUEUE_TIMEOUT_US = 5000;
+
+	private final AudioDecoderService service;
+	private final MediaExtractor extractor;
+	private final MediaCodec codec;
+	private final boolean loop;
+	private final long durationUs;
+	private final ByteBuffer[] chunks;
+	private final MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+
+	// Chunk indices handed from the consumer to the worker, and back.
+	private final ChunkQueue freeChunks;
+	private final ChunkQueue filledChunks;
+	// Seek generation each chunk was decoded for, published along with the chunk.
+	private final int[] chunkGenerations;
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	private final AtomicReference<SeekRequest> seekRequest = new AtomicReference<>();
+	private volatile boolean closed = false;
+	// Generation whose output was fully decoded, -1 if none.
+	private volatile int doneGeneration = -1;
+
+	// Only used by the consumer.
+	private int heldChunk = -1;
+	private int generation = 0;
+
+	// Only used by the worker.
+	private boolean released = false;
+	private int workerGeneration = 0;
+	private boolean outputDone = false;
+	private int sampleRate;
+	private int channels;
+	private int loops = 0;
+	private boolean inputDone = false;
+	private int currentChunk = -1;
+	private int currentLoops = 0;
+	private int outputIndex = -1;
+	private ByteBuffer outputBuffer;
+	private boolean outputEnd = false;
+
+	private static class SeekRequest {
+
+		final int generation;
+		final long timeUs;
+
+		SeekRequest(int generation, long timeUs) {
+			this.generation = generation;
+			this.timeUs = timeUs;
+		}
+	}
+
+	/**
+	 * Single producer, single consumer queue of chunk indices. Never blocks: each side only
+	 * moves its own cursor.
+	 */
+	private static class ChunkQueue {
+
+		private final int[] slots;
+		private final int mask;
+		// Written by the consumer.
+		private final AtomicInteger head = new AtomicInteger();
+		// Written by the producer.
+		private final AtomicInteger tail = new AtomicInteger();
+
+		ChunkQueue(int capacity) {
+			// Every chunk fits in a single queue.
+			slots = new int[Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1)];
+			mask = slots.length - 1;
+		}
+
+		void offer(int chunk) {
+			int t = tail.get();
+			slots[t & mask] = chunk;
+			tail.lazySet(t + 1);
+		}
+
+		/**
+		 * Returns the oldest chunk, or -1 if empty.
+		 */
+		int poll() {
+			int h = head.get();
+			if (h == tail.get()) {
+				return -1;
+			}
+			int chunk = slots[h & mask];
+			head.lazySet(h + 1);
+			return chunk;
+		}
+
+		boolean isEmpty() {
+			return head.get() == tail.get();
+		}
+	}
+
+	private AudioDecoder(AudioDecoderService service, MediaExtractor extractor, MediaCodec codec, MediaFormat format, boolean loop, int chunkCount, int chunkSize) {
+		this.service = service;
+		this.extractor = extractor;
+		this.codec = codec;
+		this.loop = loop;
+		durationUs = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) : 0;
+		sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+		channels = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+
+		chunks = new ByteBuffer[chunkCount];
+		chunkGenerations = new int[chunkCount];
+		freeChunks = new ChunkQueue(chunkCount);
+		filledChunks = new ChunkQueue(chunkCount);
+		for (int i = 0; i < chunkCount; i++) {
+			chunks[i] = ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.nativeOrder());
+			freeChunks.offer(i);
+		}
+	}
+
+	/**
+	 * Selects the first audio track of |extractor| and starts a decoder for it. The extractor is
+	 * owned by the returned decoder, and released on failure.
+	 */
+	static AudioDecoder create(AudioDecoderService service, MediaExtractor extractor, boolean loop, int chunkCount, int chunkSize) throws IOException {
+		MediaCodec codec = null;
+		try {
+			for (int i = 0; i < extractor.getTrackCount(); i++) {
+				MediaFormat format = extractor.getTrackFormat(i);
+				String mime = format.getString(MediaFormat.KEY_MIME);
+				if (mime == null || !mime.startsWith("audio/")) {
+					continue;
+				}
+
+				extractor.selectTrack(i);
+				codec = MediaCodec.createDecoderByType(mime);
+				codec.configure(format, null, null, 0);
+				codec.start();
+				return new AudioDecoder(service, extractor, codec, format, loop, chunkCount, chunkSize);
+			}
+			throw new IOException("No audio track found.");
+		} catch (IOException | RuntimeException e) {
+			if (codec != null) {
+				codec.release();
+			}
+			extractor.release();
+			throw e instanceof IOException ? (IOException)e : new IOException(e);
+		}
+	}
+
+	public ByteBuffer[] getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * Returns the sample rate and channel count of the track, as declared by the container.
+	 * The chunk headers are authoritative.
+	 */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getChannels() {
+		return channels;
+	}
+
+	public long getDurationUs() {
+		return durationUs;
+	}
+
+	public long getMemorySize() {
+		return (long)chunks.length * chunks[0].capacity();
+	}
+
+	/**
+	 * Hands the previously returned chunk back and returns the index of the next decoded one,
+	 * {@link #NOT_READY} or {@link #END_OF_STREAM}. Never waits for the decoder.
+	 * <p>
+	 * {@link #nextChunk()} and {@link #seek(double)} must be called from a single consumer thread.
+	 */
+	public int nextChunk() {
+		boolean freed = releaseHeldChunk();
+		// Checked before polling: the last chunk is published before the end is flagged.
+		boolean done = doneGeneration == generation;
+
+		int chunk;
+		while ((chunk = filledChunks.poll()) >= 0) {
+			if (chunkGenerations[chunk] == generation) {
+				heldChunk = chunk;
+				schedule();
+				return chunk;
+			}
+			// Decoded before a seek.
+			freeChunks.offer(chunk);
+			freed = true;
+		}
+
+		if (freed) {
+			schedule();
+		}
+		return done ? END_OF_STREAM : NOT_READY;
+	}
+
+	/**
+	 * Drops the decoded chunks and restarts decoding from |seconds|.
+	 */
+	public void seek(double seconds) {
+		releaseHeldChunk();
+		generation++;
+		seekRequest.set(new SeekRequest(generation, (long)(Math.max(0, seconds) * 1000000)));
+		schedule();
+	}
+
+	/**
+	 * Stops decoding, the codec is released on the worker.
+	 */
+	public void close() {
+		closed = true;
+		schedule();
+	}
+
+	private boolean releaseHeldChunk() {
+		if (heldChunk < 0) {
+			return false;
+		}
+		freeChunks.offer(heldChunk);
+		heldChunk = -1;
+		return true;
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			service.execute(this);
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				if (closed) {
+					// Stays scheduled, nothing runs once released.
+					release();
+					return;
+				}
+
+				SeekRequest request = seekRequest.getAndSet(null);
+				if (request != null) {
+					applySeek(request);
+				}
+
+				if (hasWork()) {
+					step();
+					continue;
+				}
+
+				scheduled.set(false);
+				// A chunk may have been handed back, or a request posted, before the flag was cleared.
+				if (!(closed || seekRequest.get() != null || hasWork()) || !scheduled.compareAndSet(false, true)) {
+					return;
+				}
+			}
+		} catch (IllegalStateException e) {
+			Log.e(TAG, "Audio decoding failed.", e);
+			outputDone = true;
+			doneGeneration = workerGeneration;
+			scheduled.set(false);
+			if (closed && scheduled.compareAndSet(false, true)) {
+				release();
+			}
+		}
+	}
+
+	private boolean hasWork() {
+		return !outputDone && (currentChunk >= 0 || !freeChunks.isEmpty());
+	}
+
+	/**
+	 * Restarts decoding from the requested position. Runs on the worker, the consumer never waits
+	 * for the codec to flush.
+	 */
+	private void applySeek(SeekRequest request) {
+		extractor.seekTo(request.timeUs, MediaExtractor.SEEK_TO_PREVIOUS_SYNC);
+		codec.flush();
+		// Flushing returns all the buffers to the codec.
+		outputIndex = -1;
+		outputBuffer = null;
+		outputEnd = false;
+		if (currentChunk >= 0) {
+			// Reused for the new position.
+			chunks[currentChunk].clear();
+			chunks[currentChunk].position(CHUNK_HEADER_SIZE);
+			currentLoops = loops;
+		}
+		inputDone = false;
+		outputDone = false;
+		workerGeneration = request.generation;
+	}
+
+	private void step() {
+		feedInput();
+
+		if (outputIndex < 0) {
+			int index = codec.dequeueOutputBuffer(info, DEQUEUE_TIMEOUT_US);
+			if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+				MediaFormat format = codec.getOutputFormat();
+				sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+				channels = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+				return;
+			}
+			if (index < 0) {
+				// Try again later, or output buffers changed.
+				return;
+			}
+
+			outputIndex = index;
+			outputBuffer = getOutputBuffer(index);
+			outputBuffer.limit(info.offset + info.size);
+			outputBuffer.position(info.offset);
+			outputEnd = (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+		}
+
+		int frameSize = channels * 2;
+		while (outputBuffer.hasRemaining()) {
+			if (currentChunk < 0 && !acquireChunk()) {
+				// Every chunk is full, the rest of the buffer is copied once one is handed back.
+				return;
+			}
+
+			ByteBuffer chunk = chunks[currentChunk];
+			int count = Math.min(chunk.remaining() / frameSize * frameSize, outputBuffer.remaining());
+			int limit = outputBuffer.limit();
+			outputBuffer.limit(outputBuffer.position() + count);
+			chunk.put(outputBuffer);
+			outputBuffer.limit(limit);
+
+			if (chunk.remaining() < frameSize) {
+				publishChunk();
+			}
+		}
+
+		codec.releaseOutputBuffer(outputIndex, false);
+		outputIndex = -1;
+		outputBuffer = null;
+
+		if (outputEnd) {
+			if (currentChunk >= 0) {
+				publishChunk();
+			}
+			outputDone = true;
+			doneGeneration = workerGeneration;
+		}
+	}
+
+	private void feedInput() {
+		while (!inputDone) {
+			int index = codec.dequeueInputBuffer(0);
+			if (index < 0) {
+				return;
+			}
+
+			ByteBuffer input = getInputBuffer(index);
+			int size = extractor.readSampleData(input, 0);
+			if (size < 0 && loop) {
+				// Restarts the track without draining the codec, for gapless looping.
+				extractor.seekTo(0, MediaExtractor.SEEK_TO_CLOSEST_SYNC);
+				size = extractor.readSampleData(input, 0);
+				loops++;
+			}
+
+			if (size < 0) {
+				codec.queueInputBuffer(index, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+				inputDone = true;
+				return;
+			}
+
+			codec.queueInputBuffer(index, 0, size, extractor.getSampleTime(), 0);
+			extractor.advance();
+		}
+	}
+
+	private boolean acquireChunk() {
+		int chunk = freeChunks.poll();
+		if (chunk < 0) {
+			return false;
+		}
+
+		currentChunk = chunk;
+		currentLoops = loops;
+		chunks[currentChunk].clear();
+		chunks[currentChunk].position(CHUNK_HEADER_SIZE);
+		return true;
+	}
+
+	private void publishChunk() {
+		ByteBuffer chunk = chunks[currentChunk];
+		chunk.putInt(0, (chunk.position() - CHUNK_HEADER_SIZE) / 2);
+		chunk.putInt(4, sampleRate);
+		chunk.putInt(8, channels);
+		chunk.putInt(12, currentLoops);
+
+		chunkGenerations[currentChunk] = workerGeneration;
+		filledChunks.offer(currentChunk);
+		currentChunk = -1;
+	}
+
+	private ByteBuffer getInputBuffer(int index) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			return codec.getInputBuffer(index);
+		}
+		ByteBuffer buffer = codec.getInputBuffers()[index];
+		buffer.clear();
+		return buffer;
+	}
+
+	private ByteBuffer getOutputBuffer(int index) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			return codec.getOutputBuffer(index);
+		}
+		return codec.getOutputBuffers()[index];
+	}
+
+	private void release() {
+		if (released) {
+			return;
+		}
+		released = true;
+
+		try {
+			codec.stop();
+		} catch (IllegalStateException e) {
+			// Already in an error state.
+		}
+		codec.release();
+		extractor.release();
+		service.onReleased(this);
+	}
+}
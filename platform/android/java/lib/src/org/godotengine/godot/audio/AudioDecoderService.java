@@ -0,0 +1,146 @@
+/*************************************************************************/
+/*  AudioDecoderService.java                                             */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.audio;
+
+import org.godotengine.godot.io.HandleTable;
+
+import android.media.MediaExtractor;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Hardware accelerated decoding of compressed audio (MP3, AAC, Vorbis, Opus...) for the native
+ * 'AudioStreamMediaCodec' playbacks.
+ * <p>
+ * Every open stream gets an {@link AudioDecoder} with {@link #CHUNKS_PER_STREAM} direct chunks,
+ * all decoded ahead on a single shared worker thread. The memory used by the chunks of all the
+ * streams is bounded by a budget, streams which don't fit fail to open.
+ */
+public class AudioDecoderService {
+
+	private static final String TAG = AudioDecoderService.class.getSimpleName();
+
+	public static final int CHUNKS_PER_STREAM = 4;
+	// 4096 stereo frames, or about 93ms at 44.1kHz.
+	public static final int CHUNK_DATA_SIZE = 16 * 1024;
+	public static final long DEFAULT_BUDGET = 2 * 1024 * 1024;
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+					r.run();
+				}
+			}, "GodotAudioDecoder");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final HandleTable<AudioDecoder> decoders = new HandleTable<>();
+
+	// Guarded by this.
+	private long budget = DEFAULT_BUDGET;
+	private long used = 0;
+
+	/**
+	 * Starts decoding the first audio track of |extractor|, which is owned by the decoder from
+	 * then on.
+	 * @return the id of the stream, or -1 on failure.
+	 */
+	public int open(MediaExtractor extractor, boolean loop) {
+		long size = (long)CHUNKS_PER_STREAM * (AudioDecoder.CHUNK_HEADER_SIZE + CHUNK_DATA_SIZE);
+		synchronized (this) {
+			if (used + size > budget) {
+				Log.e(TAG, "Audio decoding memory budget exhausted (" + used / 1024 + "/" + budget / 1024 + " KiB).");
+				extractor.release();
+				return -1;
+			}
+			used += size;
+		}
+
+		AudioDecoder decoder;
+		try {
+			decoder = AudioDecoder.create(this, extractor, loop, CHUNKS_PER_STREAM, AudioDecoder.CHUNK_HEADER_SIZE + CHUNK_DATA_SIZE);
+		} catch (IOException e) {
+			Log.e(TAG, "Unable to create the audio decoder.", e);
+			synchronized (this) {
+				used -= size;
+			}
+			return -1;
+		}
+
+		// Decodes ahead right away so the first chunks are ready when the playback starts.
+		decoder.seek(0);
+		return decoders.add(decoder);
+	}
+
+	public AudioDecoder get(int id) {
+		return decoders.get(id);
+	}
+
+	public void close(int id) {
+		AudioDecoder decoder = decoders.remove(id);
+		if (decoder != null) {
+			decoder.close();
+		}
+	}
+
+	/**
+	 * Changes the memory available to the chunks of all the streams. Streams already open are
+	 * left alone.
+	 */
+	public synchronized void setBudget(long bytes) {
+		budget = Math.max(0, bytes);
+	}
+
+	public synchronized long getMemoryUsed() {
+		return used;
+	}
+
+	void execute(Runnable task) {
+		executor.execute(task);
+	}
+
+	void onReleased(AudioDecoder decoder) {
+		synchronized (this) {
+			used -= decoder.getMemorySize();
+		}
+	}
+}
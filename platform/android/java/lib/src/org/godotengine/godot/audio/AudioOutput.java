@@ -0,0 +1,438 @@
+/*************************************************************************/
+/*  AudioOutput.java                                                     */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.audio;
+
+import org.godotengine.godot.GodotLib;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+/**
+ * Java side of the 'audio_driver_jandroid' output driver.
+ * <p>
+ * The native mixer runs on a dedicated thread (see {@link GodotLib#audio()}) which fills the
+ * direct buffer returned by {@link #init(int, int, boolean, boolean)} in place and calls
+ * {@link #write()} every period. The track reads straight out of that buffer, so no array is
+ * pinned or copied through JNI. Writes block until the data is queued in the track, so the thread
+ * is paced by the audio hardware instead of polling, and the buffer is allocated once.
+ * <p>
+ * Only used when the project selects the "AudioTrack" driver in 'audio/driver'; OpenSL stays the
+ * default output on Android.
+ * <p>
+ * Samples are interleaved stereo in native byte order, either 16-bit integers or, when requested
+ * and supported (API 21+), 32-bit floats which spare the mixer a lossy conversion.
+ * <p>
+ * In adaptive mode (API 24+), the track is created with room to spare and its playable size is
+ * tuned at runtime: it grows by a step whenever the track reports an underrun or the mixer comes
+ * close to causing one, and shrinks back by a step after a period without glitches. The stable
+ * period required before shrinking doubles with every growth so the size settles instead of
+ * oscillating.
+ */
+public class AudioOutput {
+
+	private static final String TAG = AudioOutput.class.getSimpleName();
+
+	private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_OUT_STEREO;
+	private static final int CHANNEL_COUNT = 2;
+
+	// Capacity of an adaptive track, in multiples of the starting buffer size.
+	private static final int ADAPTIVE_CAPACITY_FACTOR = 4;
+	private static final long STABLE_TIME_MIN_MS = 10000;
+	private static final long STABLE_TIME_MAX_MS = 160000;
+
+	private AudioTrack track;
+	private Thread thread;
+	private ByteBuffer buffer;
+	private int encoding;
+	private int frameSize;
+
+	// Before API 21, tracks only accept arrays.
+	private ShortBuffer legacyView;
+	private short[] legacyBuffer;
+
+	private int sampleRate;
+	private int periodFrames;
+	private boolean adaptive;
+	private int stepFrames;
+	private int minBufferFrames;
+	private long stableTimeMs;
+	private long lastChangeTime;
+	// Reset by setPaused.
+	private volatile long lastWriteEnd;
+	private int lastUnderrunCount;
+
+	// Written by the audio thread, read by the stats getters.
+	private volatile int bufferFrames;
+	private volatile int capacityFrames;
+	private volatile int underrunCount;
+	private volatile int lateWriteCount;
+	private volatile int resizeCount;
+
+	/**
+	 * Creates the track, starts the audio thread and returns the direct buffer to be filled by the
+	 * native mixer, holding one period.
+	 * @param adaptive whether to tune the buffer size to the underruns of the track, ignored
+	 * before API 24.
+	 * @param useFloat whether to use float samples, ignored before API 21. See {@link #isFloat()}.
+	 */
+	public ByteBuffer init(int sampleRate, int desiredFrames, boolean adaptive, boolean useFloat) {
+		if (useFloat && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			encoding = AudioFormat.ENCODING_PCM_FLOAT;
+			frameSize = CHANNEL_COUNT * 4;
+		} else {
+			encoding = AudioFormat.ENCODING_PCM_16BIT;
+			frameSize = CHANNEL_COUNT * 2;
+		}
+
+		// The minimum buffer size is already high latency, but anything lower fails.
+		int minFrames = (AudioTrack.getMinBufferSize(sampleRate, CHANNEL_CONFIG, encoding) + frameSize - 1) / frameSize;
+
+		this.sampleRate = sampleRate;
+		this.adaptive = adaptive && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+		if (this.adaptive) {
+			// Mix in small periods and let the track buffer absorb the jitter.
+			periodFrames = desiredFrames;
+			track = createTrack(sampleRate, Math.max(minFrames, 2 * periodFrames) * ADAPTIVE_CAPACITY_FACTOR);
+		} else {
+			periodFrames = Math.max(desiredFrames, minFrames);
+			track = createTrack(sampleRate, periodFrames);
+		}
+
+		if (track == null || track.getState() != AudioTrack.STATE_INITIALIZED) {
+			Log.e(TAG, "Unable to initialize the audio track.");
+			if (track != null) {
+				track.release();
+				track = null;
+			}
+			return null;
+		}
+
+		underrunCount = 0;
+		lateWriteCount = 0;
+		resizeCount = 0;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+			lastUnderrunCount = track.getUnderrunCount();
+		}
+		if (this.adaptive) {
+			capacityFrames = track.getBufferCapacityInFrames();
+			stepFrames = Math.max(periodFrames / 2, 1);
+			minBufferFrames = Math.min(periodFrames + stepFrames, capacityFrames);
+			int result = track.setBufferSizeInFrames(Math.min(Math.max(minFrames, 2 * periodFrames), capacityFrames));
+			// Negative on error, the track then plays with its whole capacity.
+			bufferFrames = result > 0 ? result : capacityFrames;
+			stableTimeMs = STABLE_TIME_MIN_MS;
+			lastChangeTime = SystemClock.elapsedRealtime();
+			lastWriteEnd = 0;
+		} else {
+			capacityFrames = periodFrames;
+			bufferFrames = periodFrames;
+		}
+
+		Log.v(TAG, "Audio output: " + sampleRate + "Hz, " + (isFloat() ? "float" : "16-bit") + ", " + periodFrames + " frames period, " + bufferFrames + "/" + capacityFrames + " frames buffer" + (this.adaptive ? " (adaptive)" : ""));
+
+		buffer = ByteBuffer.allocateDirect(periodFrames * frameSize).order(ByteOrder.nativeOrder());
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+			legacyView = buffer.asShortBuffer();
+			legacyBuffer = new short[periodFrames * CHANNEL_COUNT];
+		}
+		start();
+		return buffer;
+	}
+
+	private AudioTrack createTrack(int sampleRate, int frames) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+			return new AudioTrack(AudioManager.STREAM_MUSIC, sampleRate, CHANNEL_CONFIG, encoding, frames * frameSize, AudioTrack.MODE_STREAM);
+		}
+
+		AudioAttributes attributes = new AudioAttributes.Builder()
+											 .setUsage(AudioAttributes.USAGE_GAME)
+											 .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+											 .build();
+		AudioFormat format = new AudioFormat.Builder()
+									 .setSampleRate(sampleRate)
+									 .setChannelMask(CHANNEL_CONFIG)
+									 .setEncoding(encoding)
+									 .build();
+
+		AudioTrack.Builder builder = new AudioTrack.Builder();
+		builder.setAudioAttributes(attributes);
+		builder.setAudioFormat(format);
+		builder.setBufferSizeInBytes(frames * frameSize);
+		builder.setTransferMode(AudioTrack.MODE_STREAM);
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+			// Fast mixer path, when the device has one.
+			builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+		}
+
+		try {
+			return builder.build();
+		} catch (UnsupportedOperationException e) {
+			Log.e(TAG, "Unsupported audio track configuration.", e);
+			return null;
+		}
+	}
+
+	private void start() {
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+				track.play();
+				// Runs the native mixing loop until the driver quits.
+				GodotLib.audio();
+			}
+		}, "GodotAudio");
+		thread.start();
+	}
+
+	/**
+	 * Queues the period held by the buffer, blocking until it's fully written. Called from the
+	 * audio thread once the native mixer has filled the buffer.
+	 */
+	public void write() {
+		if (adaptive) {
+			checkMixTime();
+		}
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			buffer.clear();
+			while (buffer.hasRemaining()) {
+				int result = track.write(buffer, buffer.remaining(), AudioTrack.WRITE_BLOCKING);
+				if (!checkWrite(result)) {
+					return;
+				}
+			}
+		} else {
+			legacyView.rewind();
+			legacyView.get(legacyBuffer);
+			int offset = 0;
+			while (offset < legacyBuffer.length) {
+				// Always blocking in streaming mode.
+				int result = track.write(legacyBuffer, offset, legacyBuffer.length - offset);
+				if (!checkWrite(result)) {
+					return;
+				}
+				offset += result;
+			}
+		}
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+			boolean underrun = checkUnderruns();
+			if (adaptive) {
+				lastWriteEnd = SystemClock.elapsedRealtimeNanos();
+				adapt(underrun);
+			}
+		}
+	}
+
+	private static boolean checkWrite(int result) {
+		if (result < 0) {
+			Log.w(TAG, "Error " + result + " writing audio data.");
+			return false;
+		}
+		if (result == 0) {
+			// The track was stopped.
+			return false;
+		}
+		return true;
+	}
+
+	private boolean checkUnderruns() {
+		int underruns = track.getUnderrunCount();
+		if (underruns <= lastUnderrunCount) {
+			return false;
+		}
+
+		underrunCount += underruns - lastUnderrunCount;
+		lastUnderrunCount = underruns;
+		return true;
+	}
+
+	/**
+	 * Counts the periods where the mixer used more than half of the headroom left by the track
+	 * buffer, and grows the buffer before they turn into underruns.
+	 */
+	private void checkMixTime() {
+		if (lastWriteEnd == 0) {
+			return;
+		}
+
+		long mixTimeNs = SystemClock.elapsedRealtimeNanos() - lastWriteEnd;
+		long headroomNs = (bufferFrames - periodFrames) * 1000000000L / sampleRate;
+		if (mixTimeNs > headroomNs / 2) {
+			lateWriteCount++;
+			grow();
+		}
+	}
+
+	private void adapt(boolean underrun) {
+		if (underrun) {
+			grow();
+			return;
+		}
+
+		long now = SystemClock.elapsedRealtime();
+		if (now - lastChangeTime >= stableTimeMs && bufferFrames > minBufferFrames) {
+			resize(Math.max(bufferFrames - stepFrames, minBufferFrames));
+			lastChangeTime = now;
+		}
+	}
+
+	private void grow() {
+		lastChangeTime = SystemClock.elapsedRealtime();
+		if (bufferFrames >= capacityFrames) {
+			return;
+		}
+
+		resize(Math.min(bufferFrames + stepFrames, capacityFrames));
+		stableTimeMs = Math.min(stableTimeMs * 2, STABLE_TIME_MAX_MS);
+	}
+
+	private void resize(int frames) {
+		int result = track.setBufferSizeInFrames(frames);
+		if (result > 0 && result != bufferFrames) {
+			bufferFrames = result;
+			resizeCount++;
+			Log.v(TAG, "Audio buffer resized to " + result + " frames.");
+		}
+	}
+
+	/**
+	 * Stops the track and waits for the audio thread to exit. The native driver must have been
+	 * told to quit beforehand.
+	 */
+	public void quit() {
+		if (track != null) {
+			// Unblocks a pending write.
+			track.stop();
+		}
+
+		if (thread != null) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Log.w(TAG, "Interrupted while stopping the audio thread.");
+				Thread.currentThread().interrupt();
+			}
+			thread = null;
+		}
+
+		if (track != null) {
+			track.release();
+			track = null;
+		}
+	}
+
+	public void setPaused(boolean paused) {
+		if (track == null) {
+			return;
+		}
+
+		if (paused) {
+			track.pause();
+		} else {
+			track.play();
+			// Time spent paused isn't mixing time.
+			lastWriteEnd = 0;
+		}
+	}
+
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * Returns whether the buffer holds float samples rather than 16-bit integers.
+	 */
+	public boolean isFloat() {
+		return encoding == AudioFormat.ENCODING_PCM_FLOAT;
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Returns the number of frames mixed per write.
+	 */
+	public int getPeriodFrames() {
+		return periodFrames;
+	}
+
+	/**
+	 * Returns the playable size of the track buffer, in frames.
+	 */
+	public int getBufferFrames() {
+		return bufferFrames;
+	}
+
+	/**
+	 * Returns the size the track buffer can grow to, in frames.
+	 */
+	public int getCapacityFrames() {
+		return capacityFrames;
+	}
+
+	/**
+	 * Returns the output latency added by the track buffer, in seconds.
+	 */
+	public float getLatency() {
+		return sampleRate > 0 ? (float)bufferFrames / sampleRate : 0;
+	}
+
+	/**
+	 * Returns the underruns reported by the track since init, always 0 before API 24.
+	 */
+	public int getUnderrunCount() {
+		return underrunCount;
+	}
+
+	/**
+	 * Returns the periods where the mixer came close to causing an underrun.
+	 */
+	public int getLateWriteCount() {
+		return lateWriteCount;
+	}
+
+	public int getResizeCount() {
+		return resizeCount;
+	}
+}
@@ -0,0 +1,95 @@
+/*************************************************************************/
+/*  AudioStatsSingleton.java                                             */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.audio;
+
+import org.godotengine.godot.Dictionary;
+import org.godotengine.godot.Godot;
+
+/**
+ * Exposes the state of the {@link AudioOutput} and {@link AudioCapture} to GDScript as the
+ * 'GodotAudioStats' singleton:
+ * <pre>
+ * var stats = Engine.get_singleton("GodotAudioStats")
+ * print(stats.get_stats())
+ * print(stats.get_capture_stats())
+ * </pre>
+ * Only meaningful when the 'AudioTrack' audio driver is in use. Must be created once
+ * GodotLib.setup has completed.
+ */
+public class AudioStatsSingleton extends Godot.SingletonBase {
+
+	private final AudioOutput output;
+	private final AudioCapture capture;
+
+	public AudioStatsSingleton(AudioOutput output, AudioCapture capture) {
+		this.output = output;
+		this.capture = capture;
+		registerClass("GodotAudioStats", new String[] { "get_stats", "get_latency_ms", "get_underrun_count", "get_capture_stats" });
+	}
+
+	public Dictionary get_stats() {
+		Dictionary stats = new Dictionary();
+		stats.put("adaptive", output.isAdaptive());
+		stats.put("float", output.isFloat());
+		stats.put("sample_rate", output.getSampleRate());
+		stats.put("period_frames", output.getPeriodFrames());
+		stats.put("buffer_frames", output.getBufferFrames());
+		stats.put("capacity_frames", output.getCapacityFrames());
+		stats.put("latency_ms", get_latency_ms());
+		stats.put("underruns", output.getUnderrunCount());
+		stats.put("late_writes", output.getLateWriteCount());
+		stats.put("resizes", output.getResizeCount());
+		return stats;
+	}
+
+	/**
+	 * Returns the latency of the track buffer in milliseconds.
+	 */
+	public int get_latency_ms() {
+		return Math.round(output.getLatency() * 1000);
+	}
+
+	public int get_underrun_count() {
+		return output.getUnderrunCount();
+	}
+
+	public Dictionary get_capture_stats() {
+		Dictionary stats = new Dictionary();
+		stats.put("running", capture.isRunning());
+		stats.put("sample_rate", capture.getSampleRate());
+		stats.put("period_frames", capture.getPeriodFrames());
+		stats.put("latency_ms", Math.round(capture.getLatency() * 1000));
+		stats.put("captured_frames", capture.getCapturedFrames());
+		stats.put("overflow_frames", capture.getDroppedFrames());
+		stats.put("read_errors", capture.getReadErrors());
+		return stats;
+	}
+}
@@ -30,7 +30,6 @@
 
 package org.godotengine.godot.input;
 
-import org.godotengine.godot.GodotLib;
 import org.godotengine.godot.GodotView;
 
 import android.util.Log;
@@ -44,13 +43,11 @@ import android.view.MotionEvent;
 public class GodotGestureHandler extends GestureDetector.SimpleOnGestureListener {
 
 	private final GodotView godotView;
+	private final InputEventRing inputEventRing;
 
 	public GodotGestureHandler(GodotView godotView) {
 		this.godotView = godotView;
-	}
-
-	private void queueEvent(Runnable task) {
-		godotView.queueEvent(task);
+		this.inputEventRing = godotView.getInputEventRing();
 	}
 
 	@Override
@@ -76,12 +73,7 @@ public class GodotGestureHandler extends GestureDetector.SimpleOnGestureListener
 		//Log.i("GodotGesture", "onDoubleTap");
 		final int x = Math.round(event.getX());
 		final int y = Math.round(event.getY());
-		queueEvent(new Runnable() {
-			@Override
-			public void run() {
-				GodotLib.doubletap(x, y);
-			}
-		});
+		inputEventRing.pushDoubleTap(x, y);
 		return true;
 	}
 
@@ -90,12 +82,7 @@ public class GodotGestureHandler extends GestureDetector.SimpleOnGestureListener
 		//Log.i("GodotGesture", "onScroll");
 		final int x = Math.round(distanceX);
 		final int y = Math.round(distanceY);
-		queueEvent(new Runnable() {
-			@Override
-			public void run() {
-				GodotLib.scroll(x, y);
-			}
-		});
+		inputEventRing.pushScroll(x, y);
 		return true;
 	}
 
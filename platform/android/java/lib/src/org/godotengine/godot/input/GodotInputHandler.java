@@ -32,50 +32,39 @@ package org.godotengine.godot.input;
 
 import static org.godotengine.godot.utils.GLUtils.DEBUG;
 
-import org.godotengine.godot.GodotLib;
 import org.godotengine.godot.GodotView;
 import org.godotengine.godot.input.InputManagerCompat.InputDeviceListener;
 
+import android.os.Trace;
 import android.util.Log;
 import android.view.InputDevice;
-import android.view.InputDevice.MotionRange;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-
 /**
  * Handles input related events for the {@link GodotView} view.
  */
 public class GodotInputHandler implements InputDeviceListener {
 
-	private final ArrayList<Joystick> joysticksDevices = new ArrayList<Joystick>();
+	private final InputDeviceRegistry deviceRegistry = new InputDeviceRegistry();
 
 	private final GodotView godotView;
+	private final InputEventRing inputEventRing;
+	private final GodotSensorHandler sensorHandler;
+	private final InputLatencyStats latencyStats;
 	private final InputManagerCompat inputManager;
 
 	public GodotInputHandler(GodotView godotView) {
 		this.godotView = godotView;
+		this.inputEventRing = godotView.getInputEventRing();
+		this.sensorHandler = godotView.getSensorHandler();
+		this.latencyStats = godotView.getInputLatencyStats();
 		this.inputManager = InputManagerCompat.Factory.getInputManager(godotView.getContext());
 		this.inputManager.registerInputDeviceListener(this, null);
 	}
 
-	private void queueEvent(Runnable task) {
-		godotView.queueEvent(task);
-	}
-
-	private boolean isKeyEvent_GameDevice(int source) {
-		// Note that keyboards are often (SOURCE_KEYBOARD | SOURCE_DPAD)
-		if (source == (InputDevice.SOURCE_KEYBOARD | InputDevice.SOURCE_DPAD))
-			return false;
-
-		return (source & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK || (source & InputDevice.SOURCE_DPAD) == InputDevice.SOURCE_DPAD || (source & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD;
-	}
-
 	public boolean onKeyUp(final int keyCode, KeyEvent event) {
+		final long receivedNs = System.nanoTime();
 		if (keyCode == KeyEvent.KEYCODE_BACK) {
 			return true;
 		}
@@ -85,34 +74,29 @@ public class GodotInputHandler implements InputDeviceListener {
 		};
 
 		int source = event.getSource();
-		if (isKeyEvent_GameDevice(source)) {
+		if (deviceRegistry.isGameDeviceSource(source)) {
 
 			final int button = getGodotButton(keyCode);
-			final int device_id = findJoystickDevice(event.getDeviceId());
+			final int device_id = deviceRegistry.getGodotId(event.getDeviceId());
 
 			// Check if the device exists
 			if (device_id > -1) {
-				queueEvent(new Runnable() {
-					@Override
-					public void run() {
-						GodotLib.joybutton(device_id, button, false);
-					}
-				});
+				if (inputEventRing.pushJoyButton(device_id, button, false)) {
+					latencyStats.onEventQueued(InputLatencyStats.SOURCE_JOYSTICK, event.getEventTime(), receivedNs);
+				}
 			}
 		} else {
 			final int chr = event.getUnicodeChar(0);
-			queueEvent(new Runnable() {
-				@Override
-				public void run() {
-					GodotLib.key(keyCode, chr, false);
-				}
-			});
+			if (inputEventRing.pushKey(keyCode, chr, false)) {
+				latencyStats.onEventQueued(InputLatencyStats.SOURCE_KEY, event.getEventTime(), receivedNs);
+			}
 		};
 
 		return true;
 	}
 
 	public boolean onKeyDown(final int keyCode, KeyEvent event) {
+		final long receivedNs = System.nanoTime();
 		if (keyCode == KeyEvent.KEYCODE_BACK) {
 			godotView.onBackPressed();
 			// press 'back' button should not terminate program
@@ -127,85 +111,83 @@ public class GodotInputHandler implements InputDeviceListener {
 		int source = event.getSource();
 		//Log.e(TAG, String.format("Key down! source %d, device %d, joystick %d, %d, %d", event.getDeviceId(), source, (source & InputDevice.SOURCE_JOYSTICK), (source & InputDevice.SOURCE_DPAD), (source & InputDevice.SOURCE_GAMEPAD)));
 
-		if (isKeyEvent_GameDevice(source)) {
+		if (deviceRegistry.isGameDeviceSource(source)) {
 
 			if (event.getRepeatCount() > 0) // ignore key echo
 				return true;
 
 			final int button = getGodotButton(keyCode);
-			final int device_id = findJoystickDevice(event.getDeviceId());
+			final int device_id = deviceRegistry.getGodotId(event.getDeviceId());
 
 			// Check if the device exists
 			if (device_id > -1) {
-				queueEvent(new Runnable() {
-					@Override
-					public void run() {
-						GodotLib.joybutton(device_id, button, true);
-					}
-				});
+				if (inputEventRing.pushJoyButton(device_id, button, true)) {
+					latencyStats.onEventQueued(InputLatencyStats.SOURCE_JOYSTICK, event.getEventTime(), receivedNs);
+				}
 			}
 		} else {
 			final int chr = event.getUnicodeChar(0);
-			queueEvent(new Runnable() {
-				@Override
-				public void run() {
-					GodotLib.key(keyCode, chr, true);
-				}
-			});
+			if (inputEventRing.pushKey(keyCode, chr, true)) {
+				latencyStats.onEventQueued(InputLatencyStats.SOURCE_KEY, event.getEventTime(), receivedNs);
+			}
 		};
 
 		return true;
 	}
 
 	public boolean onGenericMotionEvent(MotionEvent event) {
+		final long receivedNs = System.nanoTime();
 		if ((event.getSource() & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK && event.getAction() == MotionEvent.ACTION_MOVE) {
 
-			final int device_id = findJoystickDevice(event.getDeviceId());
+			final Joystick joystick = deviceRegistry.getJoystick(event.getDeviceId());
 
 			// Check if the device exists
-			if (device_id > -1) {
-				Joystick joy = joysticksDevices.get(device_id);
-
-				for (int i = 0; i < joy.axes.size(); i++) {
-					InputDevice.MotionRange range = joy.axes.get(i);
-					final float value = (event.getAxisValue(range.getAxis()) - range.getMin()) / range.getRange() * 2.0f - 1.0f;
-					final int idx = i;
-					queueEvent(new Runnable() {
-						@Override
-						public void run() {
-							GodotLib.joyaxis(device_id, idx, value);
-						}
-					});
-				}
-
-				for (int i = 0; i < joy.hats.size(); i += 2) {
-					final int hatX = Math.round(event.getAxisValue(joy.hats.get(i).getAxis()));
-					final int hatY = Math.round(event.getAxisValue(joy.hats.get(i + 1).getAxis()));
-					queueEvent(new Runnable() {
-						@Override
-						public void run() {
-							GodotLib.joyhat(device_id, hatX, hatY);
-						}
-					});
-				}
+			if (joystick != null) {
+				// Only the latest values are kept, and counted once flushed, see
+				// InputDeviceRegistry.flush().
+				joystick.update(event, receivedNs);
 				return true;
 			}
 		} else if ((event.getSource() & InputDevice.SOURCE_STYLUS) == InputDevice.SOURCE_STYLUS) {
 			final int x = Math.round(event.getX());
 			final int y = Math.round(event.getY());
 			final int type = event.getAction();
-			queueEvent(new Runnable() {
-				@Override
-				public void run() {
-					GodotLib.hover(type, x, y);
-				}
-			});
+			if (inputEventRing.pushHover(type, x, y)) {
+				latencyStats.onEventQueued(InputLatencyStats.SOURCE_STYLUS, event.getEventTime(), receivedNs);
+			}
 			return true;
 		}
 
 		return false;
 	}
 
+	/**
+	 * Sends the input gathered since the last frame to the engine. Called on the GL thread at the
+	 * start of each frame.
+	 */
+	public void dispatchFrameInput() {
+		Trace.beginSection("Godot input dispatch");
+		try {
+			deviceRegistry.flush(inputEventRing, latencyStats);
+			sensorHandler.flush(inputEventRing);
+
+			// Events are counted once queued, so all these ones are part of this batch.
+			final int queued = latencyStats.getQueuedCount();
+			inputEventRing.drain();
+
+			latencyStats.onEventsDispatched(queued);
+		} finally {
+			Trace.endSection();
+		}
+	}
+
+	/**
+	 * Called on the GL thread once the engine is done with the frame.
+	 */
+	public void onFrameFinished() {
+		latencyStats.onFrameFinished();
+	}
+
 	public void initInputDevices() {
 		/* initially add input devices*/
 		int[] deviceIds = inputManager.getInputDeviceIds();
@@ -220,65 +202,19 @@ public class GodotInputHandler implements InputDeviceListener {
 
 	@Override
 	public void onInputDeviceAdded(int deviceId) {
-		int id = findJoystickDevice(deviceId);
-
-		// Check if the device has not been already added
-		if (id < 0) {
-			InputDevice device = inputManager.getInputDevice(deviceId);
-			//device can be null if deviceId is not found
-			if (device != null) {
-				int sources = device.getSources();
-				if (((sources & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD) ||
-						((sources & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK)) {
-					id = joysticksDevices.size();
-
-					Joystick joy = new Joystick();
-					joy.device_id = deviceId;
-					joy.name = device.getName();
-					joy.axes = new ArrayList<InputDevice.MotionRange>();
-					joy.hats = new ArrayList<InputDevice.MotionRange>();
-
-					List<InputDevice.MotionRange> ranges = device.getMotionRanges();
-					Collections.sort(ranges, new RangeComparator());
-
-					for (InputDevice.MotionRange range : ranges) {
-						if (range.getAxis() == MotionEvent.AXIS_HAT_X || range.getAxis() == MotionEvent.AXIS_HAT_Y) {
-							joy.hats.add(range);
-						} else {
-							joy.axes.add(range);
-						}
-					}
-
-					joysticksDevices.add(joy);
-
-					final int device_id = id;
-					final String name = joy.name;
-					queueEvent(new Runnable() {
-						@Override
-						public void run() {
-							GodotLib.joyconnectionchanged(device_id, true, name);
-						}
-					});
-				}
-			}
+		InputDevice device = inputManager.getInputDevice(deviceId);
+		//device can be null if deviceId is not found
+		if (device == null) {
+			return;
 		}
+
+		// The connection goes through the input queue, ordered with the joystick events.
+		deviceRegistry.add(device, inputEventRing);
 	}
 
 	@Override
 	public void onInputDeviceRemoved(int deviceId) {
-		final int device_id = findJoystickDevice(deviceId);
-
-		// Check if the evice has not been already removed
-		if (device_id > -1) {
-			joysticksDevices.remove(device_id);
-
-			queueEvent(new Runnable() {
-				@Override
-				public void run() {
-					GodotLib.joyconnectionchanged(device_id, false, "");
-				}
-			});
-		}
+		deviceRegistry.remove(deviceId, inputEventRing);
 	}
 
 	@Override
@@ -287,13 +223,6 @@ public class GodotInputHandler implements InputDeviceListener {
 		onInputDeviceAdded(deviceId);
 	}
 
-	private static class RangeComparator implements Comparator<MotionRange> {
-		@Override
-		public int compare(MotionRange arg0, MotionRange arg1) {
-			return arg0.getAxis() - arg1.getAxis();
-		}
-	}
-
 	public static int getGodotButton(int keyCode) {
 		int button;
 		switch (keyCode) {
@@ -358,14 +287,4 @@ public class GodotInputHandler implements InputDeviceListener {
 		}
 		return button;
 	}
-
-	private int findJoystickDevice(int device_id) {
-		for (int i = 0; i < joysticksDevices.size(); i++) {
-			if (joysticksDevices.get(i).device_id == device_id) {
-				return i;
-			}
-		}
-
-		return -1;
-	}
 }
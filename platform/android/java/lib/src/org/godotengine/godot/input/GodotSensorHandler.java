@@ -0,0 +1,233 @@
+/*************************************************************************/
+/*  GodotSensorHandler.java                                              */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.view.Display;
+import android.view.WindowManager;
+
+/**
+ * Feeds the motion sensors to the engine.
+ * <p>
+ * A sensor is only registered once the engine first reads it (see InputDefaultAndroid), and
+ * only while the activity is resumed. Each sensor has a single slot holding its latest value,
+ * already remapped to the display orientation. The slots that changed are sent once per frame
+ * through the input ring by {@link #flush(InputEventRing)}, older samples are dropped.
+ */
+public class GodotSensorHandler implements SensorEventListener, DisplayManager.DisplayListener {
+
+	// Keep in sync with InputDefaultAndroid::Sensor.
+	public static final int SENSOR_ACCELEROMETER = 0;
+	public static final int SENSOR_GRAVITY = 1;
+	public static final int SENSOR_MAGNETOMETER = 2;
+	public static final int SENSOR_GYROSCOPE = 3;
+	private static final int SENSOR_COUNT = 4;
+
+	private static final int[] SENSOR_TYPES = { Sensor.TYPE_ACCELEROMETER, Sensor.TYPE_GRAVITY, Sensor.TYPE_MAGNETIC_FIELD, Sensor.TYPE_GYROSCOPE };
+
+	// Same rate as SENSOR_DELAY_GAME.
+	private static final int DEFAULT_SAMPLING_PERIOD_US = 20000;
+
+	// Maps the device axes to the display ones for each display rotation: the x sign, the y sign,
+	// then the device axes used for x and y.
+	private static final int[][] AXIS_SWAP = {
+		{ 1, -1, 0, 1 }, // ROTATION_0
+		{ -1, -1, 1, 0 }, // ROTATION_90
+		{ -1, 1, 0, 1 }, // ROTATION_180
+		{ 1, 1, 1, 0 } // ROTATION_270
+	};
+
+	private final SensorManager sensorManager;
+	private final DisplayManager displayManager;
+	private final Display display;
+	private final Sensor[] sensors = new Sensor[SENSOR_COUNT];
+
+	// Guarded by this.
+	private final boolean[] requested = new boolean[SENSOR_COUNT];
+	private boolean resumed = false;
+	private int samplingPeriodUs = DEFAULT_SAMPLING_PERIOD_US;
+	private int maxReportLatencyUs = 0;
+
+	// Only updated when the display changes, instead of being queried for each sample.
+	private volatile int displayRotation = 0;
+
+	// Latest values of each sensor, guarded by this.
+	private final float[] values = new float[SENSOR_COUNT * 3];
+	private final boolean[] updated = new boolean[SENSOR_COUNT];
+
+	public GodotSensorHandler(Context context) {
+		sensorManager = (SensorManager)context.getSystemService(Context.SENSOR_SERVICE);
+		displayManager = (DisplayManager)context.getSystemService(Context.DISPLAY_SERVICE);
+		display = ((WindowManager)context.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay();
+		updateDisplayRotation();
+	}
+
+	/**
+	 * Sets the sampling period of the sensors, and how long the samples may be batched by the
+	 * hardware before being delivered (0 to deliver them right away). Batching lets the
+	 * application processor sleep longer, at the cost of staler values. Applies to the sensors
+	 * registered from now on.
+	 */
+	public synchronized void configure(int samplingPeriodUs, int maxReportLatencyUs) {
+		this.samplingPeriodUs = samplingPeriodUs > 0 ? samplingPeriodUs : DEFAULT_SAMPLING_PERIOD_US;
+		this.maxReportLatencyUs = Math.max(0, maxReportLatencyUs);
+	}
+
+	/**
+	 * Starts delivering |sensor| (one of the SENSOR_* constants). Called by the engine the first
+	 * time it reads the sensor, from any thread.
+	 */
+	public synchronized void enableSensor(int sensor) {
+		if (sensor < 0 || sensor >= SENSOR_COUNT || requested[sensor]) {
+			return;
+		}
+
+		requested[sensor] = true;
+		if (resumed) {
+			register(sensor);
+		}
+	}
+
+	public synchronized void onResume() {
+		resumed = true;
+		updateDisplayRotation();
+		displayManager.registerDisplayListener(this, null);
+		for (int i = 0; i < SENSOR_COUNT; i++) {
+			if (requested[i]) {
+				register(i);
+			}
+		}
+	}
+
+	public synchronized void onPause() {
+		resumed = false;
+		sensorManager.unregisterListener(this);
+		displayManager.unregisterDisplayListener(this);
+	}
+
+	private void register(int sensor) {
+		if (sensors[sensor] == null) {
+			sensors[sensor] = sensorManager.getDefaultSensor(SENSOR_TYPES[sensor]);
+			if (sensors[sensor] == null) {
+				// Not available on this device, the engine keeps reading zeros.
+				return;
+			}
+		}
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			sensorManager.registerListener(this, sensors[sensor], samplingPeriodUs, maxReportLatencyUs);
+		} else {
+			sensorManager.registerListener(this, sensors[sensor], samplingPeriodUs);
+		}
+	}
+
+	private void updateDisplayRotation() {
+		displayRotation = display.getRotation();
+	}
+
+	@Override
+	public void onSensorChanged(SensorEvent event) {
+		final int sensor;
+		switch (event.sensor.getType()) {
+			case Sensor.TYPE_ACCELEROMETER:
+				sensor = SENSOR_ACCELEROMETER;
+				break;
+			case Sensor.TYPE_GRAVITY:
+				sensor = SENSOR_GRAVITY;
+				break;
+			case Sensor.TYPE_MAGNETIC_FIELD:
+				sensor = SENSOR_MAGNETOMETER;
+				break;
+			case Sensor.TYPE_GYROSCOPE:
+				sensor = SENSOR_GYROSCOPE;
+				break;
+			default:
+				return;
+		}
+
+		final int[] as = AXIS_SWAP[displayRotation];
+		float x = as[0] * event.values[as[2]];
+		float y = as[1] * event.values[as[3]];
+		float z = event.values[2];
+
+		// The gyroscope rotates around the axes instead of along them.
+		if (sensor == SENSOR_GYROSCOPE) {
+			y = -y;
+		} else {
+			x = -x;
+			z = -z;
+		}
+
+		synchronized (this) {
+			values[sensor * 3] = x;
+			values[sensor * 3 + 1] = y;
+			values[sensor * 3 + 2] = z;
+			updated[sensor] = true;
+		}
+	}
+
+	@Override
+	public void onAccuracyChanged(Sensor sensor, int accuracy) {
+	}
+
+	/**
+	 * Pushes the sensors updated since the last call to |ring|. Called on the GL thread once per
+	 * frame.
+	 */
+	public synchronized void flush(InputEventRing ring) {
+		for (int i = 0; i < SENSOR_COUNT; i++) {
+			if (updated[i]) {
+				updated[i] = false;
+				ring.pushSensor(i, values[i * 3], values[i * 3 + 1], values[i * 3 + 2]);
+			}
+		}
+	}
+
+	@Override
+	public void onDisplayAdded(int displayId) {
+	}
+
+	@Override
+	public void onDisplayRemoved(int displayId) {
+	}
+
+	@Override
+	public void onDisplayChanged(int displayId) {
+		// Also covers the 180 degrees rotations, which don't trigger a configuration change.
+		updateDisplayRotation();
+	}
+}
@@ -54,6 +54,7 @@ public class GodotTextInputWrapper implements TextWatcher, OnEditorActionListene
 	private final GodotEditText mEdit;
 	private String mOriginText;
 	private boolean mHasSelection;
+	private final StringBuilder mReplacedText = new StringBuilder();
 
 	// ===========================================================
 	// Constructors
@@ -94,44 +95,49 @@ public class GodotTextInputWrapper implements TextWatcher, OnEditorActionListene
 	public void beforeTextChanged(final CharSequence pCharSequence, final int start, final int count, final int after) {
 		//Log.d(TAG, "beforeTextChanged(" + pCharSequence + ")start: " + start + ",count: " + count + ",after: " + after);
 
-		mView.queueEvent(new Runnable() {
-			@Override
-			public void run() {
-				for (int i = 0; i < count; ++i) {
-					GodotLib.key(KeyEvent.KEYCODE_DEL, 0, true);
-					GodotLib.key(KeyEvent.KEYCODE_DEL, 0, false);
-
-					if (mHasSelection) {
-						mHasSelection = false;
-						break;
-					}
-				}
-			}
-		});
+		// Keep the replaced text so only what the IME actually changed is sent to the engine.
+		mReplacedText.setLength(0);
+		mReplacedText.append(pCharSequence, start, start + count);
 	}
 
 	@Override
 	public void onTextChanged(final CharSequence pCharSequence, final int start, final int before, final int count) {
 		//Log.d(TAG, "onTextChanged(" + pCharSequence + ")start: " + start + ",count: " + count + ",before: " + before);
 
-		final int[] newChars = new int[count];
-		for (int i = start; i < start + count; ++i) {
-			newChars[i - start] = pCharSequence.charAt(i);
-		}
-		mView.queueEvent(new Runnable() {
-			@Override
-			public void run() {
-				for (int i = 0; i < count; ++i) {
-					int key = newChars[i];
-					if (key == '\n') {
-						// Return keys are handled through action events
-						continue;
-					}
-					GodotLib.key(0, key, true);
-					GodotLib.key(0, key, false);
-				}
+		pushTextChange(mView.getInputEventRing(), pCharSequence, start, before, count);
+	}
+
+	/**
+	 * Pushes to |ring| the backspaces and characters turning the text replaced since
+	 * {@link #beforeTextChanged(CharSequence, int, int, int)} into the |count| characters of
+	 * |text| from |start|.
+	 */
+	void pushTextChange(final InputEventRing ring, final CharSequence text, final int start, final int before, final int count) {
+		int deletions = 0;
+		int unchanged = 0;
+		if (mHasSelection) {
+			// A single backspace removes the whole selection.
+			if (before > 0) {
+				deletions = 1;
+				mHasSelection = false;
 			}
-		});
+		} else {
+			// Composing text is usually replaced with itself plus or minus a few characters,
+			// skip the common prefix.
+			final int length = Math.min(mReplacedText.length(), count);
+			while (unchanged < length && mReplacedText.charAt(unchanged) == text.charAt(start + unchanged)) {
+				unchanged++;
+			}
+			if (unchanged > 0 && Character.isHighSurrogate(text.charAt(start + unchanged - 1))) {
+				// Don't split a surrogate pair.
+				unchanged--;
+			}
+			// One backspace per code point.
+			deletions = Character.codePointCount(mReplacedText, unchanged, mReplacedText.length());
+		}
+
+		// Enter is sent as a key by onEditorAction().
+		ring.pushText(deletions, text, start + unchanged, start + count, true);
 	}
 
 	@Override
@@ -139,22 +145,12 @@ public class GodotTextInputWrapper implements TextWatcher, OnEditorActionListene
 		if (this.mEdit == pTextView && this.isFullScreenEdit()) {
 			final String characters = pKeyEvent.getCharacters();
 
-			mView.queueEvent(new Runnable() {
-				@Override
-				public void run() {
-					for (int i = 0; i < characters.length(); i++) {
-						final int ch = characters.codePointAt(i);
-						GodotLib.key(0, ch, true);
-						GodotLib.key(0, ch, false);
-					}
-				}
-			});
+			mView.getInputEventRing().pushText(0, characters, 0, characters.length(), false);
 		}
 
 		if (pActionID == EditorInfo.IME_NULL) {
 			// Enter key has been pressed
-			GodotLib.key(KeyEvent.KEYCODE_ENTER, 0, true);
-			GodotLib.key(KeyEvent.KEYCODE_ENTER, 0, false);
+			mView.getInputEventRing().pushKeyStroke(KeyEvent.KEYCODE_ENTER, 0);
 
 			this.mView.requestFocus();
 			return true;
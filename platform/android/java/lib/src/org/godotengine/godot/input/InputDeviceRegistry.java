@@ -0,0 +1,232 @@
+/*************************************************************************/
+/*  InputDeviceRegistry.java                                             */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import android.util.Log;
+import android.view.InputDevice;
+import android.view.InputDevice.MotionRange;
+import android.view.MotionEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Keeps track of the connected joysticks and of the Godot device id assigned to each of them.
+ * <p>
+ * A joystick keeps its id for as long as it is connected, so removing one doesn't change the ids
+ * of the others. A joystick plugged back gets its previous id again when it is still free.
+ * Otherwise, it gets the lowest id never used by another device since startup, so the ids of
+ * disconnected joysticks stay available for them; only when all the free ids were used before does
+ * it take the lowest free one.
+ * <p>
+ * Only modified on the UI thread, where the lookups happen.
+ * {@link #flush(InputEventRing, InputLatencyStats)} may be called concurrently from the GL thread. Connection changes are pushed to the input queue under
+ * the same lock as the flush, so the engine never sees the state of a joystick before its
+ * connection or after its disconnection.
+ */
+class InputDeviceRegistry {
+
+	private static final String TAG = InputDeviceRegistry.class.getSimpleName();
+
+	// JOYPADS_MAX in main/input_default.h.
+	static final int MAX_JOYSTICKS = 16;
+
+	private static final int SOURCE_CLASS_OTHER = 0;
+	private static final int SOURCE_CLASS_GAME_DEVICE = 1;
+
+	// Indexed by Godot id, guarded by this.
+	private final Joystick[] joysticks = new Joystick[MAX_JOYSTICKS];
+	// Descriptor of the last device which used each id.
+	private final String[] descriptors = new String[MAX_JOYSTICKS];
+	// Android device id to Godot id.
+	private final HashMap<Integer, Integer> godotIds = new HashMap<Integer, Integer>();
+	// Event source to SOURCE_CLASS_*.
+	private final HashMap<Integer, Integer> sourceClasses = new HashMap<Integer, Integer>();
+
+	private static final Comparator<MotionRange> RANGE_COMPARATOR = new Comparator<MotionRange>() {
+		@Override
+		public int compare(MotionRange arg0, MotionRange arg1) {
+			return arg0.getAxis() - arg1.getAxis();
+		}
+	};
+
+	/**
+	 * Returns the Godot id of the joystick with the given Android device id, -1 if it isn't one.
+	 */
+	int getGodotId(int deviceId) {
+		Integer godotId = godotIds.get(deviceId);
+		return godotId != null ? godotId : -1;
+	}
+
+	/**
+	 * Returns the joystick with the given Android device id, null if it isn't one.
+	 */
+	Joystick getJoystick(int deviceId) {
+		int godotId = getGodotId(deviceId);
+		return godotId < 0 ? null : joysticks[godotId];
+	}
+
+	/**
+	 * Returns whether key events from |source| come from a game device rather than a keyboard.
+	 */
+	boolean isGameDeviceSource(int source) {
+		Integer sourceClass = sourceClasses.get(source);
+		if (sourceClass == null) {
+			sourceClass = classifySource(source);
+			sourceClasses.put(source, sourceClass);
+		}
+		return sourceClass == SOURCE_CLASS_GAME_DEVICE;
+	}
+
+	private static int classifySource(int source) {
+		// Note that keyboards are often (SOURCE_KEYBOARD | SOURCE_DPAD)
+		if (source == (InputDevice.SOURCE_KEYBOARD | InputDevice.SOURCE_DPAD)) {
+			return SOURCE_CLASS_OTHER;
+		}
+
+		if ((source & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK || (source & InputDevice.SOURCE_DPAD) == InputDevice.SOURCE_DPAD || (source & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD) {
+			return SOURCE_CLASS_GAME_DEVICE;
+		}
+		return SOURCE_CLASS_OTHER;
+	}
+
+	/**
+	 * Registers |device| if it is a joystick and isn't registered yet, and pushes its connection
+	 * to |ring|.
+	 *
+	 * @return the Godot id given to the device, or -1 if it wasn't added.
+	 */
+	int add(InputDevice device, InputEventRing ring) {
+		if (getGodotId(device.getId()) >= 0) {
+			return -1;
+		}
+
+		int sources = device.getSources();
+		if ((sources & InputDevice.SOURCE_GAMEPAD) != InputDevice.SOURCE_GAMEPAD && (sources & InputDevice.SOURCE_JOYSTICK) != InputDevice.SOURCE_JOYSTICK) {
+			return -1;
+		}
+
+		// The layout of the axes and hats is computed once, events only go through the arrays.
+		List<MotionRange> ranges = device.getMotionRanges();
+		Collections.sort(ranges, RANGE_COMPARATOR);
+		ArrayList<MotionRange> axes = new ArrayList<MotionRange>();
+		ArrayList<MotionRange> hats = new ArrayList<MotionRange>();
+		for (MotionRange range : ranges) {
+			if (range.getAxis() == MotionEvent.AXIS_HAT_X || range.getAxis() == MotionEvent.AXIS_HAT_Y) {
+				hats.add(range);
+			} else {
+				axes.add(range);
+			}
+		}
+
+		return register(device.getDescriptor(), new Joystick(device.getId(), device.getName(), axes, hats), ring);
+	}
+
+	/**
+	 * Gives a Godot id to |joystick| and pushes its connection to |ring|.
+	 *
+	 * @return the Godot id, or -1 if all of them are taken.
+	 */
+	int register(String descriptor, Joystick joystick, InputEventRing ring) {
+		int godotId = findFreeId(descriptor);
+		if (godotId < 0) {
+			Log.w(TAG, "Too many joysticks, ignoring " + joystick.name);
+			return -1;
+		}
+
+		synchronized (this) {
+			joysticks[godotId] = joystick;
+			ring.pushJoyConnection(godotId, true, joystick.name);
+		}
+		descriptors[godotId] = descriptor;
+		godotIds.put(joystick.device_id, godotId);
+		return godotId;
+	}
+
+	/**
+	 * Unregisters the joystick with the given Android device id and pushes its disconnection to
+	 * |ring|.
+	 *
+	 * @return the Godot id it had, or -1 if it wasn't registered.
+	 */
+	int remove(int deviceId, InputEventRing ring) {
+		int godotId = getGodotId(deviceId);
+		if (godotId < 0) {
+			return -1;
+		}
+
+		godotIds.remove(deviceId);
+		synchronized (this) {
+			joysticks[godotId] = null;
+			ring.pushJoyConnection(godotId, false, "");
+		}
+		return godotId;
+	}
+
+	private int findFreeId(String descriptor) {
+		if (descriptor != null) {
+			for (int i = 0; i < MAX_JOYSTICKS; i++) {
+				if (joysticks[i] == null && descriptor.equals(descriptors[i])) {
+					return i;
+				}
+			}
+		}
+
+		// Prefer the ids no other device used, so they are kept for their device.
+		int free = -1;
+		for (int i = 0; i < MAX_JOYSTICKS; i++) {
+			if (joysticks[i] == null) {
+				if (descriptors[i] == null) {
+					return i;
+				}
+				if (free < 0) {
+					free = i;
+				}
+			}
+		}
+		return free;
+	}
+
+	/**
+	 * Pushes the state of the joysticks that changed since the last flush to |ring|, and records
+	 * each flushed snapshot in |latencyStats|.
+	 */
+	synchronized void flush(InputEventRing ring, InputLatencyStats latencyStats) {
+		for (int i = 0; i < MAX_JOYSTICKS; i++) {
+			if (joysticks[i] != null) {
+				joysticks[i].flush(ring, i, latencyStats);
+			}
+		}
+	}
+}
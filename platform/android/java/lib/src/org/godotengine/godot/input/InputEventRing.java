@@ -0,0 +1,402 @@
+/*************************************************************************/
+/*  InputEventRing.java                                                  */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import org.godotengine.godot.GodotLib;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated queue carrying the input events from the UI (and IME) threads to the GL thread.
+ * <p>
+ * Events are packed as records of ints: a header holding the event type and the record length,
+ * followed by the payload, floats being stored as raw bits. Producers reserve a record with a CAS
+ * on the tail, fill it, then publish it by storing its length in a separate marker array. The GL
+ * thread drains all the published records once per frame into a direct buffer and hands them to
+ * the engine in a single {@link GodotLib#dispatchInputEvents(ByteBuffer, int)} call, so no memory
+ * is allocated per event.
+ * <p>
+ * When the queue is full, new events are dropped and counted. A part of the queue is kept for the
+ * events ending a state (touch up, key and button releases), so a flood of moves or axis updates
+ * can't leave a touch, key or button stuck down in the engine.
+ */
+public class InputEventRing {
+
+	private static final String TAG = InputEventRing.class.getSimpleName();
+
+	// Keep in sync with the InputEventType enum in java_godot_lib_jni.cpp.
+	public static final int TYPE_TOUCH = 1;
+	public static final int TYPE_HOVER = 2;
+	public static final int TYPE_DOUBLE_TAP = 3;
+	public static final int TYPE_SCROLL = 4;
+	public static final int TYPE_KEY = 5;
+	public static final int TYPE_JOY_BUTTON = 6;
+	public static final int TYPE_JOY_AXIS = 7;
+	public static final int TYPE_JOY_HAT = 8;
+	public static final int TYPE_TOUCH_PREDICTION = 9;
+	public static final int TYPE_SENSOR = 10;
+	public static final int TYPE_TEXT = 11;
+	public static final int TYPE_JOY_CONNECTION = 12;
+
+	// Touch actions, as expected by OS_Android::process_touch.
+	public static final int TOUCH_DOWN = 0;
+	public static final int TOUCH_MOVE = 1;
+	public static final int TOUCH_UP = 2;
+	public static final int TOUCH_POINTER_DOWN = 3;
+	public static final int TOUCH_POINTER_UP = 4;
+
+	// The header of a record is 'type | (length << HEADER_LENGTH_SHIFT)', length including the header.
+	private static final int HEADER_LENGTH_SHIFT = 8;
+
+	private static final int DEFAULT_CAPACITY = 1 << 14;
+
+	// Fraction of the queue only usable by reserveStateChange().
+	private static final int HEADROOM_DIVISOR = 8;
+
+	// Longer text commits are split over several records so they always fit in the queue.
+	private static final int MAX_TEXT_RECORD_CHARS = 1024;
+	// Longer device names are truncated.
+	private static final int MAX_DEVICE_NAME_CHARS = 256;
+
+	/**
+	 * Receives the drained events, see {@link #drain()}.
+	 */
+	public interface Dispatcher {
+		/**
+		 * @param events the records, in native byte order.
+		 * @param length number of ints in |events|.
+		 */
+		void dispatch(ByteBuffer events, int length);
+	}
+
+	private static final Dispatcher ENGINE_DISPATCHER = new Dispatcher() {
+		@Override
+		public void dispatch(ByteBuffer events, int length) {
+			GodotLib.dispatchInputEvents(events, length);
+		}
+	};
+
+	private final int capacity;
+	private final int mask;
+	private final int headroom;
+	private final int[] data;
+	// Length of the record starting at each index once published, 0 otherwise.
+	private final AtomicIntegerArray published;
+	private final AtomicLong tail = new AtomicLong();
+	// Only written by the consumer.
+	private volatile long head = 0;
+
+	private final ByteBuffer batch;
+	private final IntBuffer batchInts;
+	private final Dispatcher dispatcher;
+
+	private final AtomicLong droppedEvents = new AtomicLong();
+
+	public InputEventRing() {
+		this(DEFAULT_CAPACITY, ENGINE_DISPATCHER);
+	}
+
+	/**
+	 * @param capacity number of ints held by the queue, must be a power of two.
+	 * @param dispatcher receives the drained events, instead of the engine.
+	 */
+	InputEventRing(int capacity, Dispatcher dispatcher) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		this.headroom = capacity / HEADROOM_DIVISOR;
+		this.data = new int[capacity];
+		this.published = new AtomicIntegerArray(capacity);
+		this.batch = ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder());
+		this.batchInts = batch.asIntBuffer();
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * Reserves a record of |type| with |size| ints of payload.
+	 * <p>
+	 * The payload must be filled with {@link #set(long, int, int)}, {@link #setFloat(long, int, float)}
+	 * and {@link #setLong(long, int, long)}, then made visible to the GL thread with
+	 * {@link #publish(long)}.
+	 *
+	 * @return the record, or -1 if the queue is full.
+	 */
+	public long reserve(int type, int size) {
+		return reserve(type, size, capacity - headroom);
+	}
+
+	/**
+	 * Same as {@link #reserve(int, int)}, for the events ending a state (touch up, key or button
+	 * release), which may also use the headroom kept free by the other events.
+	 */
+	public long reserveStateChange(int type, int size) {
+		return reserve(type, size, capacity);
+	}
+
+	private long reserve(int type, int size, int limit) {
+		int length = size + 1;
+		while (true) {
+			long position = tail.get();
+			if (position + length - head > limit) {
+				if (droppedEvents.getAndIncrement() == 0) {
+					Log.w(TAG, "Input queue full, dropping events.");
+				}
+				return -1;
+			}
+
+			if (tail.compareAndSet(position, position + length)) {
+				data[(int)position & mask] = type | (length << HEADER_LENGTH_SHIFT);
+				return position;
+			}
+		}
+	}
+
+	public void set(long record, int index, int value) {
+		data[(int)(record + 1 + index) & mask] = value;
+	}
+
+	public void setFloat(long record, int index, float value) {
+		data[(int)(record + 1 + index) & mask] = Float.floatToRawIntBits(value);
+	}
+
+	/**
+	 * Stores |value| in two ints, low word first.
+	 */
+	public void setLong(long record, int index, long value) {
+		set(record, index, (int)value);
+		set(record, index + 1, (int)(value >>> 32));
+	}
+
+	public void publish(long record) {
+		int start = (int)record & mask;
+		published.lazySet(start, data[start] >>> HEADER_LENGTH_SHIFT);
+	}
+
+	/**
+	 * The push methods return whether the event was queued, false if it was dropped because the
+	 * queue is full.
+	 */
+	public boolean pushKey(int scancode, int unicode, boolean pressed) {
+		return push3(TYPE_KEY, scancode, unicode, pressed ? 1 : 0, !pressed);
+	}
+
+	/**
+	 * Pushes a press followed by a release of |unicode|. The release is skipped if the press was
+	 * dropped.
+	 */
+	public boolean pushKeyStroke(int scancode, int unicode) {
+		return pushKey(scancode, unicode, true) && pushKey(scancode, unicode, false);
+	}
+
+	public boolean pushHover(int type, int x, int y) {
+		return push3(TYPE_HOVER, type, x, y, false);
+	}
+
+	public boolean pushDoubleTap(int x, int y) {
+		long record = reserve(TYPE_DOUBLE_TAP, 2);
+		if (record < 0) {
+			return false;
+		}
+		set(record, 0, x);
+		set(record, 1, y);
+		publish(record);
+		return true;
+	}
+
+	public boolean pushScroll(int x, int y) {
+		long record = reserve(TYPE_SCROLL, 2);
+		if (record < 0) {
+			return false;
+		}
+		set(record, 0, x);
+		set(record, 1, y);
+		publish(record);
+		return true;
+	}
+
+	public boolean pushJoyButton(int device, int button, boolean pressed) {
+		return push3(TYPE_JOY_BUTTON, device, button, pressed ? 1 : 0, !pressed);
+	}
+
+	/**
+	 * @param rest whether the axis is back to its rest position, which ends a state like a button
+	 *             release.
+	 */
+	public boolean pushJoyAxis(int device, int axis, float value, boolean rest) {
+		return push3(TYPE_JOY_AXIS, device, axis, Float.floatToRawIntBits(value), rest);
+	}
+
+	public boolean pushJoyHat(int device, int x, int y) {
+		return push3(TYPE_JOY_HAT, device, x, y, x == 0 && y == 0);
+	}
+
+	public boolean pushSensor(int sensor, float x, float y, float z) {
+		long record = reserve(TYPE_SENSOR, 4);
+		if (record < 0) {
+			return false;
+		}
+		set(record, 0, sensor);
+		setFloat(record, 1, x);
+		setFloat(record, 2, y);
+		setFloat(record, 3, z);
+		publish(record);
+		return true;
+	}
+
+	/**
+	 * Pushes a text commit: |deletions| backspaces followed by the code points of |text| between
+	 * |start| and |end|, leaving out the line feeds if |skipLineFeeds| is true.
+	 * <p>
+	 * The commit only takes as few records as possible in the queue. The engine still turns it into
+	 * a key press and release per backspace and character, as controls only consume text as key
+	 * events.
+	 *
+	 * @return false if part of the commit was dropped because the queue is full.
+	 */
+	public boolean pushText(int deletions, CharSequence text, int start, int end, boolean skipLineFeeds) {
+		int i = start;
+		do {
+			// Count the code points going in this record.
+			int count = 0;
+			int recordEnd = i;
+			while (recordEnd < end && count < MAX_TEXT_RECORD_CHARS) {
+				char c = text.charAt(recordEnd++);
+				if (Character.isHighSurrogate(c) && recordEnd < end && Character.isLowSurrogate(text.charAt(recordEnd))) {
+					recordEnd++;
+				} else if (c == '\n' && skipLineFeeds) {
+					continue;
+				}
+				count++;
+			}
+
+			if (deletions == 0 && count == 0) {
+				return true;
+			}
+
+			long record = reserve(TYPE_TEXT, count + 2);
+			if (record < 0) {
+				return false;
+			}
+			set(record, 0, deletions);
+			set(record, 1, count);
+			int index = 2;
+			while (i < recordEnd) {
+				char c = text.charAt(i++);
+				if (Character.isHighSurrogate(c) && i < recordEnd && Character.isLowSurrogate(text.charAt(i))) {
+					set(record, index++, Character.toCodePoint(c, text.charAt(i++)));
+				} else if (c != '\n' || !skipLineFeeds) {
+					set(record, index++, c);
+				}
+			}
+			publish(record);
+
+			deletions = 0;
+		} while (i < end);
+		return true;
+	}
+
+	private boolean push3(int type, int a, int b, int c, boolean stateChange) {
+		long record = stateChange ? reserveStateChange(type, 3) : reserve(type, 3);
+		if (record < 0) {
+			return false;
+		}
+		set(record, 0, a);
+		set(record, 1, b);
+		set(record, 2, c);
+		publish(record);
+		return true;
+	}
+
+	/**
+	 * Pushes a joypad connection change. Queued with the other events so the engine sees it after
+	 * the events of the previous device using the same id, and before the events of the new one.
+	 */
+	public boolean pushJoyConnection(int device, boolean connected, String name) {
+		// Code points, like the text records.
+		int end = name.offsetByCodePoints(0, Math.min(name.codePointCount(0, name.length()), MAX_DEVICE_NAME_CHARS));
+		int count = name.codePointCount(0, end);
+		long record = reserveStateChange(TYPE_JOY_CONNECTION, 3 + count);
+		if (record < 0) {
+			return false;
+		}
+		set(record, 0, device);
+		set(record, 1, connected ? 1 : 0);
+		set(record, 2, count);
+		for (int i = 0, index = 0; i < end; index++) {
+			int c = name.codePointAt(i);
+			set(record, 3 + index, c);
+			i += Character.charCount(c);
+		}
+		publish(record);
+		return true;
+	}
+
+	/**
+	 * Hands all the published events to the engine. Must only be called on the GL thread.
+	 */
+	public void drain() {
+		long position = head;
+		batchInts.clear();
+
+		while (true) {
+			int start = (int)position & mask;
+			int length = published.get(start);
+			if (length == 0) {
+				// Empty, or the next record is still being written.
+				break;
+			}
+
+			for (int i = 0; i < length; i++) {
+				batchInts.put(data[(int)(position + i) & mask]);
+			}
+			published.lazySet(start, 0);
+			position += length;
+		}
+
+		if (position != head) {
+			head = position;
+			dispatcher.dispatch(batch, batchInts.position());
+		}
+	}
+
+	public long getDroppedEvents() {
+		return droppedEvents.get();
+	}
+}
@@ -0,0 +1,155 @@
+/*************************************************************************/
+/*  InputLatencySingleton.java                                           */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import org.godotengine.godot.Dictionary;
+import org.godotengine.godot.Godot;
+
+import org.json.JSONException;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Exposes the low latency input mode and the {@link InputLatencyStats} of the view to GDScript
+ * as the 'GodotInputLatency' singleton:
+ * <pre>
+ * var latency = Engine.get_singleton("GodotInputLatency")
+ * latency.set_low_latency_mode(true)
+ * print(latency.get_stats())
+ * print(latency.get_percentile_ms("touch", "frame", 99))
+ * print(latency.dump_json())
+ * </pre>
+ * Sources are "touch", "stylus", "key" and "joystick", or "all" for all of them combined. Stages
+ * are "receipt", "enqueue", "dispatch" and "frame".
+ * <p>
+ * Must be created once GodotLib.setup has completed.
+ */
+public class InputLatencySingleton extends Godot.SingletonBase {
+
+	private static final String TAG = InputLatencySingleton.class.getSimpleName();
+
+	private final Godot godot;
+
+	public InputLatencySingleton(Godot godot) {
+		this.godot = godot;
+		registerClass("GodotInputLatency", new String[] { "is_low_latency_mode", "set_low_latency_mode", "get_stats", "get_percentile_ms", "reset", "dump_json" });
+	}
+
+	public boolean is_low_latency_mode() {
+		return godot.mView.isLowLatencyMode();
+	}
+
+	/**
+	 * Applied asynchronously, on the UI thread.
+	 */
+	public void set_low_latency_mode(boolean enabled) {
+		godot.setLowLatencyMode(enabled);
+	}
+
+	/**
+	 * Returns the latency distribution of each stage since the last reset, keyed by source then
+	 * by stage.
+	 */
+	public Dictionary get_stats() {
+		InputLatencyStats stats = godot.mView.getInputLatencyStats();
+		Dictionary dictionary = new Dictionary();
+		dictionary.put("bucket_us", InputLatencyStats.BUCKET_US);
+		dictionary.put("all", toDictionary(stats, -1));
+		for (int source = 0; source < InputLatencyStats.SOURCE_COUNT; source++) {
+			dictionary.put(InputLatencyStats.SOURCE_NAMES[source], toDictionary(stats, source));
+		}
+		return dictionary;
+	}
+
+	/**
+	 * Returns the given percentile, between 0 and 100, of the latency of |stage| for |source|
+	 * in milliseconds, or -1 if the source or stage is unknown.
+	 */
+	public float get_percentile_ms(String source, String stage, float percentile) {
+		int sourceIndex = -1;
+		if (!"all".equals(source)) {
+			sourceIndex = InputLatencyStats.indexOf(InputLatencyStats.SOURCE_NAMES, source);
+			if (sourceIndex < 0) {
+				return -1;
+			}
+		}
+		int stageIndex = InputLatencyStats.indexOf(InputLatencyStats.STAGE_NAMES, stage);
+		if (stageIndex < 0) {
+			return -1;
+		}
+		return godot.mView.getInputLatencyStats().getHistogram(sourceIndex, stageIndex).getPercentileUs(percentile) / 1000f;
+	}
+
+	public void reset() {
+		godot.mView.getInputLatencyStats().reset();
+	}
+
+	/**
+	 * Writes the histograms as JSON to the data dir.
+	 * @return the path of the written file, or an empty string on failure.
+	 */
+	public String dump_json() {
+		File file = new File(Godot.io.getDataDir(), "input_latency.json");
+		try {
+			FileOutputStream os = new FileOutputStream(file);
+			try {
+				os.write(godot.mView.getInputLatencyStats().toJson().toString(1).getBytes("UTF-8"));
+			} finally {
+				os.close();
+			}
+		} catch (IOException | JSONException e) {
+			Log.w(TAG, "Unable to write the input latency stats to " + file, e);
+			return "";
+		}
+		return file.getAbsolutePath();
+	}
+
+	private static Dictionary toDictionary(InputLatencyStats stats, int source) {
+		Dictionary dictionary = new Dictionary();
+		for (int stage = 0; stage < InputLatencyStats.STAGE_COUNT; stage++) {
+			InputLatencyStats.Histogram histogram = stats.getHistogram(source, stage);
+			Dictionary stageDictionary = new Dictionary();
+			stageDictionary.put("events", histogram.count);
+			stageDictionary.put("mean_ms", histogram.getMeanUs() / 1000f);
+			stageDictionary.put("p50_ms", histogram.getPercentileUs(50) / 1000f);
+			stageDictionary.put("p90_ms", histogram.getPercentileUs(90) / 1000f);
+			stageDictionary.put("p99_ms", histogram.getPercentileUs(99) / 1000f);
+			stageDictionary.put("max_ms", histogram.maxUs / 1000f);
+			stageDictionary.put("histogram", histogram.buckets);
+			dictionary.put(InputLatencyStats.STAGE_NAMES[stage], stageDictionary);
+		}
+		return dictionary;
+	}
+}
@@ -0,0 +1,305 @@
+/*************************************************************************/
+/*  InputLatencyStats.java                                               */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.util.Arrays;
+
+/**
+ * Collects the end-to-end latency of the input events, per source, from the timestamp Android
+ * gave to each event to the following stages:
+ * <ul>
+ * <li>receipt: the event reached the view on the UI thread,</li>
+ * <li>enqueue: the event was pushed to the {@link InputEventRing},</li>
+ * <li>dispatch: the queue holding the event was handed to the engine on the GL thread,</li>
+ * <li>frame: the engine finished the frame which consumed the event.</li>
+ * </ul>
+ * Latencies are recorded in histograms with linear buckets of {@link #BUCKET_US} microseconds,
+ * the last bucket counting everything above. Event timestamps only have a millisecond resolution.
+ * <p>
+ * All methods are thread-safe.
+ */
+public class InputLatencyStats {
+
+	public static final int SOURCE_TOUCH = 0;
+	public static final int SOURCE_STYLUS = 1;
+	public static final int SOURCE_KEY = 2;
+	public static final int SOURCE_JOYSTICK = 3;
+	public static final int SOURCE_COUNT = 4;
+	public static final String[] SOURCE_NAMES = { "touch", "stylus", "key", "joystick" };
+
+	public static final int STAGE_RECEIPT = 0;
+	public static final int STAGE_ENQUEUE = 1;
+	public static final int STAGE_DISPATCH = 2;
+	public static final int STAGE_FRAME = 3;
+	public static final int STAGE_COUNT = 4;
+	public static final String[] STAGE_NAMES = { "receipt", "enqueue", "dispatch", "frame" };
+
+	public static final int BUCKET_US = 250;
+	public static final int HISTOGRAM_BUCKETS = 400;
+
+	public static class Histogram {
+
+		public final int[] buckets = new int[HISTOGRAM_BUCKETS];
+		public long count;
+		public long totalUs;
+		public long maxUs;
+
+		void record(long latencyUs) {
+			latencyUs = Math.max(0, latencyUs);
+			buckets[(int)Math.min(latencyUs / BUCKET_US, HISTOGRAM_BUCKETS - 1)]++;
+			count++;
+			totalUs += latencyUs;
+			maxUs = Math.max(maxUs, latencyUs);
+		}
+
+		void add(Histogram other) {
+			for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+				buckets[i] += other.buckets[i];
+			}
+			count += other.count;
+			totalUs += other.totalUs;
+			maxUs = Math.max(maxUs, other.maxUs);
+		}
+
+		void clear() {
+			Arrays.fill(buckets, 0);
+			count = 0;
+			totalUs = 0;
+			maxUs = 0;
+		}
+
+		Histogram copy() {
+			Histogram copy = new Histogram();
+			copy.add(this);
+			return copy;
+		}
+
+		public long getMeanUs() {
+			return count == 0 ? 0 : totalUs / count;
+		}
+
+		/**
+		 * Returns the upper bound of the bucket holding the given percentile, between 0 and 100.
+		 */
+		public long getPercentileUs(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+
+			long rank = Math.max(1, (long)Math.ceil(count * Math.max(0, Math.min(percentile, 100)) / 100));
+			long seen = 0;
+			// The last bucket has no upper bound.
+			for (int i = 0; i < HISTOGRAM_BUCKETS - 1; i++) {
+				seen += buckets[i];
+				if (seen >= rank) {
+					return Math.min((long)(i + 1) * BUCKET_US, maxUs);
+				}
+			}
+			return maxUs;
+		}
+
+		JSONObject toJson() throws JSONException {
+			JSONObject json = new JSONObject();
+			json.put("count", count);
+			json.put("mean_us", getMeanUs());
+			json.put("p50_us", getPercentileUs(50));
+			json.put("p90_us", getPercentileUs(90));
+			json.put("p99_us", getPercentileUs(99));
+			json.put("max_us", maxUs);
+			// Trailing empty buckets are left out.
+			int length = HISTOGRAM_BUCKETS;
+			while (length > 0 && buckets[length - 1] == 0) {
+				length--;
+			}
+			JSONArray jsonBuckets = new JSONArray();
+			for (int i = 0; i < length; i++) {
+				jsonBuckets.put(buckets[i]);
+			}
+			json.put("buckets", jsonBuckets);
+			return json;
+		}
+	}
+
+	// Events queued and not part of a finished frame yet, dropped past that.
+	private static final int MAX_PENDING = 1024;
+
+	private final long[] pendingTimesUs = new long[MAX_PENDING];
+	private final int[] pendingSources = new int[MAX_PENDING];
+	private int pendingCount = 0;
+	// The first |dispatchedCount| pending events were handed to the engine.
+	private int dispatchedCount = 0;
+
+	private final Histogram[][] histograms = new Histogram[SOURCE_COUNT][STAGE_COUNT];
+
+	public InputLatencyStats() {
+		for (int source = 0; source < SOURCE_COUNT; source++) {
+			for (int stage = 0; stage < STAGE_COUNT; stage++) {
+				histograms[source][stage] = new Histogram();
+			}
+		}
+	}
+
+	/**
+	 * Must be called once the event has been pushed to the {@link InputEventRing}.
+	 *
+	 * @param eventTimeMs timestamp of the event, in the {@link android.os.SystemClock#uptimeMillis()}
+	 * time base.
+	 * @param receivedNs {@link System#nanoTime()} when the event reached the view.
+	 */
+	public void onEventQueued(int source, long eventTimeMs, long receivedNs) {
+		// Same clock as SystemClock.uptimeMillis().
+		final long queuedUs = System.nanoTime() / 1000;
+		final long eventTimeUs = eventTimeMs * 1000;
+
+		synchronized (this) {
+			histograms[source][STAGE_RECEIPT].record(receivedNs / 1000 - eventTimeUs);
+			histograms[source][STAGE_ENQUEUE].record(queuedUs - eventTimeUs);
+
+			if (pendingCount < MAX_PENDING) {
+				pendingTimesUs[pendingCount] = eventTimeUs;
+				pendingSources[pendingCount] = source;
+				pendingCount++;
+			}
+		}
+	}
+
+	/**
+	 * Returns how many events were queued so far. Taken before draining the queue, all these
+	 * events are drained with it.
+	 */
+	public synchronized int getQueuedCount() {
+		return pendingCount;
+	}
+
+	/**
+	 * Records the dispatch latency of the events queued before |queued| was returned by
+	 * {@link #getQueuedCount()}. Called on the GL thread.
+	 */
+	public synchronized void onEventsDispatched(int queued) {
+		final long nowUs = System.nanoTime() / 1000;
+		for (int i = dispatchedCount; i < queued; i++) {
+			histograms[pendingSources[i]][STAGE_DISPATCH].record(nowUs - pendingTimesUs[i]);
+		}
+		dispatchedCount = Math.max(dispatchedCount, queued);
+	}
+
+	/**
+	 * Records the frame latency of the dispatched events. Called on the GL thread once the frame
+	 * is done.
+	 */
+	public synchronized void onFrameFinished() {
+		if (dispatchedCount == 0) {
+			return;
+		}
+
+		final long nowUs = System.nanoTime() / 1000;
+		long frameMaxUs = 0;
+		for (int i = 0; i < dispatchedCount; i++) {
+			long latencyUs = nowUs - pendingTimesUs[i];
+			histograms[pendingSources[i]][STAGE_FRAME].record(latencyUs);
+			frameMaxUs = Math.max(frameMaxUs, latencyUs);
+		}
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled()) {
+			// Shows along the frames in the captured traces.
+			Trace.setCounter("Godot input latency us", frameMaxUs);
+		}
+
+		pendingCount -= dispatchedCount;
+		System.arraycopy(pendingTimesUs, dispatchedCount, pendingTimesUs, 0, pendingCount);
+		System.arraycopy(pendingSources, dispatchedCount, pendingSources, 0, pendingCount);
+		dispatchedCount = 0;
+	}
+
+	/**
+	 * Returns a copy of the histogram of |stage| for |source|, or for all the sources combined if
+	 * |source| is -1.
+	 */
+	public synchronized Histogram getHistogram(int source, int stage) {
+		if (source >= 0) {
+			return histograms[source][stage].copy();
+		}
+
+		Histogram total = new Histogram();
+		for (int i = 0; i < SOURCE_COUNT; i++) {
+			total.add(histograms[i][stage]);
+		}
+		return total;
+	}
+
+	public synchronized void reset() {
+		for (int source = 0; source < SOURCE_COUNT; source++) {
+			for (int stage = 0; stage < STAGE_COUNT; stage++) {
+				histograms[source][stage].clear();
+			}
+		}
+	}
+
+	/**
+	 * Serializes the histograms of every source, and of all the sources combined as "all".
+	 */
+	public synchronized JSONObject toJson() throws JSONException {
+		JSONObject json = new JSONObject();
+		json.put("bucket_us", BUCKET_US);
+		json.put("all", toJson(-1));
+		for (int source = 0; source < SOURCE_COUNT; source++) {
+			json.put(SOURCE_NAMES[source], toJson(source));
+		}
+		return json;
+	}
+
+	private JSONObject toJson(int source) throws JSONException {
+		JSONObject json = new JSONObject();
+		for (int stage = 0; stage < STAGE_COUNT; stage++) {
+			json.put(STAGE_NAMES[stage], getHistogram(source, stage).toJson());
+		}
+		return json;
+	}
+
+	/**
+	 * Returns the index of |name| in |names|, -1 if it isn't there.
+	 */
+	public static int indexOf(String[] names, String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -31,15 +31,194 @@
 package org.godotengine.godot.input;
 
 import android.view.InputDevice.MotionRange;
+import android.view.MotionEvent;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
- * POJO class to represent a Joystick input device.
+ * Represents a Joystick input device and holds its latest state.
+ * <p>
+ * Motion events only update the state, which is pushed to the engine once per frame by
+ * {@link #flush(InputEventRing, int)}: intermediate values are coalesced and only the axes and
+ * hats that changed are sent.
  */
 class Joystick {
+	// Changes smaller than this are ignored, on top of the fuzz reported by the device.
+	private static final float MIN_AXIS_CHANGE = 1.0f / 512.0f;
+
 	int device_id;
 	String name;
-	ArrayList<MotionRange> axes;
-	ArrayList<MotionRange> hats;
+
+	// Normalization of each axis to [-1, 1], precomputed from its motion range.
+	final int[] axes;
+	private final float[] axisMin;
+	private final float[] axisScale;
+	// Whether an axis rests at its center, rather than at -1 like triggers.
+	private final boolean[] axisCentered;
+	// Half-width of the area around the center of a centered axis reported as rest.
+	private final float[] axisFlat;
+	private final float[] axisThreshold;
+
+	// Pairs of (AXIS_HAT_X, AXIS_HAT_Y).
+	final int[] hats;
+
+	// Latest values, guarded by this.
+	private final float[] axisValues;
+	private final int[] hatValues;
+	private boolean dirty = false;
+	// Timestamps of the latest update, see InputLatencyStats#onEventQueued().
+	private long eventTimeMs = 0;
+	private long receivedNs = 0;
+
+	// Values last sent to the engine, only used while flushing.
+	private final float[] sentAxisValues;
+	private final int[] sentHatValues;
+
+	/**
+	 * @param axes the motion ranges of the axes, sorted by axis.
+	 * @param hats the motion ranges of the hat axes, sorted by axis.
+	 */
+	Joystick(int deviceId, String name, List<MotionRange> axes, List<MotionRange> hats) {
+		this(deviceId, name, axes.size(), hats.size());
+
+		for (int i = 0; i < axes.size(); i++) {
+			MotionRange range = axes.get(i);
+			setAxisRange(i, range.getAxis(), range.getMin(), range.getMax(), range.getFlat(), range.getFuzz());
+		}
+		for (int i = 0; i < hats.size(); i++) {
+			this.hats[i] = hats.get(i).getAxis();
+		}
+	}
+
+	/**
+	 * Creates a joystick whose axes must then be described with
+	 * {@link #setAxisRange(int, int, float, float, float, float)}.
+	 */
+	Joystick(int deviceId, String name, int axisCount, int hatCount) {
+		this.device_id = deviceId;
+		this.name = name;
+
+		this.axes = new int[axisCount];
+		this.axisMin = new float[axisCount];
+		this.axisScale = new float[axisCount];
+		this.axisCentered = new boolean[axisCount];
+		this.axisFlat = new float[axisCount];
+		this.axisThreshold = new float[axisCount];
+		this.axisValues = new float[axisCount];
+		this.sentAxisValues = new float[axisCount];
+		// Unknown until the first event, make sure it's sent.
+		Arrays.fill(this.sentAxisValues, Float.NaN);
+
+		this.hats = new int[hatCount];
+		this.hatValues = new int[hatCount];
+		this.sentHatValues = new int[hatCount];
+	}
+
+	void setAxisRange(int index, int axis, float min, float max, float flat, float fuzz) {
+		float range = max - min;
+		float scale = range > 0.0f ? 2.0f / range : 0.0f;
+		axes[index] = axis;
+		axisMin[index] = min;
+		axisScale[index] = scale;
+		// Allow some rounding in the range reported by the device.
+		axisCentered[index] = min < 0.0f && Math.abs(min + max) <= range * 0.01f;
+		axisFlat[index] = axisCentered[index] ? flat * scale : 0.0f;
+		axisThreshold[index] = Math.max(fuzz * scale, MIN_AXIS_CHANGE);
+	}
+
+	/**
+	 * Records the values of |event|, replacing the ones not yet sent.
+	 *
+	 * @param receivedNs {@link System#nanoTime()} when the event reached the view.
+	 */
+	synchronized void update(MotionEvent event, long receivedNs) {
+		for (int i = 0; i < axes.length; i++) {
+			axisValues[i] = normalize(i, event.getAxisValue(axes[i]));
+		}
+		for (int i = 0; i < hats.length; i++) {
+			hatValues[i] = Math.round(event.getAxisValue(hats[i]));
+		}
+		eventTimeMs = event.getEventTime();
+		this.receivedNs = receivedNs;
+		dirty = true;
+	}
+
+	/**
+	 * Same as {@link #update(MotionEvent, long)}, from the raw values of each axis and hat axis.
+	 */
+	synchronized void update(float[] axisRawValues, float[] hatRawValues) {
+		for (int i = 0; i < axes.length; i++) {
+			axisValues[i] = normalize(i, axisRawValues[i]);
+		}
+		for (int i = 0; i < hats.length; i++) {
+			hatValues[i] = Math.round(hatRawValues[i]);
+		}
+		dirty = true;
+	}
+
+	private float normalize(int axis, float value) {
+		return (value - axisMin[axis]) * axisScale[axis] - 1.0f;
+	}
+
+	/**
+	 * Pushes the axes and hats that changed since the last flush to |ring|. Values dropped because
+	 * the ring is full are pushed again by the next flush.
+	 * <p>
+	 * The snapshot counts as a single event for |latencyStats|, if anything was pushed.
+	 *
+	 * @param latencyStats may be null.
+	 * @return the number of events pushed.
+	 */
+	synchronized int flush(InputEventRing ring, int godotDeviceId, InputLatencyStats latencyStats) {
+		if (!dirty) {
+			return 0;
+		}
+		dirty = false;
+		int pushed = 0;
+
+		for (int i = 0; i < axes.length; i++) {
+			float value = axisValues[i];
+			float sent = sentAxisValues[i];
+			// Anything within the flat area of a centered axis is the rest position: moving inside
+			// it isn't a change, and entering it sends 0.
+			boolean rest;
+			if (axisCentered[i]) {
+				rest = Math.abs(value) <= axisFlat[i];
+				if (rest) {
+					value = 0.0f;
+				}
+			} else {
+				rest = value <= -1.0f;
+			}
+			// Always let the rest position and the extremes through, so small thresholds can't
+			// leave an axis slightly off.
+			boolean snapped = rest || value <= -1.0f || value >= 1.0f;
+			if (Float.isNaN(sent) || Math.abs(value - sent) >= axisThreshold[i] || (snapped && value != sent)) {
+				if (ring.pushJoyAxis(godotDeviceId, i, value, rest)) {
+					sentAxisValues[i] = value;
+					pushed++;
+				} else {
+					dirty = true;
+				}
+			}
+		}
+
+		for (int i = 0; i + 1 < hats.length; i += 2) {
+			if (hatValues[i] != sentHatValues[i] || hatValues[i + 1] != sentHatValues[i + 1]) {
+				if (ring.pushJoyHat(godotDeviceId, hatValues[i], hatValues[i + 1])) {
+					sentHatValues[i] = hatValues[i];
+					sentHatValues[i + 1] = hatValues[i + 1];
+					pushed++;
+				} else {
+					dirty = true;
+				}
+			}
+		}
+
+		if (pushed > 0 && latencyStats != null) {
+			latencyStats.onEventQueued(InputLatencyStats.SOURCE_JOYSTICK, eventTimeMs, receivedNs);
+		}
+		return pushed;
+	}
 }
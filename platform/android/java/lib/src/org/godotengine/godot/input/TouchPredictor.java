@@ -0,0 +1,196 @@
+/*************************************************************************/
+/*  TouchPredictor.java                                                  */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import android.view.MotionEvent;
+
+/**
+ * Predicts where each pointer will be a few milliseconds ahead, to hide part of the delay between
+ * the touch digitizer and the frame on screen.
+ * <p>
+ * Each pointer is tracked by an alpha-beta filter (a steady-state Kalman filter for a constant
+ * velocity model) fed with every sample of the touch stream, historical ones included. The
+ * predictions are pushed to the engine as separate events, after the real ones, so the engine
+ * never mistakes them for actual input.
+ */
+public class TouchPredictor {
+
+	// Pointer ids are always below 32.
+	private static final int MAX_POINTERS = 32;
+
+	// Weights of the position and velocity corrections. Lower values smooth out the digitizer
+	// noise but react slower to direction changes.
+	private static final float ALPHA = 0.5f;
+	private static final float BETA = 0.2f;
+
+	private final boolean[] tracked = new boolean[MAX_POINTERS];
+	private final long[] times = new long[MAX_POINTERS];
+	private final float[] positionsX = new float[MAX_POINTERS];
+	private final float[] positionsY = new float[MAX_POINTERS];
+	// In pixels per millisecond.
+	private final float[] velocitiesX = new float[MAX_POINTERS];
+	private final float[] velocitiesY = new float[MAX_POINTERS];
+
+	private volatile int leadTime = 0;
+
+	/**
+	 * Sets how far ahead the pointers are predicted, in milliseconds. 0 disables the prediction.
+	 */
+	public void setLeadTime(int milliseconds) {
+		leadTime = Math.max(0, milliseconds);
+	}
+
+	public int getLeadTime() {
+		return leadTime;
+	}
+
+	public boolean isEnabled() {
+		return leadTime > 0;
+	}
+
+	/**
+	 * Feeds the samples of |event| to the filters and pushes the predicted positions of the moving
+	 * pointers to |ring|. Must be called on the thread receiving the touch events.
+	 */
+	public void onTouchEvent(MotionEvent event, InputEventRing ring) {
+		final int lead = leadTime;
+		if (lead <= 0) {
+			return;
+		}
+
+		switch (event.getActionMasked()) {
+			case MotionEvent.ACTION_DOWN:
+				resetAll();
+				addSample(event.getPointerId(0), event.getEventTime(), event.getX(0), event.getY(0));
+				break;
+			case MotionEvent.ACTION_POINTER_DOWN: {
+				int index = event.getActionIndex();
+				int id = event.getPointerId(index);
+				reset(id);
+				addSample(id, event.getEventTime(), event.getX(index), event.getY(index));
+			} break;
+			case MotionEvent.ACTION_POINTER_UP:
+				reset(event.getPointerId(event.getActionIndex()));
+				break;
+			case MotionEvent.ACTION_UP:
+			case MotionEvent.ACTION_CANCEL:
+				resetAll();
+				break;
+			case MotionEvent.ACTION_MOVE:
+				onMove(event, ring, lead);
+				break;
+		}
+	}
+
+	private void onMove(MotionEvent event, InputEventRing ring, int lead) {
+		final int count = event.getPointerCount();
+		final int history = event.getHistorySize();
+		for (int h = 0; h < history; h++) {
+			long time = event.getHistoricalEventTime(h);
+			for (int i = 0; i < count; i++) {
+				addSample(event.getPointerId(i), time, event.getHistoricalX(i, h), event.getHistoricalY(i, h));
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			addSample(event.getPointerId(i), event.getEventTime(), event.getX(i), event.getY(i));
+		}
+
+		// lead time, count, then (id, x, y) per pointer.
+		long record = ring.reserve(InputEventRing.TYPE_TOUCH_PREDICTION, 2 + count * 3);
+		if (record < 0) {
+			return;
+		}
+
+		ring.set(record, 0, lead);
+		ring.set(record, 1, count);
+		for (int i = 0; i < count; i++) {
+			int id = event.getPointerId(i);
+			ring.set(record, 2 + i * 3, id);
+			ring.setFloat(record, 3 + i * 3, predictX(id, lead));
+			ring.setFloat(record, 4 + i * 3, predictY(id, lead));
+		}
+		ring.publish(record);
+	}
+
+	void addSample(int id, long time, float x, float y) {
+		if (id < 0 || id >= MAX_POINTERS) {
+			return;
+		}
+
+		if (!tracked[id]) {
+			tracked[id] = true;
+			times[id] = time;
+			positionsX[id] = x;
+			positionsY[id] = y;
+			velocitiesX[id] = 0;
+			velocitiesY[id] = 0;
+			return;
+		}
+
+		float dt = time - times[id];
+		if (dt <= 0) {
+			// Same timestamp, the velocity can't be updated.
+			positionsX[id] = x;
+			positionsY[id] = y;
+			return;
+		}
+
+		float predictedX = positionsX[id] + velocitiesX[id] * dt;
+		float predictedY = positionsY[id] + velocitiesY[id] * dt;
+		float residualX = x - predictedX;
+		float residualY = y - predictedY;
+		positionsX[id] = predictedX + ALPHA * residualX;
+		positionsY[id] = predictedY + ALPHA * residualY;
+		velocitiesX[id] += BETA * residualX / dt;
+		velocitiesY[id] += BETA * residualY / dt;
+		times[id] = time;
+	}
+
+	float predictX(int id, int lead) {
+		return positionsX[id] + velocitiesX[id] * lead;
+	}
+
+	float predictY(int id, int lead) {
+		return positionsY[id] + velocitiesY[id] * lead;
+	}
+
+	private void reset(int id) {
+		if (id >= 0 && id < MAX_POINTERS) {
+			tracked[id] = false;
+		}
+	}
+
+	private void resetAll() {
+		for (int i = 0; i < MAX_POINTERS; i++) {
+			tracked[i] = false;
+		}
+	}
+}
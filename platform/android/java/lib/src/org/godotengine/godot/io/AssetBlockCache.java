@@ -0,0 +1,171 @@
+/*************************************************************************/
+/*  AssetBlockCache.java                                                 */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory cache of asset data shared by all the {@link CachedAssetAccess} handles, so assets that
+ * are opened repeatedly (e.g: import metadata, shaders, fonts) don't have to be decompressed
+ * again from the apk.
+ * <p>
+ * Data is cached in blocks of {@link #BLOCK_SIZE} bytes keyed by asset path and block index.
+ * The least recently used blocks are evicted once the byte budget is exceeded.
+ * <p>
+ * All methods are thread-safe.
+ */
+public class AssetBlockCache {
+
+	public static final int BLOCK_SIZE = 64 * 1024;
+
+	private static final class BlockKey {
+
+		final String path;
+		final long index;
+
+		BlockKey(String path, long index) {
+			this.path = path;
+			this.index = index;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof BlockKey)) {
+				return false;
+			}
+			BlockKey other = (BlockKey)o;
+			return index == other.index && path.equals(other.path);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * path.hashCode() + (int)(index ^ (index >>> 32));
+		}
+	}
+
+	// Access-ordered, so iteration starts with the least recently used block.
+	private final LinkedHashMap<BlockKey, byte[]> blocks = new LinkedHashMap<BlockKey, byte[]>(64, 0.75f, true);
+
+	private long budget;
+	private long size = 0;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * @param budget Maximum number of bytes held by the cache, 0 to disable it.
+	 */
+	public AssetBlockCache(long budget) {
+		this.budget = Math.max(0, budget);
+	}
+
+	/**
+	 * Returns the given block of the asset at |path|, or null if it isn't cached.
+	 */
+	public synchronized byte[] get(String path, long index) {
+		byte[] block = blocks.get(new BlockKey(path, index));
+		if (block == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return block;
+	}
+
+	/**
+	 * Caches the given block of the asset at |path|, evicting older blocks to stay within budget.
+	 */
+	public synchronized void put(String path, long index, byte[] block) {
+		if (block.length > budget) {
+			return;
+		}
+
+		byte[] previous = blocks.put(new BlockKey(path, index), block);
+		if (previous != null) {
+			size -= previous.length;
+		}
+		size += block.length;
+		trimTo(budget);
+	}
+
+	/**
+	 * Changes the byte budget, evicting blocks if needed. A budget of 0 disables the cache.
+	 */
+	public synchronized void setBudget(long budget) {
+		this.budget = Math.max(0, budget);
+		trimTo(this.budget);
+	}
+
+	public synchronized long getBudget() {
+		return budget;
+	}
+
+	public synchronized boolean isEnabled() {
+		return budget > 0;
+	}
+
+	/**
+	 * Drops all the cached blocks, e.g: on memory pressure.
+	 */
+	public synchronized void clear() {
+		evictions += blocks.size();
+		blocks.clear();
+		size = 0;
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	private void trimTo(long target) {
+		Iterator<Map.Entry<BlockKey, byte[]>> it = blocks.entrySet().iterator();
+		while (size > target && it.hasNext()) {
+			size -= it.next().getValue().length;
+			it.remove();
+			evictions++;
+		}
+	}
+}
@@ -0,0 +1,323 @@
+/*************************************************************************/
+/*  AssetExtractionCache.java                                            */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetManager;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Disk cache of the compressed assets, inflated once into app-private storage so they can be
+ * memory-mapped and randomly accessed afterwards (rather than re-inflated from the start of the
+ * asset on every backward seek).
+ * <p>
+ * The first open of an asset starts its extraction on a background thread and doesn't wait for
+ * it, the caller reading that time from the apk; the following opens map the extracted copy. One
+ * asset is extracted at a time, so loading doesn't compete with several inflating threads.
+ * <p>
+ * The cache lives in a directory named after the apk versionCode (and install time, so reinstalling a build with the same versionCode during
+ * development doesn't serve stale data); the directories of other versions are deleted on
+ * startup, so upgrades invalidate it. When its size exceeds the budget, the least recently used files are deleted.
+ * <p>
+ * The bookkeeping is guarded by the instance monitor, the extraction itself runs outside of it.
+ */
+public class AssetExtractionCache {
+
+	private static final String TAG = AssetExtractionCache.class.getSimpleName();
+
+	private static final String CACHE_DIR_NAME = "godot_assets";
+	private static final String VERSION_DIR_PREFIX = "v";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final AssetManager am;
+	private final File dir;
+	private final long budget;
+	private long size = 0;
+	// Bytes being extracted, already made room for in the budget.
+	private long reserved = 0;
+	private final HashSet<String> inFlight = new HashSet<String>();
+	// Assets which failed to extract, not retried until the next startup.
+	private final HashSet<String> failed = new HashSet<String>();
+
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "GodotIO-Extraction");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * @param budget Maximum number of bytes stored on disk.
+	 */
+	public AssetExtractionCache(Context context, AssetManager am, long budget) {
+		this.am = am;
+		this.budget = budget;
+
+		File root;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			// Also cleared by the system when the app is upgraded.
+			root = new File(context.getCodeCacheDir(), CACHE_DIR_NAME);
+		} else {
+			root = new File(context.getFilesDir(), CACHE_DIR_NAME);
+		}
+
+		String version = getVersionDirName(context);
+		dir = new File(root, version);
+
+		File[] versions = root.listFiles();
+		if (versions != null) {
+			for (File other : versions) {
+				if (!other.getName().equals(version)) {
+					delete(other);
+				}
+			}
+		}
+
+		for (File file : listFiles()) {
+			if (file.getName().endsWith(TEMP_SUFFIX)) {
+				// Leftover from an interrupted extraction.
+				file.delete();
+			} else {
+				size += file.length();
+			}
+		}
+	}
+
+	/**
+	 * Opens the extracted copy of the asset at |path|. When there's none yet, its extraction is
+	 * started in the background and null is returned, so this access reads from the apk.
+	 * @param length Uncompressed size of the asset, as reported by the {@link AssetIndex}.
+	 * @return null if the asset isn't extracted yet or can't be (e.g: it doesn't fit in the budget).
+	 */
+	public DataAccess open(final String path, final long length) {
+		if (length < 0 || length > budget || path.contains("..")) {
+			return null;
+		}
+
+		final File file = new File(dir, path);
+		synchronized (this) {
+			if (file.isFile() && file.length() == length) {
+				return map(path, file, length);
+			}
+
+			if (failed.contains(path) || !inFlight.add(path)) {
+				return null;
+			}
+			if (file.exists()) {
+				size -= file.length();
+				file.delete();
+			}
+			trimTo(budget - reserved - length);
+			reserved += length;
+		}
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				File temp = extract(path, length, file);
+				synchronized (AssetExtractionCache.this) {
+					reserved -= length;
+					inFlight.remove(path);
+					if (temp != null && temp.renameTo(file)) {
+						size += length;
+					} else {
+						if (temp != null) {
+							temp.delete();
+						}
+						failed.add(path);
+					}
+				}
+			}
+		});
+		return null;
+	}
+
+	/**
+	 * Deletes all the extracted assets.
+	 */
+	public synchronized void clear() {
+		delete(dir);
+		size = 0;
+		failed.clear();
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	private DataAccess map(String path, File file, long length) {
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				DataAccess da = MappedDataAccess.map(raf.getChannel(), 0, length);
+				// Used as the recency for the eviction.
+				file.setLastModified(System.currentTimeMillis());
+				return da;
+			} finally {
+				// The mapping stays valid once the file is closed.
+				raf.close();
+			}
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to map extracted asset " + path, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Inflates the asset at |path| next to |file|. Called on the extraction thread, without
+	 * holding the monitor.
+	 * @return The temporary file holding the asset, or null on failure.
+	 */
+	private File extract(String path, long length, File file) {
+		File parent = file.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs()) {
+			Log.w(TAG, "Unable to create extraction directory " + parent);
+			return null;
+		}
+
+		File temp = new File(parent, file.getName() + TEMP_SUFFIX);
+		long start = System.currentTimeMillis();
+		try {
+			InputStream is = am.open(path);
+			FileOutputStream os = new FileOutputStream(temp);
+			try {
+				byte[] buffer = new byte[AssetBlockCache.BLOCK_SIZE];
+				int r;
+				while ((r = is.read(buffer)) > 0) {
+					os.write(buffer, 0, r);
+				}
+			} finally {
+				os.close();
+				is.close();
+			}
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to extract asset " + path, e);
+			temp.delete();
+			return null;
+		}
+
+		if (temp.length() != length) {
+			temp.delete();
+			return null;
+		}
+
+		Log.v(TAG, "Extracted " + path + " (" + length + " bytes) in " + (System.currentTimeMillis() - start) + "ms");
+		return temp;
+	}
+
+	private void trimTo(long target) {
+		if (size <= target) {
+			return;
+		}
+
+		ArrayList<File> files = listFiles();
+		Collections.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				long ma = a.lastModified();
+				long mb = b.lastModified();
+				return ma < mb ? -1 : (ma == mb ? 0 : 1);
+			}
+		});
+
+		for (File file : files) {
+			if (size <= target) {
+				break;
+			}
+			if (file.getName().endsWith(TEMP_SUFFIX)) {
+				// Being extracted, not accounted in the size yet.
+				continue;
+			}
+			long fileLength = file.length();
+			if (file.delete()) {
+				size -= fileLength;
+			}
+		}
+	}
+
+	private ArrayList<File> listFiles() {
+		ArrayList<File> files = new ArrayList<File>();
+		collectFiles(dir, files);
+		return files;
+	}
+
+	private static void collectFiles(File dir, ArrayList<File> files) {
+		File[] children = dir.listFiles();
+		if (children == null) {
+			return;
+		}
+		for (File child : children) {
+			if (child.isDirectory()) {
+				collectFiles(child, files);
+			} else {
+				files.add(child);
+			}
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	@SuppressWarnings("deprecation")
+	private static String getVersionDirName(Context context) {
+		try {
+			PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+			return VERSION_DIR_PREFIX + info.versionCode + "_" + info.lastUpdateTime;
+		} catch (PackageManager.NameNotFoundException e) {
+			return VERSION_DIR_PREFIX + 0;
+		}
+	}
+}
@@ -0,0 +1,347 @@
+/*************************************************************************/
+/*  AssetIndex.java                                                      */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * In-memory index of the whole 'assets' tree packaged in the apk.
+ * <p>
+ * The index is built once, preferably from the {@link AssetManifest} generated at build time,
+ * otherwise from the central directory of the apk (and its splits). Both give names, kinds and
+ * sizes in a single pass. When neither is available, it falls back to walking the tree with
+ * {@link AssetManager#list(String)}, in which case sizes are unknown.
+ * <p>
+ * The files of mounted expansion archives (see {@link ZipArchive}) are overlaid on top of the
+ * assets, so a single lookup tells where a path must be read from.
+ * <p>
+ * The entries are immutable and the index isn't modified once built, so it can be queried from any
+ * thread once published.
+ */
+public class AssetIndex {
+
+	private static final String TAG = AssetIndex.class.getSimpleName();
+
+	private static final String ASSETS_PREFIX = "assets/";
+
+	/**
+	 * Node of the asset tree.
+	 */
+	public static class Entry {
+		public final String name;
+		public final boolean directory;
+		/**
+		 * Size in bytes of the (uncompressed) asset, -1 if unknown. Always 0 for directories.
+		 */
+		public final long size;
+		/**
+		 * True if the asset is known to be stored compressed in the apk.
+		 */
+		public final boolean compressed;
+		/**
+		 * Offset of the asset data in the apk, -1 if unknown.
+		 */
+		public final long offset;
+		/**
+		 * Expansion archive providing this file, null if it's read from the apk assets.
+		 */
+		public final ZipArchive archive;
+		public final ZipArchive.Entry archiveEntry;
+
+		private final Entry[] children;
+
+		/**
+		 * Creates a directory. Directories are created without |children| while the index is
+		 * built, and replaced by complete ones when it's sealed.
+		 */
+		private Entry(String name, Entry[] children) {
+			this(name, true, 0, false, -1, null, null, children);
+		}
+
+		private Entry(String name, long size, boolean compressed, long offset, ZipArchive archive, ZipArchive.Entry archiveEntry) {
+			this(name, false, size, compressed, offset, archive, archiveEntry, null);
+		}
+
+		private Entry(String name, boolean directory, long size, boolean compressed, long offset, ZipArchive archive, ZipArchive.Entry archiveEntry, Entry[] children) {
+			this.name = name;
+			this.directory = directory;
+			this.size = size;
+			this.compressed = compressed;
+			this.offset = offset;
+			this.archive = archive;
+			this.archiveEntry = archiveEntry;
+			this.children = children;
+		}
+
+		/**
+		 * Returns the entries of this directory, sorted by name; null for files.
+		 */
+		public Entry[] getChildren() {
+			return children;
+		}
+	}
+
+	private final HashMap<String, Entry> entries = new HashMap<String, Entry>();
+
+	private AssetIndex() {
+		entries.put("", new Entry("", null));
+	}
+
+	/**
+	 * Builds the index for the assets of the given context.
+	 * @param archives Expansion archives to overlay on top of the assets, by increasing priority.
+	 */
+	public static AssetIndex build(Context context, AssetManager am, ZipArchive[] archives) {
+		AssetIndex index = new AssetIndex();
+
+		long start = System.currentTimeMillis();
+		boolean indexed = AssetManifest.load(am, index);
+		if (indexed) {
+			index.overlay(archives);
+			index.seal();
+			Log.v(TAG, "Loaded " + index.entries.size() + " assets from the manifest in " + (System.currentTimeMillis() - start) + "ms");
+			return index;
+		}
+
+		index = new AssetIndex();
+		ApplicationInfo appInfo = context.getApplicationInfo();
+		try {
+			index.addApk(appInfo.sourceDir);
+			if (appInfo.splitSourceDirs != null) {
+				for (String split : appInfo.splitSourceDirs) {
+					index.addApk(split);
+				}
+			}
+			indexed = true;
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to read the apk assets, falling back to the asset manager.", e);
+		}
+
+		if (!indexed) {
+			index = new AssetIndex();
+			index.walk(am, "");
+		}
+
+		index.overlay(archives);
+		index.seal();
+		Log.v(TAG, "Indexed " + index.entries.size() + " assets in " + (System.currentTimeMillis() - start) + "ms");
+		return index;
+	}
+
+	/**
+	 * Returns the entry for the given path, or null if there's no such asset.
+	 */
+	public Entry get(String path) {
+		return entries.get(normalize(path));
+	}
+
+	static String normalize(String path) {
+		int start = 0;
+		int end = path.length();
+		while (start < end && path.charAt(start) == '/') {
+			start++;
+		}
+		while (end > start && path.charAt(end - 1) == '/') {
+			end--;
+		}
+		return path.substring(start, end);
+	}
+
+	private void addApk(String apkPath) throws IOException {
+		ZipFile apk = new ZipFile(apkPath);
+		try {
+			Enumeration<? extends ZipEntry> zipEntries = apk.entries();
+			while (zipEntries.hasMoreElements()) {
+				ZipEntry zipEntry = zipEntries.nextElement();
+				String name = zipEntry.getName();
+				if (!name.startsWith(ASSETS_PREFIX) || name.equals(ASSETS_PREFIX + AssetManifest.FILE_NAME)) {
+					continue;
+				}
+
+				String path = normalize(name.substring(ASSETS_PREFIX.length()));
+				if (path.isEmpty()) {
+					continue;
+				}
+
+				if (zipEntry.isDirectory()) {
+					addDirectory(path);
+				} else {
+					addFile(path, zipEntry.getSize(), zipEntry.getMethod() != ZipEntry.STORED, -1);
+				}
+			}
+		} finally {
+			apk.close();
+		}
+	}
+
+	private void walk(AssetManager am, String dir) {
+		String[] names;
+		try {
+			names = am.list(dir);
+		} catch (IOException e) {
+			return;
+		}
+
+		for (String name : names) {
+			if (dir.isEmpty() && name.equals(AssetManifest.FILE_NAME)) {
+				continue;
+			}
+
+			String path = dir.isEmpty() ? name : dir + "/" + name;
+
+			String[] children;
+			try {
+				children = am.list(path);
+			} catch (IOException e) {
+				children = null;
+			}
+
+			// Empty directories aren't packaged, so an empty listing means a file.
+			if (children != null && children.length > 0) {
+				addDirectory(path);
+				walk(am, path);
+			} else {
+				addFile(path, -1, false, -1);
+			}
+		}
+	}
+
+	private void overlay(ZipArchive[] archives) {
+		for (ZipArchive archive : archives) {
+			for (ZipArchive.Entry zipEntry : archive.getEntries()) {
+				String path = normalize(zipEntry.name);
+				Entry entry = entries.get(path);
+				if (entry != null && entry.directory) {
+					continue;
+				}
+
+				int slash = path.lastIndexOf('/');
+				if (entry == null && addDirectory(slash < 0 ? "" : path.substring(0, slash)) == null) {
+					// Conflicts with a file.
+					continue;
+				}
+
+				// Replaces the apk asset, if any.
+				entries.put(path, new Entry(path.substring(slash + 1), zipEntry.size, zipEntry.compressed, -1, archive, zipEntry));
+			}
+		}
+	}
+
+	private Entry addDirectory(String path) {
+		Entry entry = entries.get(path);
+		if (entry != null) {
+			return entry.directory ? entry : null;
+		}
+
+		int slash = path.lastIndexOf('/');
+		Entry parent = addDirectory(slash < 0 ? "" : path.substring(0, slash));
+		if (parent == null) {
+			return null;
+		}
+
+		entry = new Entry(path.substring(slash + 1), null);
+		entries.put(path, entry);
+		return entry;
+	}
+
+	/**
+	 * Adds the file at the normalized |path|, unless it's already known (e.g: provided by a
+	 * previous apk) or conflicts with a file.
+	 */
+	void addFile(String path, long size, boolean compressed, long offset) {
+		if (entries.containsKey(path)) {
+			return;
+		}
+
+		int slash = path.lastIndexOf('/');
+		if (addDirectory(slash < 0 ? "" : path.substring(0, slash)) == null) {
+			return;
+		}
+
+		entries.put(path, new Entry(path.substring(slash + 1), size, compressed, offset, null, null));
+	}
+
+	/**
+	 * Replaces the directories with ones listing their children, from the leaves up.
+	 */
+	private void seal() {
+		HashMap<String, ArrayList<String>> childPaths = new HashMap<String, ArrayList<String>>();
+		for (String path : entries.keySet()) {
+			if (path.isEmpty()) {
+				continue;
+			}
+
+			int slash = path.lastIndexOf('/');
+			String parent = slash < 0 ? "" : path.substring(0, slash);
+			ArrayList<String> siblings = childPaths.get(parent);
+			if (siblings == null) {
+				siblings = new ArrayList<String>();
+				childPaths.put(parent, siblings);
+			}
+			siblings.add(path);
+		}
+
+		Comparator<Entry> byName = new Comparator<Entry>() {
+			@Override
+			public int compare(Entry a, Entry b) {
+				return a.name.compareTo(b.name);
+			}
+		};
+		sealDirectory("", childPaths, byName);
+	}
+
+	private Entry sealDirectory(String path, HashMap<String, ArrayList<String>> childPaths, Comparator<Entry> byName) {
+		ArrayList<String> paths = childPaths.get(path);
+		Entry[] children = new Entry[paths == null ? 0 : paths.size()];
+		for (int i = 0; i < children.length; i++) {
+			String childPath = paths.get(i);
+			Entry child = entries.get(childPath);
+			children[i] = child.directory ? sealDirectory(childPath, childPaths, byName) : child;
+		}
+		Arrays.sort(children, byName);
+
+		Entry directory = new Entry(entries.get(path).name, children);
+		entries.put(path, directory);
+		return directory;
+	}
+}
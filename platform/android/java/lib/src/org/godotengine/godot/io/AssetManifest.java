@@ -0,0 +1,163 @@
+/*************************************************************************/
+/*  AssetManifest.java                                                   */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reader for the binary manifest of the packaged assets generated at build time by the
+ * 'generate*GodotAssetManifest' Gradle tasks.
+ * <p>
+ * The manifest is stored uncompressed at the root of the 'assets' directory and uses the
+ * following big-endian layout:
+ * <pre>
+ * u32 magic ('GDAM')
+ * u32 version
+ * u32 entry count
+ * for each entry:
+ *   u16 path length, followed by the UTF-8 path relative to the 'assets' directory
+ *   u64 size in bytes
+ *   u8  flags (FLAG_COMPRESSED, FLAG_COMPRESSION_UNKNOWN)
+ *   s64 offset of the data in the apk, -1 if unknown
+ * </pre>
+ */
+public final class AssetManifest {
+
+	private static final String TAG = AssetManifest.class.getSimpleName();
+
+	public static final String FILE_NAME = "_asset_manifest_";
+
+	private static final int MAGIC = 0x4744414D; // 'GDAM'
+	private static final int VERSION = 1;
+
+	public static final int FLAG_COMPRESSED = 1;
+	// Written at build time, when the packaging still has to decide. Such entries are first tried
+	// as uncompressed ones.
+	public static final int FLAG_COMPRESSION_UNKNOWN = 2;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private AssetManifest() {}
+
+	/**
+	 * Loads the manifest packaged with the assets into |index|.
+	 * @return false if there's no (valid) manifest.
+	 */
+	static boolean load(AssetManager am, AssetIndex index) {
+		ByteBuffer manifest;
+		try {
+			manifest = map(am);
+		} catch (FileNotFoundException e) {
+			// No manifest in this apk.
+			return false;
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to load the asset manifest.", e);
+			return false;
+		}
+
+		try {
+			return parse(manifest, index);
+		} catch (BufferUnderflowException e) {
+			Log.w(TAG, "Truncated asset manifest.");
+			return false;
+		}
+	}
+
+	private static ByteBuffer map(AssetManager am) throws IOException {
+		try {
+			AssetFileDescriptor afd = am.openFd(FILE_NAME);
+			try {
+				FileInputStream fis = afd.createInputStream();
+				return fis.getChannel().map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getLength());
+			} finally {
+				afd.close();
+			}
+		} catch (FileNotFoundException e) {
+			// Either missing or compressed; in the latter case read it in memory.
+			InputStream is = am.open(FILE_NAME);
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[16384];
+				int r;
+				while ((r = is.read(buffer)) > 0) {
+					out.write(buffer, 0, r);
+				}
+				return ByteBuffer.wrap(out.toByteArray());
+			} finally {
+				is.close();
+			}
+		}
+	}
+
+	private static boolean parse(ByteBuffer manifest, AssetIndex index) {
+		if (manifest.getInt() != MAGIC) {
+			Log.w(TAG, "Invalid asset manifest.");
+			return false;
+		}
+
+		int version = manifest.getInt();
+		if (version != VERSION) {
+			Log.w(TAG, "Unsupported asset manifest version: " + version);
+			return false;
+		}
+
+		int count = manifest.getInt();
+		byte[] pathBytes = new byte[256];
+		for (int i = 0; i < count; i++) {
+			int pathLength = manifest.getShort() & 0xFFFF;
+			if (pathLength > pathBytes.length) {
+				pathBytes = new byte[pathLength];
+			}
+			manifest.get(pathBytes, 0, pathLength);
+			String path = new String(pathBytes, 0, pathLength, UTF_8);
+
+			long size = manifest.getLong();
+			int flags = manifest.get();
+			long offset = manifest.getLong();
+
+			index.addFile(AssetIndex.normalize(path), size, (flags & FLAG_COMPRESSED) != 0, offset);
+		}
+
+		return true;
+	}
+}
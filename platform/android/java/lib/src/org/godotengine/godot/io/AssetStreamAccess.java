@@ -0,0 +1,66 @@
+/*************************************************************************/
+/*  AssetStreamAccess.java                                               */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import android.content.res.AssetManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link DataAccess} implementation reading an asset through {@link AssetManager#open(String)}.
+ * <p>
+ * This is the fallback for assets stored compressed in the apk, which can't be mapped.
+ */
+public class AssetStreamAccess extends StreamDataAccess {
+
+	private final AssetManager am;
+	private final String path;
+
+	public AssetStreamAccess(AssetManager am, String path) throws IOException {
+		this(am, path, -1);
+	}
+
+	/**
+	 * @param length Uncompressed size of the asset when already known (e.g. from the
+	 * {@link AssetIndex}), -1 to query the stream for it.
+	 */
+	public AssetStreamAccess(AssetManager am, String path, long length) throws IOException {
+		super(am.open(path), length);
+		this.am = am;
+		this.path = path;
+	}
+
+	@Override
+	protected InputStream reopen() throws IOException {
+		return am.open(path);
+	}
+}
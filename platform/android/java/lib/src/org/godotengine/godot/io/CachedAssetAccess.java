@@ -0,0 +1,176 @@
+/*************************************************************************/
+/*  CachedAssetAccess.java                                               */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import android.content.res.AssetManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link DataAccess} implementation serving reads of a compressed asset out of the shared
+ * {@link AssetBlockCache}.
+ * <p>
+ * The underlying {@link AssetStreamAccess} is only opened on the first cache miss, so an asset
+ * that's fully cached is read without touching the apk at all.
+ */
+public class CachedAssetAccess extends DataAccess {
+
+	private final AssetBlockCache cache;
+	private final AssetManager am;
+	private final String path;
+	private final long length;
+	private AssetStreamAccess stream;
+	private long position = 0;
+	private boolean eof = false;
+
+	/**
+	 * @param length Uncompressed size of the asset when already known, -1 to query it.
+	 */
+	public CachedAssetAccess(AssetBlockCache cache, AssetManager am, String path, long length) throws IOException {
+		this.cache = cache;
+		this.am = am;
+		this.path = path;
+		if (length < 0) {
+			stream = new AssetStreamAccess(am, path);
+			length = stream.size();
+		}
+		this.length = length;
+	}
+
+	@Override
+	public long size() {
+		return length;
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public void seek(long position) {
+		this.position = Math.max(0, Math.min(position, length));
+		eof = false;
+	}
+
+	@Override
+	public int read(byte[] dst, int offset, int length) throws IOException {
+		long remaining = this.length - position;
+		if (length > remaining) {
+			length = (int)remaining;
+			eof = true;
+		}
+
+		int done = 0;
+		while (done < length) {
+			byte[] block = getBlock(position / AssetBlockCache.BLOCK_SIZE);
+			int blockPosition = (int)(position % AssetBlockCache.BLOCK_SIZE);
+			int chunk = Math.min(length - done, block.length - blockPosition);
+			if (chunk <= 0) {
+				// The asset is shorter than advertised.
+				eof = true;
+				break;
+			}
+
+			System.arraycopy(block, blockPosition, dst, offset + done, chunk);
+
+			done += chunk;
+			position += chunk;
+		}
+
+		return done;
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		int length = dst.remaining();
+		long remaining = this.length - position;
+		if (length > remaining) {
+			length = (int)remaining;
+			eof = true;
+		}
+
+		int done = 0;
+		while (done < length) {
+			byte[] block = getBlock(position / AssetBlockCache.BLOCK_SIZE);
+			int blockPosition = (int)(position % AssetBlockCache.BLOCK_SIZE);
+			int chunk = Math.min(length - done, block.length - blockPosition);
+			if (chunk <= 0) {
+				eof = true;
+				break;
+			}
+
+			dst.put(block, blockPosition, chunk);
+
+			done += chunk;
+			position += chunk;
+		}
+
+		return done;
+	}
+
+	@Override
+	public boolean eof() {
+		return eof;
+	}
+
+	@Override
+	public void close() {
+		if (stream != null) {
+			stream.close();
+			stream = null;
+		}
+	}
+
+	private byte[] getBlock(long index) throws IOException {
+		byte[] block = cache.get(path, index);
+		if (block != null) {
+			return block;
+		}
+
+		if (stream == null) {
+			stream = new AssetStreamAccess(am, path, length);
+		}
+
+		long start = index * AssetBlockCache.BLOCK_SIZE;
+		block = new byte[(int)Math.min(AssetBlockCache.BLOCK_SIZE, length - start)];
+		stream.seek(start);
+		int read = stream.read(block, 0, block.length);
+		if (read < block.length) {
+			block = Arrays.copyOf(block, read);
+		}
+
+		cache.put(path, index, block);
+		return block;
+	}
+}
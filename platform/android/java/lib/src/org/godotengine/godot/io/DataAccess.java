@@ -0,0 +1,80 @@
+/*************************************************************************/
+/*  DataAccess.java                                                      */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Base class for the read-only data sources backing the {@link org.godotengine.godot.GodotIO}
+ * file handles.
+ * <p>
+ * Positions and sizes are 64-bit so that large packed assets can be addressed.
+ */
+public abstract class DataAccess {
+
+	/**
+	 * Returns the total size in bytes of the underlying data.
+	 */
+	public abstract long size();
+
+	/**
+	 * Returns the current read position.
+	 */
+	public abstract long position();
+
+	/**
+	 * Moves the read position to the given offset, clamped to [0, size].
+	 */
+	public abstract void seek(long position) throws IOException;
+
+	/**
+	 * Reads up to |length| bytes into |dst| starting at |offset|.
+	 * @return the number of bytes read, 0 at the end of the data.
+	 */
+	public abstract int read(byte[] dst, int offset, int length) throws IOException;
+
+	/**
+	 * Reads up to {@link ByteBuffer#remaining()} bytes into |dst|, advancing its position.
+	 * @return the number of bytes read, 0 at the end of the data.
+	 */
+	public abstract int read(ByteBuffer dst) throws IOException;
+
+	/**
+	 * Returns true once a read has reached the end of the data.
+	 */
+	public abstract boolean eof();
+
+	/**
+	 * Releases the resources held by this data source.
+	 */
+	public abstract void close();
+}
@@ -0,0 +1,69 @@
+/*************************************************************************/
+/*  DataAccessMediaSource.java                                           */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import android.annotation.TargetApi;
+import android.media.MediaDataSource;
+import android.os.Build;
+
+/**
+ * Exposes a {@link DataAccess} to {@link android.media.MediaExtractor}, so media can be read
+ * through the same paths as the engine files: mapped or cached assets, expansion archives...
+ */
+@TargetApi(Build.VERSION_CODES.M)
+public class DataAccessMediaSource extends MediaDataSource {
+
+	private final DataAccess source;
+
+	public DataAccessMediaSource(DataAccess source) {
+		this.source = source;
+	}
+
+	@Override
+	public synchronized int readAt(long position, byte[] buffer, int offset, int size) {
+		if (position >= source.size()) {
+			return -1;
+		}
+
+		source.seek(position);
+		return source.read(buffer, offset, size);
+	}
+
+	@Override
+	public long getSize() {
+		return source.size();
+	}
+
+	@Override
+	public synchronized void close() {
+		source.close();
+	}
+}
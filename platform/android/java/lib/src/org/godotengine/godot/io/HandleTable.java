@@ -0,0 +1,108 @@
+/*************************************************************************/
+/*  HandleTable.java                                                     */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe table mapping the integer ids handed out to the native code to their handles.
+ * <p>
+ * Ids are allocated atomically and the table is split into independently locked stripes, so
+ * lookups from several loader threads don't contend on a global lock. Operations on the handles
+ * themselves must be serialized by the caller by locking on the handle.
+ */
+public class HandleTable<T> {
+
+	private static final int STRIPE_COUNT = 16;
+	private static final int STRIPE_MASK = STRIPE_COUNT - 1;
+
+	private final AtomicInteger lastId = new AtomicInteger(1);
+	private final HashMap<Integer, T>[] stripes;
+
+	@SuppressWarnings("unchecked")
+	public HandleTable() {
+		stripes = new HashMap[STRIPE_COUNT];
+		for (int i = 0; i < STRIPE_COUNT; i++) {
+			stripes[i] = new HashMap<Integer, T>();
+		}
+	}
+
+	/**
+	 * Stores |handle| and returns its id. Ids are always strictly positive.
+	 */
+	public int add(T handle) {
+		while (true) {
+			int id = lastId.incrementAndGet();
+			if (id <= 0) {
+				// Wrapped around; restart the id sequence.
+				lastId.compareAndSet(id, 1);
+				continue;
+			}
+
+			HashMap<Integer, T> stripe = stripes[id & STRIPE_MASK];
+			synchronized (stripe) {
+				// Once wrapped around, skip the ids still in use.
+				if (!stripe.containsKey(id)) {
+					stripe.put(id, handle);
+					return id;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes the next allocated id the one following |id|, to test the wrap-around.
+	 */
+	void setLastId(int id) {
+		lastId.set(id);
+	}
+
+	/**
+	 * Returns the handle for |id|, or null if there's none.
+	 */
+	public T get(int id) {
+		HashMap<Integer, T> stripe = stripes[id & STRIPE_MASK];
+		synchronized (stripe) {
+			return stripe.get(id);
+		}
+	}
+
+	/**
+	 * Removes and returns the handle for |id|, or null if there's none.
+	 */
+	public T remove(int id) {
+		HashMap<Integer, T> stripe = stripes[id & STRIPE_MASK];
+		synchronized (stripe) {
+			return stripe.remove(id);
+		}
+	}
+}
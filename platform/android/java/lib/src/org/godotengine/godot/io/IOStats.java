@@ -0,0 +1,288 @@
+/*************************************************************************/
+/*  IOStats.java                                                         */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects per-path and aggregate I/O counters for the {@link org.godotengine.godot.GodotIO}
+ * file handles: opens, reads, seeks and their latencies.
+ * <p>
+ * Latencies are recorded in histograms with power-of-two buckets in microseconds: bucket 0 counts
+ * operations under 1us, bucket |i| those in [2^(i-1), 2^i) us, and the last bucket everything
+ * above.
+ * <p>
+ * Reads and seeks are counted in per-handle {@link Counters}, only written by the thread using
+ * the handle, and merged into the totals when it is closed: they never take a shared lock. The
+ * snapshots include the handles still open, whose counters are read without synchronization.
+ * Only the {@link #MAX_PATHS} most recently opened paths are kept.
+ * <p>
+ * All methods are thread-safe.
+ */
+public class IOStats {
+
+	public static final int HISTOGRAM_BUCKETS = 24;
+	public static final int MAX_PATHS = 256;
+
+	public static class Counters {
+
+		public long opens;
+		public long failedOpens;
+		public long reads;
+		public long bytesRead;
+		public long forwardSeeks;
+		public long backwardSeeks;
+		/**
+		 * Backward seeks on handles which can't seek in place (compressed assets), and may
+		 * have to reopen the underlying stream.
+		 */
+		public long streamReopens;
+		public long openTimeNs;
+		public long readTimeNs;
+		public final int[] openLatency = new int[HISTOGRAM_BUCKETS];
+		public final int[] readLatency = new int[HISTOGRAM_BUCKETS];
+
+		Counters copy() {
+			Counters copy = new Counters();
+			copy.opens = opens;
+			copy.failedOpens = failedOpens;
+			copy.reads = reads;
+			copy.bytesRead = bytesRead;
+			copy.forwardSeeks = forwardSeeks;
+			copy.backwardSeeks = backwardSeeks;
+			copy.streamReopens = streamReopens;
+			copy.openTimeNs = openTimeNs;
+			copy.readTimeNs = readTimeNs;
+			System.arraycopy(openLatency, 0, copy.openLatency, 0, HISTOGRAM_BUCKETS);
+			System.arraycopy(readLatency, 0, copy.readLatency, 0, HISTOGRAM_BUCKETS);
+			return copy;
+		}
+
+		void add(Counters other) {
+			opens += other.opens;
+			failedOpens += other.failedOpens;
+			reads += other.reads;
+			bytesRead += other.bytesRead;
+			forwardSeeks += other.forwardSeeks;
+			backwardSeeks += other.backwardSeeks;
+			streamReopens += other.streamReopens;
+			openTimeNs += other.openTimeNs;
+			readTimeNs += other.readTimeNs;
+			for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+				openLatency[i] += other.openLatency[i];
+				readLatency[i] += other.readLatency[i];
+			}
+		}
+
+		void clear() {
+			opens = 0;
+			failedOpens = 0;
+			reads = 0;
+			bytesRead = 0;
+			forwardSeeks = 0;
+			backwardSeeks = 0;
+			streamReopens = 0;
+			openTimeNs = 0;
+			readTimeNs = 0;
+			Arrays.fill(openLatency, 0);
+			Arrays.fill(readLatency, 0);
+		}
+
+		JSONObject toJson() throws JSONException {
+			JSONObject json = new JSONObject();
+			json.put("opens", opens);
+			json.put("failed_opens", failedOpens);
+			json.put("reads", reads);
+			json.put("bytes_read", bytesRead);
+			json.put("forward_seeks", forwardSeeks);
+			json.put("backward_seeks", backwardSeeks);
+			json.put("stream_reopens", streamReopens);
+			json.put("open_time_us", openTimeNs / 1000);
+			json.put("read_time_us", readTimeNs / 1000);
+			json.put("open_latency_us_log2", toJson(openLatency));
+			json.put("read_latency_us_log2", toJson(readLatency));
+			return json;
+		}
+
+		private static JSONArray toJson(int[] histogram) {
+			JSONArray json = new JSONArray();
+			for (int count : histogram) {
+				json.put(count);
+			}
+			return json;
+		}
+	}
+
+	private final Counters total = new Counters();
+	// Least recently opened first.
+	private final LinkedHashMap<String, Counters> paths = new LinkedHashMap<String, Counters>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Counters> eldest) {
+			return size() > MAX_PATHS;
+		}
+	};
+	// Counters of the open handles, and their path.
+	private final HashMap<Counters, String> handles = new HashMap<Counters, String>();
+
+	public synchronized void recordOpen(String path, long durationNs, boolean success) {
+		recordOpen(total, durationNs, success);
+		recordOpen(getCounters(path), durationNs, success);
+	}
+
+	/**
+	 * Returns the counters of a new handle on |path|, to be updated with
+	 * {@link #recordRead(Counters, int, long)} and {@link #recordSeek(Counters, long, long, boolean)}
+	 * by the thread using the handle, then passed to {@link #closeHandle(Counters)}.
+	 */
+	public synchronized Counters openHandle(String path) {
+		Counters counters = new Counters();
+		handles.put(counters, path);
+		return counters;
+	}
+
+	/**
+	 * Merges the counters of a closed handle into the totals.
+	 */
+	public synchronized void closeHandle(Counters counters) {
+		String path = handles.remove(counters);
+		if (path != null) {
+			total.add(counters);
+			getCounters(path).add(counters);
+		}
+	}
+
+	/**
+	 * Returns a copy of the aggregate counters.
+	 */
+	public synchronized Counters getTotal() {
+		Counters copy = total.copy();
+		for (Counters counters : handles.keySet()) {
+			copy.add(counters);
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns a copy of the counters of the paths opened most recently.
+	 */
+	public synchronized HashMap<String, Counters> getPaths() {
+		HashMap<String, Counters> copy = new HashMap<String, Counters>();
+		for (Map.Entry<String, Counters> entry : paths.entrySet()) {
+			copy.put(entry.getKey(), entry.getValue().copy());
+		}
+		for (Map.Entry<Counters, String> entry : handles.entrySet()) {
+			Counters counters = copy.get(entry.getValue());
+			if (counters == null) {
+				counters = new Counters();
+				copy.put(entry.getValue(), counters);
+			}
+			counters.add(entry.getKey());
+		}
+		return copy;
+	}
+
+	public synchronized void reset() {
+		total.clear();
+		paths.clear();
+		// Racy with the threads using the handles, only the counts of a few operations can be lost.
+		for (Counters counters : handles.keySet()) {
+			counters.clear();
+		}
+	}
+
+	/**
+	 * Serializes the aggregate and per-path counters.
+	 */
+	public synchronized JSONObject toJson() throws JSONException {
+		JSONObject json = new JSONObject();
+		json.put("total", getTotal().toJson());
+
+		JSONObject jsonPaths = new JSONObject();
+		for (Map.Entry<String, Counters> entry : getPaths().entrySet()) {
+			jsonPaths.put(entry.getKey(), entry.getValue().toJson());
+		}
+		json.put("paths", jsonPaths);
+		return json;
+	}
+
+	/**
+	 * Returns the histogram bucket for the given duration.
+	 */
+	public static int getBucket(long durationNs) {
+		long us = durationNs / 1000;
+		int bucket = 64 - Long.numberOfLeadingZeros(us);
+		return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+	}
+
+	private Counters getCounters(String path) {
+		Counters counters = paths.get(path);
+		if (counters == null) {
+			counters = new Counters();
+			paths.put(path, counters);
+		}
+		return counters;
+	}
+
+	private static void recordOpen(Counters counters, long durationNs, boolean success) {
+		if (success) {
+			counters.opens++;
+		} else {
+			counters.failedOpens++;
+		}
+		counters.openTimeNs += durationNs;
+		counters.openLatency[getBucket(durationNs)]++;
+	}
+
+	public static void recordRead(Counters counters, int bytes, long durationNs) {
+		counters.reads++;
+		counters.bytesRead += bytes;
+		counters.readTimeNs += durationNs;
+		counters.readLatency[getBucket(durationNs)]++;
+	}
+
+	public static void recordSeek(Counters counters, long from, long to, boolean inPlace) {
+		if (to > from) {
+			counters.forwardSeeks++;
+		} else if (to < from) {
+			counters.backwardSeeks++;
+			if (!inPlace) {
+				counters.streamReopens++;
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*************************************************************************/
+/*  IOStatsSingleton.java                                                */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import org.godotengine.godot.Dictionary;
+import org.godotengine.godot.Godot;
+import org.godotengine.godot.GodotIO;
+
+import java.util.Map;
+
+/**
+ * Exposes the {@link IOStats} of {@link GodotIO} to GDScript as the 'GodotIOStats' singleton:
+ * <pre>
+ * var stats = Engine.get_singleton("GodotIOStats")
+ * print(stats.get_total())
+ * print(stats.dump_json())
+ * </pre>
+ * Must be created once GodotLib.setup has completed.
+ */
+public class IOStatsSingleton extends Godot.SingletonBase {
+
+	private final GodotIO io;
+
+	public IOStatsSingleton(GodotIO io) {
+		this.io = io;
+		registerClass("GodotIOStats", new String[] { "get_total", "get_paths", "get_path", "reset", "dump_json" });
+	}
+
+	/**
+	 * Returns the aggregate counters of all the file handles.
+	 */
+	public Dictionary get_total() {
+		return toDictionary(io.getIOStats().getTotal());
+	}
+
+	/**
+	 * Returns the counters of the paths opened most recently, keyed by path.
+	 */
+	public Dictionary get_paths() {
+		Dictionary paths = new Dictionary();
+		for (Map.Entry<String, IOStats.Counters> entry : io.getIOStats().getPaths().entrySet()) {
+			paths.put(entry.getKey(), toDictionary(entry.getValue()));
+		}
+		return paths;
+	}
+
+	/**
+	 * Returns the counters of the given path, empty if it wasn't opened recently.
+	 */
+	public Dictionary get_path(String path) {
+		IOStats.Counters counters = io.getIOStats().getPaths().get(path);
+		return counters == null ? new Dictionary() : toDictionary(counters);
+	}
+
+	public void reset() {
+		io.getIOStats().reset();
+	}
+
+	/**
+	 * Writes the counters as JSON to the data dir.
+	 * @return the path of the written file, or an empty string on failure.
+	 */
+	public String dump_json() {
+		return io.dumpIOStats();
+	}
+
+	private static Dictionary toDictionary(IOStats.Counters counters) {
+		Dictionary dictionary = new Dictionary();
+		dictionary.put("opens", counters.opens);
+		dictionary.put("failed_opens", counters.failedOpens);
+		dictionary.put("reads", counters.reads);
+		dictionary.put("bytes_read", counters.bytesRead);
+		dictionary.put("forward_seeks", counters.forwardSeeks);
+		dictionary.put("backward_seeks", counters.backwardSeeks);
+		dictionary.put("stream_reopens", counters.streamReopens);
+		dictionary.put("open_time_us", counters.openTimeNs / 1000);
+		dictionary.put("read_time_us", counters.readTimeNs / 1000);
+		dictionary.put("open_latency_us_log2", counters.openLatency);
+		dictionary.put("read_latency_us_log2", counters.readLatency);
+		return dictionary;
+	}
+}
@@ -0,0 +1,98 @@
+/*************************************************************************/
+/*  InstrumentedAccess.java                                              */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link DataAccess} decorator recording the reads and seeks of a handle into {@link IOStats}.
+ * <p>
+ * The counters belong to the handle, so reading and seeking don't take any shared lock.
+ */
+public class InstrumentedAccess extends DataAccess {
+
+	private final DataAccess source;
+	private final IOStats stats;
+	private final IOStats.Counters counters;
+	private final boolean seeksInPlace;
+
+	public InstrumentedAccess(DataAccess source, String path, IOStats stats) {
+		this.source = source;
+		this.stats = stats;
+		this.counters = stats.openHandle(path);
+		// Only mapped data can seek backward without reopening or re-reading anything.
+		this.seeksInPlace = source instanceof MappedDataAccess;
+	}
+
+	@Override
+	public long size() {
+		return source.size();
+	}
+
+	@Override
+	public long position() {
+		return source.position();
+	}
+
+	@Override
+	public void seek(long position) throws IOException {
+		IOStats.recordSeek(counters, source.position(), position, seeksInPlace);
+		source.seek(position);
+	}
+
+	@Override
+	public int read(byte[] dst, int offset, int length) throws IOException {
+		long start = System.nanoTime();
+		int r = source.read(dst, offset, length);
+		IOStats.recordRead(counters, r, System.nanoTime() - start);
+		return r;
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		long start = System.nanoTime();
+		int r = source.read(dst);
+		IOStats.recordRead(counters, r, System.nanoTime() - start);
+		return r;
+	}
+
+	@Override
+	public boolean eof() {
+		return source.eof();
+	}
+
+	@Override
+	public void close() {
+		source.close();
+		stats.closeHandle(counters);
+	}
+}
@@ -0,0 +1,156 @@
+/*************************************************************************/
+/*  MappedDataAccess.java                                                */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link DataAccess} implementation serving reads out of a memory-mapped region of a file.
+ * <p>
+ * Seek, tell and read are O(1). Regions larger than what a single {@link ByteBuffer} can address
+ * are split into several mapped segments.
+ */
+public class MappedDataAccess extends DataAccess {
+
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+	private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	private final ByteBuffer[] segments;
+	private final long length;
+	private long position = 0;
+	private boolean eof = false;
+
+	private MappedDataAccess(ByteBuffer[] segments, long length) {
+		this.segments = segments;
+		this.length = length;
+	}
+
+	/**
+	 * Maps |length| bytes of |channel| starting at |offset|.
+	 * <p>
+	 * The mapping stays valid after the channel is closed.
+	 */
+	public static MappedDataAccess map(FileChannel channel, long offset, long length) throws IOException {
+		if (length < 0) {
+			length = channel.size() - offset;
+		}
+
+		int count = (int)((length + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+		ByteBuffer[] segments = new ByteBuffer[count];
+		for (int i = 0; i < count; i++) {
+			long start = (long)i << SEGMENT_SHIFT;
+			long segmentLength = Math.min(SEGMENT_SIZE, length - start);
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start, segmentLength);
+		}
+
+		return new MappedDataAccess(segments, length);
+	}
+
+	@Override
+	public long size() {
+		return length;
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public void seek(long position) {
+		this.position = Math.max(0, Math.min(position, length));
+		eof = false;
+	}
+
+	@Override
+	public int read(byte[] dst, int offset, int length) {
+		long remaining = this.length - position;
+		if (length > remaining) {
+			length = (int)remaining;
+			eof = true;
+		}
+
+		int done = 0;
+		while (done < length) {
+			ByteBuffer segment = segments[(int)(position >>> SEGMENT_SHIFT)];
+			int segmentPosition = (int)(position & SEGMENT_MASK);
+			int chunk = Math.min(length - done, segment.capacity() - segmentPosition);
+
+			segment.position(segmentPosition);
+			segment.get(dst, offset + done, chunk);
+
+			done += chunk;
+			position += chunk;
+		}
+
+		return done;
+	}
+
+	@Override
+	public int read(ByteBuffer dst) {
+		int length = dst.remaining();
+		long remaining = this.length - position;
+		if (length > remaining) {
+			length = (int)remaining;
+			eof = true;
+		}
+
+		int done = 0;
+		while (done < length) {
+			ByteBuffer segment = segments[(int)(position >>> SEGMENT_SHIFT)];
+			int segmentPosition = (int)(position & SEGMENT_MASK);
+			int chunk = Math.min(length - done, segment.capacity() - segmentPosition);
+
+			segment.limit(segmentPosition + chunk);
+			segment.position(segmentPosition);
+			dst.put(segment);
+			segment.limit(segment.capacity());
+
+			done += chunk;
+			position += chunk;
+		}
+
+		return done;
+	}
+
+	@Override
+	public boolean eof() {
+		return eof;
+	}
+
+	@Override
+	public void close() {
+		// Mapped buffers are unmapped once garbage collected.
+	}
+}
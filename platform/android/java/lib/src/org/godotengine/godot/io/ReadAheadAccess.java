@@ -0,0 +1,350 @@
+/*************************************************************************/
+/*  ReadAheadAccess.java                                                 */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link DataAccess} decorator prefetching the data ahead of sequential readers (e.g: streamed
+ * audio, video, large scenes) on a background thread, so reads from the render or audio threads
+ * rarely have to wait on storage.
+ * <p>
+ * Prefetching starts once a few consecutive reads are detected. The data is read into a ring
+ * buffer of fixed capacity, in blocks of {@link #BLOCK_SIZE} bytes. Seeking outside of the
+ * buffered range discards it and reads directly from the source until the access becomes
+ * sequential again.
+ * <p>
+ * The source is only ever used by one thread at a time: either the prefetch task, or the reader
+ * once the prefetch task has stopped.
+ */
+public class ReadAheadAccess extends DataAccess {
+
+	public static final int BLOCK_SIZE = 64 * 1024;
+
+	// Number of consecutive reads before the access is considered sequential.
+	private static final int SEQUENTIAL_THRESHOLD = 2;
+
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "GodotIO-ReadAhead");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final DataAccess source;
+	private final long length;
+	private final Object lock = new Object();
+
+	// Ring buffer holding |available| bytes of the source from |bufferStart|, starting at |head|.
+	private final byte[] ring;
+	private int head = 0;
+	private int available = 0;
+	private long bufferStart = 0;
+
+	private long position = 0;
+	private boolean eof = false;
+
+	private int sequentialReads = 0;
+	private long lastReadEnd = -1;
+
+	// Bumped whenever the buffered data is discarded, so an in-flight prefetch drops its result.
+	private int generation = 0;
+	private boolean fetching = false;
+	private int fetchingGeneration;
+	private boolean closed = false;
+	private IOException fetchError;
+
+	private final Runnable fetchTask = new Runnable() {
+		@Override
+		public void run() {
+			fetch();
+		}
+	};
+
+	/**
+	 * @param capacity Number of bytes to read ahead, rounded up to a multiple of {@link #BLOCK_SIZE}.
+	 */
+	public ReadAheadAccess(DataAccess source, int capacity) {
+		this.source = source;
+		this.length = source.size();
+		int blocks = Math.max(1, (capacity + BLOCK_SIZE - 1) / BLOCK_SIZE);
+		this.ring = new byte[blocks * BLOCK_SIZE];
+	}
+
+	@Override
+	public long size() {
+		return length;
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public void seek(long position) throws IOException {
+		synchronized (lock) {
+			position = Math.max(0, Math.min(position, length));
+			eof = false;
+
+			long skip = position - bufferStart;
+			if (skip >= 0 && skip <= available) {
+				// Still within the buffered range.
+				consume((int)skip);
+			} else {
+				discard(position);
+			}
+			this.position = position;
+		}
+	}
+
+	@Override
+	public int read(byte[] dst, int offset, int length) throws IOException {
+		synchronized (lock) {
+			length = begin(length);
+			int done = 0;
+			while (done < length) {
+				if (available > 0) {
+					int chunk = Math.min(length - done, Math.min(available, ring.length - head));
+					System.arraycopy(ring, head, dst, offset + done, chunk);
+					consume(chunk);
+					done += chunk;
+				} else if (waitForData()) {
+					continue;
+				} else {
+					source.seek(position);
+					int r = source.read(dst, offset + done, length - done);
+					if (r <= 0) {
+						break;
+					}
+					done += r;
+					bufferStart = position + r;
+				}
+				position = bufferStart;
+			}
+			end();
+			return done;
+		}
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		synchronized (lock) {
+			int length = begin(dst.remaining());
+			int done = 0;
+			while (done < length) {
+				if (available > 0) {
+					int chunk = Math.min(length - done, Math.min(available, ring.length - head));
+					dst.put(ring, head, chunk);
+					consume(chunk);
+					done += chunk;
+				} else if (waitForData()) {
+					continue;
+				} else {
+					source.seek(position);
+					int limit = dst.limit();
+					dst.limit(dst.position() + length - done);
+					int r = source.read(dst);
+					dst.limit(limit);
+					if (r <= 0) {
+						break;
+					}
+					done += r;
+					bufferStart = position + r;
+				}
+				position = bufferStart;
+			}
+			end();
+			return done;
+		}
+	}
+
+	@Override
+	public boolean eof() {
+		return eof;
+	}
+
+	@Override
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+			generation++;
+			while (fetching) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		source.close();
+	}
+
+	/**
+	 * Clamps the read length, and tracks whether the access is sequential.
+	 */
+	private int begin(int length) {
+		long remaining = this.length - position;
+		if (length > remaining) {
+			length = (int)remaining;
+			eof = true;
+		}
+
+		if (position == lastReadEnd) {
+			sequentialReads++;
+		} else {
+			sequentialReads = 0;
+		}
+		return length;
+	}
+
+	private void end() {
+		lastReadEnd = position;
+		if (sequentialReads >= SEQUENTIAL_THRESHOLD) {
+			startFetching();
+		}
+	}
+
+	/**
+	 * Waits for the prefetch task to provide data at the current position.
+	 * @return false if the data must be read directly from the source instead.
+	 */
+	private boolean waitForData() throws IOException {
+		if (!fetching && sequentialReads >= SEQUENTIAL_THRESHOLD && fetchError == null) {
+			startFetching();
+		}
+
+		while (fetching && available == 0) {
+			try {
+				lock.wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for read-ahead data");
+			}
+		}
+
+		if (fetchError != null) {
+			IOException error = fetchError;
+			fetchError = null;
+			sequentialReads = 0;
+			throw error;
+		}
+
+		return available > 0;
+	}
+
+	private void consume(int count) {
+		head = (head + count) % ring.length;
+		available -= count;
+		bufferStart += count;
+	}
+
+	private void discard(long position) {
+		generation++;
+		head = 0;
+		available = 0;
+		bufferStart = position;
+		sequentialReads = 0;
+		// Let any in-flight prefetch complete before the source is used directly.
+		while (fetching) {
+			try {
+				lock.wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+	}
+
+	private void startFetching() {
+		if (!fetching && !closed && available < ring.length && bufferStart + available < length) {
+			fetching = true;
+			fetchingGeneration = generation;
+			executor.execute(fetchTask);
+		}
+	}
+
+	private void fetch() {
+		int fetchGeneration;
+		synchronized (lock) {
+			fetchGeneration = fetchingGeneration;
+		}
+
+		while (true) {
+			long fetchPosition;
+			int writeIndex;
+			int chunk;
+			synchronized (lock) {
+				long remaining = length - (bufferStart + available);
+				if (closed || fetchGeneration != generation || available == ring.length || remaining <= 0) {
+					fetching = false;
+					lock.notifyAll();
+					return;
+				}
+
+				fetchPosition = bufferStart + available;
+				writeIndex = (head + available) % ring.length;
+				chunk = (int)Math.min(Math.min(BLOCK_SIZE, remaining), Math.min(ring.length - available, ring.length - writeIndex));
+			}
+
+			// The region being written is past the buffered data, so the reader doesn't touch it.
+			int r;
+			IOException error = null;
+			try {
+				source.seek(fetchPosition);
+				r = source.read(ring, writeIndex, chunk);
+			} catch (IOException e) {
+				r = 0;
+				error = e;
+			}
+
+			synchronized (lock) {
+				if (fetchGeneration == generation) {
+					if (r <= 0) {
+						fetchError = error;
+						fetching = false;
+						lock.notifyAll();
+						return;
+					}
+					available += r;
+				}
+				lock.notifyAll();
+			}
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*************************************************************************/
+/*  StreamDataAccess.java                                                */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Base {@link DataAccess} implementation for data that can only be read through an
+ * {@link InputStream} (e.g: compressed entries).
+ * <p>
+ * Forward seeks skip through the stream, backward seeks reopen it and skip from the start.
+ */
+public abstract class StreamDataAccess extends DataAccess {
+
+	private static final int SCRATCH_SIZE = 16 * 1024;
+
+	private final long length;
+	private InputStream is;
+	private long position = 0;
+	private boolean eof = false;
+	private byte[] scratch;
+
+	/**
+	 * @param is Stream positioned at the start of the data.
+	 * @param length Size of the data when already known, -1 to query the stream for it.
+	 */
+	protected StreamDataAccess(InputStream is, long length) throws IOException {
+		this.is = is;
+		this.length = length >= 0 ? length : is.available();
+	}
+
+	/**
+	 * Returns a new stream positioned at the start of the data.
+	 */
+	protected abstract InputStream reopen() throws IOException;
+
+	@Override
+	public long size() {
+		return length;
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public void seek(long position) throws IOException {
+		position = Math.max(0, Math.min(position, length));
+
+		if (position < this.position) {
+			is.close();
+			is = reopen();
+			this.position = 0;
+		}
+
+		long todo = position - this.position;
+		while (todo > 0) {
+			long skipped = is.skip(todo);
+			if (skipped <= 0) {
+				break;
+			}
+			todo -= skipped;
+		}
+
+		this.position = position - todo;
+		eof = false;
+	}
+
+	@Override
+	public int read(byte[] dst, int offset, int length) throws IOException {
+		long remaining = this.length - position;
+		if (length > remaining) {
+			length = (int)remaining;
+			eof = true;
+		}
+
+		int done = 0;
+		while (done < length) {
+			int r = is.read(dst, offset + done, length - done);
+			if (r <= 0) {
+				eof = true;
+				break;
+			}
+			done += r;
+		}
+
+		position += done;
+		return done;
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		if (dst.hasArray()) {
+			int r = read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+			dst.position(dst.position() + r);
+			return r;
+		}
+
+		// Streams can only fill heap arrays, so go through a scratch buffer kept for the
+		// lifetime of the handle.
+		if (scratch == null) {
+			scratch = new byte[SCRATCH_SIZE];
+		}
+
+		int done = 0;
+		while (dst.hasRemaining()) {
+			int r = read(scratch, 0, Math.min(scratch.length, dst.remaining()));
+			if (r <= 0) {
+				break;
+			}
+			dst.put(scratch, 0, r);
+			done += r;
+		}
+
+		return done;
+	}
+
+	@Override
+	public boolean eof() {
+		return eof;
+	}
+
+	@Override
+	public void close() {
+		try {
+			is.close();
+		} catch (IOException e) {
+			// Nothing to do
+		}
+	}
+}
@@ -0,0 +1,315 @@
+/*************************************************************************/
+/*  ZipArchive.java                                                      */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Random-access reader for ZIP archives, such as ZIP-formatted APK expansion (OBB) files.
+ * <p>
+ * The central directory is read once when the archive is opened. Entries stored without
+ * compression are then memory-mapped in place, so reading them involves no copy; deflated entries
+ * are inflated from a mapping of their compressed data.
+ * <p>
+ * ZIP64 archives aren't supported, which is fine for expansion files as they are limited to 2GB
+ * each.
+ */
+public class ZipArchive {
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private static final int METHOD_STORED = 0;
+	private static final int METHOD_DEFLATED = 8;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	public static class Entry {
+
+		public final String name;
+		public final long size;
+		public final boolean compressed;
+
+		final int method;
+		final long compressedSize;
+		final long localHeaderOffset;
+		// Offset of the entry data, resolved from the local header on first open.
+		long dataOffset = -1;
+
+		Entry(String name, int method, long compressedSize, long size, long localHeaderOffset) {
+			this.name = name;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localHeaderOffset = localHeaderOffset;
+			this.compressed = method != METHOD_STORED;
+		}
+	}
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	private final HashMap<String, Entry> entries = new HashMap<String, Entry>();
+
+	private ZipArchive(File file) throws IOException {
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "r");
+		this.channel = raf.getChannel();
+	}
+
+	/**
+	 * Opens the given archive and reads its central directory.
+	 */
+	public static ZipArchive open(File file) throws IOException {
+		ZipArchive archive = new ZipArchive(file);
+		try {
+			archive.readCentralDirectory();
+		} catch (IOException e) {
+			archive.close();
+			throw e;
+		}
+		return archive;
+	}
+
+	/**
+	 * Returns true if the given file starts with a ZIP local file header.
+	 */
+	public static boolean isZipFile(File file) {
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				return raf.length() >= 4 && Integer.reverseBytes(raf.readInt()) == LOCAL_HEADER_SIGNATURE;
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the entry with the given name, or null if there's none.
+	 */
+	public Entry get(String name) {
+		return entries.get(name);
+	}
+
+	public Collection<Entry> getEntries() {
+		return entries.values();
+	}
+
+	/**
+	 * Opens the given entry for reading.
+	 */
+	public DataAccess open(final Entry entry) throws IOException {
+		long offset = getDataOffset(entry);
+
+		if (entry.method == METHOD_STORED) {
+			return MappedDataAccess.map(channel, offset, entry.size);
+		}
+
+		if (entry.method != METHOD_DEFLATED) {
+			throw new IOException("Unsupported compression method " + entry.method + " for " + entry.name);
+		}
+
+		final ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, offset, entry.compressedSize);
+		return new StreamDataAccess(inflate(data), entry.size) {
+			@Override
+			protected InputStream reopen() {
+				return inflate(data);
+			}
+		};
+	}
+
+	public void close() {
+		try {
+			raf.close();
+		} catch (IOException e) {
+			// Nothing to do
+		}
+	}
+
+	private synchronized long getDataOffset(Entry entry) throws IOException {
+		if (entry.dataOffset < 0) {
+			ByteBuffer header = read(entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+			if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+				throw new IOException("Invalid local header for " + entry.name);
+			}
+			int nameLength = header.getShort(26) & 0xFFFF;
+			int extraLength = header.getShort(28) & 0xFFFF;
+			entry.dataOffset = entry.localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+		}
+		return entry.dataOffset;
+	}
+
+	private void readCentralDirectory() throws IOException {
+		long fileSize = channel.size();
+		if (fileSize < END_OF_CENTRAL_DIRECTORY_SIZE) {
+			throw new IOException("Not a ZIP archive: " + file);
+		}
+
+		// The end of central directory record is at the end of the file, followed by a comment.
+		int tailSize = (int)Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+		ByteBuffer tail = read(fileSize - tailSize, tailSize);
+		int eocd = -1;
+		for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				eocd = i;
+				break;
+			}
+		}
+		if (eocd < 0) {
+			throw new IOException("Not a ZIP archive: " + file);
+		}
+
+		int count = tail.getShort(eocd + 10) & 0xFFFF;
+		long directorySize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+		long directoryOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+		if (count == 0xFFFF || directoryOffset == 0xFFFFFFFFL) {
+			throw new IOException("ZIP64 archives aren't supported: " + file);
+		}
+
+		ByteBuffer directory = read(directoryOffset, (int)directorySize);
+		byte[] nameBytes = new byte[256];
+		int position = 0;
+		for (int i = 0; i < count; i++) {
+			if (position + CENTRAL_HEADER_SIZE > directorySize || directory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+				throw new IOException("Corrupted central directory: " + file);
+			}
+
+			int method = directory.getShort(position + 10) & 0xFFFF;
+			long compressedSize = directory.getInt(position + 20) & 0xFFFFFFFFL;
+			long size = directory.getInt(position + 24) & 0xFFFFFFFFL;
+			int nameLength = directory.getShort(position + 28) & 0xFFFF;
+			int extraLength = directory.getShort(position + 30) & 0xFFFF;
+			int commentLength = directory.getShort(position + 32) & 0xFFFF;
+			long localHeaderOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+
+			if (nameLength > nameBytes.length) {
+				nameBytes = new byte[nameLength];
+			}
+			directory.position(position + CENTRAL_HEADER_SIZE);
+			directory.get(nameBytes, 0, nameLength);
+			String name = new String(nameBytes, 0, nameLength, UTF_8);
+
+			// Directories are implied by the paths of the files.
+			if (!name.endsWith("/") && !entries.containsKey(name)) {
+				entries.put(name, new Entry(name, method, compressedSize, size, localHeaderOffset));
+			}
+
+			position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+	}
+
+	private ByteBuffer read(long offset, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file: " + file);
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static InputStream inflate(ByteBuffer data) {
+		final ByteBuffer source = data.duplicate();
+		InputStream raw = new InputStream() {
+			// Raw inflating may need an extra byte past the end of the data.
+			private boolean paddingRead = false;
+
+			@Override
+			public int read() {
+				if (source.hasRemaining()) {
+					return source.get() & 0xFF;
+				}
+				if (!paddingRead) {
+					paddingRead = true;
+					return 0;
+				}
+				return -1;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				if (len == 0) {
+					return 0;
+				}
+				if (!source.hasRemaining()) {
+					int r = read();
+					if (r < 0) {
+						return -1;
+					}
+					b[off] = (byte)r;
+					return 1;
+				}
+				len = Math.min(len, source.remaining());
+				source.get(b, off, len);
+				return len;
+			}
+
+			@Override
+			public int available() {
+				return source.remaining();
+			}
+		};
+
+		final Inflater inflater = new Inflater(true);
+		return new InflaterInputStream(raw, inflater, 16 * 1024) {
+			@Override
+			public void close() throws IOException {
+				super.close();
+				// Not owned by the stream since it was passed in, release it explicitly.
+				inflater.end();
+			}
+		};
+	}
+}
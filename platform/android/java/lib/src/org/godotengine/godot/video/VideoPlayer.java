@@ -0,0 +1,299 @@
+/*************************************************************************/
+/*  VideoPlayer.java                                                     */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.video;
+
+import org.godotengine.godot.GodotLib;
+
+import android.graphics.SurfaceTexture;
+import android.media.MediaPlayer;
+import android.util.Log;
+import android.view.Surface;
+
+/**
+ * Backs OS.native_video_play() with a {@link MediaPlayer} prepared asynchronously.
+ * <p>
+ * Frames are decoded into a {@link SurfaceTexture} attached to the OES texture of an
+ * ExternalTexture (see {@link #setTexture(int)}), and latched on the GL thread right before the
+ * engine draws a frame, so they reach the renderer without any copy. State changes are pushed to
+ * the engine through {@link GodotLib#videoStateChanged(int)}, and to an optional script callback.
+ */
+public class VideoPlayer implements MediaPlayer.OnPreparedListener, MediaPlayer.OnCompletionListener, MediaPlayer.OnErrorListener, MediaPlayer.OnVideoSizeChangedListener, SurfaceTexture.OnFrameAvailableListener {
+
+	private static final String TAG = VideoPlayer.class.getSimpleName();
+
+	// Keep in sync with OS_Android::VideoState.
+	public static final int STATE_STOPPED = 0;
+	public static final int STATE_PREPARING = 1;
+	public static final int STATE_PLAYING = 2;
+	public static final int STATE_PAUSED = 3;
+	public static final int STATE_COMPLETED = 4;
+	public static final int STATE_ERROR = 5;
+
+	private static final String CALLBACK_METHOD = "_on_video_state_changed";
+
+	// Guarded by this.
+	private MediaPlayer player;
+	private boolean prepared = false;
+	private boolean startPaused = false;
+	private Surface surface;
+
+	// Only used on the GL thread.
+	private SurfaceTexture surfaceTexture;
+
+	private volatile boolean frameAvailable = false;
+	private volatile int state = STATE_STOPPED;
+	private volatile int callbackId = 0;
+	private volatile int videoWidth = 0;
+	private volatile int videoHeight = 0;
+	private final float[] transform = new float[16];
+
+	/**
+	 * Starts preparing |mediaPlayer|, which must have its data source set, and plays it once
+	 * ready. Returns immediately.
+	 */
+	public synchronized void play(MediaPlayer mediaPlayer, float volume) {
+		releasePlayer();
+
+		player = mediaPlayer;
+		prepared = false;
+		startPaused = false;
+		player.setOnPreparedListener(this);
+		player.setOnCompletionListener(this);
+		player.setOnErrorListener(this);
+		player.setOnVideoSizeChangedListener(this);
+		player.setVolume(volume, volume);
+		if (surface != null) {
+			player.setSurface(surface);
+		}
+
+		setState(STATE_PREPARING);
+		try {
+			player.prepareAsync();
+		} catch (IllegalStateException e) {
+			Log.e(TAG, "Unable to prepare the video.", e);
+			releasePlayer();
+			setState(STATE_ERROR);
+		}
+	}
+
+	/**
+	 * Reports that the next video could not be opened: drops whatever is currently playing and
+	 * moves to the error state so the native side stops waiting on STATE_PREPARING.
+	 */
+	public synchronized void fail() {
+		releasePlayer();
+		setState(STATE_ERROR);
+	}
+
+	public synchronized void pause() {
+		if (player == null) {
+			return;
+		}
+
+		if (!prepared) {
+			startPaused = true;
+		} else if (state == STATE_PLAYING) {
+			player.pause();
+			setState(STATE_PAUSED);
+		}
+	}
+
+	public synchronized void resume() {
+		if (player == null) {
+			return;
+		}
+
+		if (!prepared) {
+			startPaused = false;
+		} else if (state == STATE_PAUSED) {
+			player.start();
+			setState(STATE_PLAYING);
+		}
+	}
+
+	public synchronized void stop() {
+		if (player != null) {
+			releasePlayer();
+			setState(STATE_STOPPED);
+		}
+	}
+
+	private void releasePlayer() {
+		if (player != null) {
+			player.release();
+			player = null;
+			prepared = false;
+		}
+	}
+
+	@Override
+	public synchronized void onPrepared(MediaPlayer mp) {
+		if (mp != player) {
+			return;
+		}
+
+		prepared = true;
+		if (startPaused) {
+			setState(STATE_PAUSED);
+		} else {
+			player.start();
+			setState(STATE_PLAYING);
+		}
+	}
+
+	@Override
+	public synchronized void onCompletion(MediaPlayer mp) {
+		if (mp == player) {
+			setState(STATE_COMPLETED);
+		}
+	}
+
+	@Override
+	public synchronized boolean onError(MediaPlayer mp, int what, int extra) {
+		if (mp == player) {
+			Log.e(TAG, "Video playback error " + what + " (" + extra + ").");
+			releasePlayer();
+			setState(STATE_ERROR);
+		}
+		return true;
+	}
+
+	@Override
+	public void onVideoSizeChanged(MediaPlayer mp, int width, int height) {
+		videoWidth = width;
+		videoHeight = height;
+	}
+
+	@Override
+	public void onFrameAvailable(SurfaceTexture texture) {
+		frameAvailable = true;
+	}
+
+	/**
+	 * Makes the player decode into the given OES texture of the engine GL context, or into
+	 * nothing if |textureId| is 0. Must be called on the GL thread.
+	 */
+	public void setTexture(int textureId) {
+		Surface newSurface = null;
+		SurfaceTexture newTexture = null;
+		if (textureId > 0) {
+			newTexture = new SurfaceTexture(textureId);
+			newTexture.setOnFrameAvailableListener(this);
+			newSurface = new Surface(newTexture);
+		}
+
+		Surface oldSurface;
+		synchronized (this) {
+			oldSurface = surface;
+			surface = newSurface;
+			if (player != null) {
+				player.setSurface(surface);
+			}
+		}
+
+		if (oldSurface != null) {
+			oldSurface.release();
+		}
+		if (surfaceTexture != null) {
+			surfaceTexture.release();
+		}
+		surfaceTexture = newTexture;
+		frameAvailable = false;
+	}
+
+	/**
+	 * Latches the most recent decoded frame into the texture, if there's a new one. Called on the
+	 * GL thread before the engine draws a frame.
+	 */
+	public void onGLDrawFrame() {
+		if (!frameAvailable || surfaceTexture == null) {
+			return;
+		}
+
+		frameAvailable = false;
+		surfaceTexture.updateTexImage();
+		synchronized (transform) {
+			surfaceTexture.getTransformMatrix(transform);
+		}
+	}
+
+	/**
+	 * Sets the id of the object receiving the state changes in its '_on_video_state_changed'
+	 * method, 0 for none.
+	 */
+	public void setCallback(int instanceId) {
+		callbackId = instanceId;
+	}
+
+	private void setState(int newState) {
+		state = newState;
+		GodotLib.videoStateChanged(newState);
+
+		int callback = callbackId;
+		if (callback != 0) {
+			GodotLib.calldeferred(callback, CALLBACK_METHOD, new Object[] { newState });
+		}
+	}
+
+	public int getState() {
+		return state;
+	}
+
+	public boolean isPlaying() {
+		return state == STATE_PREPARING || state == STATE_PLAYING;
+	}
+
+	public synchronized int getPosition() {
+		return prepared ? player.getCurrentPosition() : 0;
+	}
+
+	public synchronized int getDuration() {
+		return prepared ? player.getDuration() : 0;
+	}
+
+	public int getVideoWidth() {
+		return videoWidth;
+	}
+
+	public int getVideoHeight() {
+		return videoHeight;
+	}
+
+	/**
+	 * Returns the 4x4 column-major matrix mapping the texture coordinates of the frame, as given
+	 * by {@link SurfaceTexture#getTransformMatrix(float[])}.
+	 */
+	public float[] getTransform() {
+		synchronized (transform) {
+			return transform.clone();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*************************************************************************/
+/*  VideoSingleton.java                                                  */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.video;
+
+import org.godotengine.godot.Godot;
+
+/**
+ * Exposes the {@link VideoPlayer} behind OS.native_video_play() to GDScript as the 'GodotVideo'
+ * singleton, so its frames can be drawn by the engine:
+ * <pre>
+ * var texture = ExternalTexture.new()
+ * var video = Engine.get_singleton("GodotVideo")
+ * video.set_texture(texture.get_external_texture_id())
+ * video.set_callback(get_instance_id()) # calls _on_video_state_changed(state)
+ * OS.native_video_play("res://intro.mp4", 1.0, "", "")
+ * </pre>
+ * The texture must be sampled with a 'samplerExternalOES' uniform. Must be created once
+ * GodotLib.setup has completed.
+ */
+public class VideoSingleton extends Godot.SingletonBase {
+
+	private final VideoPlayer player;
+
+	public VideoSingleton(VideoPlayer player) {
+		this.player = player;
+		registerClass("GodotVideo", new String[] { "set_texture", "set_callback", "get_state", "get_position_ms", "get_duration_ms", "get_video_size", "get_uv_transform" });
+	}
+
+	/**
+	 * Decodes into the given OES texture, 0 to detach it.
+	 */
+	public void set_texture(int texture_id) {
+		player.setTexture(texture_id);
+	}
+
+	public void set_callback(int instance_id) {
+		player.setCallback(instance_id);
+	}
+
+	public int get_state() {
+		return player.getState();
+	}
+
+	public int get_position_ms() {
+		return player.getPosition();
+	}
+
+	public int get_duration_ms() {
+		return player.getDuration();
+	}
+
+	public int[] get_video_size() {
+		return new int[] { player.getVideoWidth(), player.getVideoHeight() };
+	}
+
+	/**
+	 * Returns the 4x4 column-major matrix to apply to the UVs when sampling the texture.
+	 */
+	public float[] get_uv_transform() {
+		return player.getTransform();
+	}
+}
@@ -0,0 +1,124 @@
+/*************************************************************************/
+/*  GodotTextInputWrapperTest.java                                       */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class GodotTextInputWrapperTest {
+
+	private final InputEventRingTest.Collector collector = new InputEventRingTest.Collector();
+	private final InputEventRing ring = new InputEventRing(1024, collector);
+	private final GodotTextInputWrapper wrapper = new GodotTextInputWrapper(null, null);
+
+	/**
+	 * Replaces the |before| characters of |oldText| at |start| with the |count| ones of |newText|,
+	 * as the TextWatcher sees it, and returns the single text record pushed.
+	 */
+	private int[] change(String oldText, String newText, int start, int before, int count) {
+		wrapper.beforeTextChanged(oldText, start, before, count);
+		wrapper.pushTextChange(ring, newText, start, before, count);
+		collector.records.clear();
+		ring.drain();
+		List<int[]> records = collector.records;
+		if (records.isEmpty()) {
+			return null;
+		}
+		assertEquals(1, records.size());
+		assertEquals(InputEventRing.TYPE_TEXT, records.get(0)[0] & 0xff);
+		return records.get(0);
+	}
+
+	/**
+	 * Returns the expected record for |deletions| backspaces followed by |text|.
+	 */
+	private static int[] text(int deletions, String text) {
+		int count = text.codePointCount(0, text.length());
+		int[] record = new int[3 + count];
+		record[0] = InputEventRing.TYPE_TEXT | (record.length << 8);
+		record[1] = deletions;
+		record[2] = count;
+		for (int i = 0, offset = 0; i < count; i++) {
+			record[3 + i] = text.codePointAt(offset);
+			offset += Character.charCount(record[3 + i]);
+		}
+		return record;
+	}
+
+	@Test
+	public void composingTextOnlySendsTheDelta() {
+		// "hel" being composed becomes "hell".
+		assertArrayEquals(text(0, "l"), change("say hel", "say hell", 4, 3, 4));
+		// Corrected to "hello".
+		assertArrayEquals(text(0, "o"), change("say hell", "say hello", 4, 4, 5));
+	}
+
+	@Test
+	public void replacedSuffixIsDeleted() {
+		// "teh" corrected to "the".
+		assertArrayEquals(text(2, "he"), change("teh", "the", 0, 3, 3));
+		// Composing text shortened by one.
+		assertArrayEquals(text(1, ""), change("hello", "hell", 0, 5, 4));
+	}
+
+	@Test
+	public void unchangedTextSendsNothing() {
+		assertEquals(null, change("abc", "abc", 0, 3, 3));
+	}
+
+	@Test
+	public void surrogatePairsCountAsOneCharacter() {
+		// The emojis share their high surrogate, which must not be kept alone.
+		assertArrayEquals(text(1, "😁"), change("a😀", "a😁", 0, 3, 3));
+		// One backspace removes a whole emoji.
+		assertArrayEquals(text(2, ""), change("a😀b", "a", 0, 4, 1));
+		assertArrayEquals(text(0, "🎮"), change("x", "x🎮", 0, 1, 3));
+	}
+
+	@Test
+	public void selectionIsRemovedByOneBackspace() {
+		wrapper.setSelection(true);
+		// The whole selected word is replaced, even though it starts like the new text.
+		assertArrayEquals(text(1, "abd"), change("abc", "abd", 0, 3, 3));
+
+		// Back to the usual delta once the selection is gone.
+		assertArrayEquals(text(1, "e"), change("abd", "abe", 0, 3, 3));
+	}
+
+	@Test
+	public void lineFeedsAreLeftToTheEditorAction() {
+		assertArrayEquals(text(0, "ab"), change("", "a\nb", 0, 0, 3));
+	}
+}
@@ -0,0 +1,119 @@
+/*************************************************************************/
+/*  InputDeviceRegistryTest.java                                         */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class InputDeviceRegistryTest {
+
+	private final InputEventRingTest.Collector collector = new InputEventRingTest.Collector();
+	private final InputEventRing ring = new InputEventRing(1024, collector);
+	private final InputDeviceRegistry registry = new InputDeviceRegistry();
+
+	private int register(int deviceId, String descriptor) {
+		return registry.register(descriptor, new Joystick(deviceId, "Pad " + deviceId, 0, 0), ring);
+	}
+
+	@Test
+	public void idsAreGivenInOrder() {
+		assertEquals(0, register(10, "a"));
+		assertEquals(1, register(11, "b"));
+		assertEquals(2, register(12, "c"));
+
+		assertEquals(1, registry.getGodotId(11));
+		assertEquals(11, registry.getJoystick(11).device_id);
+		assertEquals(-1, registry.getGodotId(13));
+		assertNull(registry.getJoystick(13));
+	}
+
+	@Test
+	public void removedIdsAreKeptForTheirDevice() {
+		register(10, "a");
+		register(11, "b");
+		register(12, "c");
+
+		assertEquals(1, registry.remove(11, ring));
+		assertEquals(-1, registry.getGodotId(11));
+		assertEquals(-1, registry.remove(11, ring));
+
+		// Another device doesn't take the id of "b".
+		assertEquals(3, register(13, "d"));
+		// "b" plugged back, under a new Android id, gets its id again.
+		assertEquals(1, register(14, "b"));
+		assertEquals(1, registry.getGodotId(14));
+	}
+
+	@Test
+	public void lowestFreeIdOnceAllWereUsed() {
+		for (int i = 0; i < InputDeviceRegistry.MAX_JOYSTICKS; i++) {
+			assertEquals(i, register(100 + i, "pad" + i));
+		}
+		assertEquals(-1, register(200, "extra"));
+
+		registry.remove(107, ring);
+		registry.remove(103, ring);
+		assertEquals(3, register(201, "other"));
+		// "pad7" gets its id back, even if another device had been given the lowest free id.
+		assertEquals(7, register(202, "pad7"));
+	}
+
+	@Test
+	public void idsOfDevicesWithoutDescriptorAreNotKept() {
+		assertEquals(0, register(10, null));
+		assertEquals(1, register(11, "b"));
+		registry.remove(10, ring);
+		// Nothing could claim it back.
+		assertEquals(0, register(12, "c"));
+	}
+
+	@Test
+	public void connectionsArePushedInOrder() {
+		register(10, "a");
+		registry.remove(10, ring);
+		register(11, "b");
+		ring.drain();
+
+		// Record payloads: Godot id, connected.
+		int[][] expected = { { 0, 1 }, { 0, 0 }, { 1, 1 } };
+		List<int[]> records = collector.records;
+		assertEquals(expected.length, records.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(InputEventRing.TYPE_JOY_CONNECTION, records.get(i)[0] & 0xff);
+			assertEquals(expected[i][0], records.get(i)[1]);
+			assertEquals(expected[i][1], records.get(i)[2]);
+		}
+	}
+}
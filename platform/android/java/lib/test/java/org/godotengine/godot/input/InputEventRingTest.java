@@ -0,0 +1,277 @@
+/*************************************************************************/
+/*  InputEventRingTest.java                                              */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class InputEventRingTest {
+
+	// Records of 4 ints, half of the headroom of a 64 ints queue.
+	private static final int RECORD_SIZE = 3;
+	private static final int RECORD_LENGTH = RECORD_SIZE + 1;
+
+	/**
+	 * Splits the drained batches back into records, header included.
+	 */
+	static class Collector implements InputEventRing.Dispatcher {
+		final List<int[]> records = new ArrayList<int[]>();
+
+		@Override
+		public void dispatch(ByteBuffer events, int length) {
+			int pos = 0;
+			while (pos < length) {
+				int header = events.getInt(pos * 4);
+				int recordLength = header >>> 8;
+				assertTrue("Malformed record length " + recordLength, recordLength > 0 && pos + recordLength <= length);
+				int[] record = new int[recordLength];
+				for (int i = 0; i < recordLength; i++) {
+					record[i] = events.getInt((pos + i) * 4);
+				}
+				records.add(record);
+				pos += recordLength;
+			}
+		}
+	}
+
+	private static long push(InputEventRing ring, int type, int... payload) {
+		long record = ring.reserve(type, payload.length);
+		if (record >= 0) {
+			for (int i = 0; i < payload.length; i++) {
+				ring.set(record, i, payload[i]);
+			}
+			ring.publish(record);
+		}
+		return record;
+	}
+
+	@Test
+	public void stateChangesUseTheHeadroom() {
+		InputEventRing ring = new InputEventRing(64, new Collector());
+
+		int reserved = 0;
+		while (ring.reserve(InputEventRing.TYPE_JOY_AXIS, RECORD_SIZE) >= 0) {
+			reserved++;
+		}
+		// Everything but the headroom.
+		assertEquals((64 - 8) / RECORD_LENGTH, reserved);
+		assertEquals(1, ring.getDroppedEvents());
+
+		assertTrue(ring.reserveStateChange(InputEventRing.TYPE_KEY, RECORD_SIZE) >= 0);
+		assertTrue(ring.reserveStateChange(InputEventRing.TYPE_KEY, RECORD_SIZE) >= 0);
+		assertEquals(-1, ring.reserveStateChange(InputEventRing.TYPE_KEY, RECORD_SIZE));
+		assertEquals(2, ring.getDroppedEvents());
+	}
+
+	@Test
+	public void releasesAreNotDropped() {
+		InputEventRing ring = new InputEventRing(64, new Collector());
+		while (ring.reserve(InputEventRing.TYPE_JOY_AXIS, RECORD_SIZE) >= 0) {
+			// Fill the queue.
+		}
+		long dropped = ring.getDroppedEvents();
+
+		ring.pushKey(42, 0, true);
+		ring.pushJoyButton(0, 1, true);
+		assertEquals(dropped + 2, ring.getDroppedEvents());
+
+		ring.pushKey(42, 0, false);
+		ring.pushJoyButton(0, 1, false);
+		assertEquals(dropped + 2, ring.getDroppedEvents());
+	}
+
+	@Test
+	public void drainStopsAtUnpublishedRecord() {
+		Collector collector = new Collector();
+		InputEventRing ring = new InputEventRing(64, collector);
+
+		long first = ring.reserve(InputEventRing.TYPE_KEY, RECORD_SIZE);
+		long second = ring.reserve(InputEventRing.TYPE_KEY, RECORD_SIZE);
+		ring.set(second, 0, 2);
+		ring.publish(second);
+
+		ring.drain();
+		assertEquals(0, collector.records.size());
+
+		ring.set(first, 0, 1);
+		ring.publish(first);
+		ring.drain();
+		assertEquals(2, collector.records.size());
+		assertEquals(1, collector.records.get(0)[1]);
+		assertEquals(2, collector.records.get(1)[1]);
+
+		ring.drain();
+		assertEquals(2, collector.records.size());
+	}
+
+	@Test
+	public void recordsWrapAroundTheArrayEnd() {
+		Collector collector = new Collector();
+		// 5 ints per record don't divide 16, so records straddle the end of the array.
+		InputEventRing ring = new InputEventRing(16, collector);
+
+		for (int i = 0; i < 40; i++) {
+			assertTrue(push(ring, InputEventRing.TYPE_SENSOR, i, i + 1, i + 2, i + 3) >= 0);
+			ring.drain();
+		}
+
+		assertEquals(40, collector.records.size());
+		for (int i = 0; i < 40; i++) {
+			int header = InputEventRing.TYPE_SENSOR | (5 << 8);
+			assertArrayEquals(new int[] { header, i, i + 1, i + 2, i + 3 }, collector.records.get(i));
+		}
+	}
+
+	@Test
+	public void lineFeedsAreOnlySkippedWhenAsked() {
+		Collector collector = new Collector();
+		InputEventRing ring = new InputEventRing(64, collector);
+		ring.pushText(1, "a\nb", 0, 3, false);
+		ring.pushText(0, "a\nb", 0, 3, true);
+		ring.drain();
+
+		assertEquals(2, collector.records.size());
+		assertArrayEquals(new int[] { InputEventRing.TYPE_TEXT | (6 << 8), 1, 3, 'a', '\n', 'b' }, collector.records.get(0));
+		assertArrayEquals(new int[] { InputEventRing.TYPE_TEXT | (5 << 8), 0, 2, 'a', 'b' }, collector.records.get(1));
+	}
+
+	@Test
+	public void joyConnectionCarriesTheName() {
+		Collector collector = new Collector();
+		InputEventRing ring = new InputEventRing(64, collector);
+
+		assertTrue(ring.pushJoyConnection(3, true, "Pad \uD83C\uDFAE"));
+		ring.drain();
+
+		int[] record = collector.records.get(0);
+		assertEquals(InputEventRing.TYPE_JOY_CONNECTION, record[0] & 0xFF);
+		assertEquals(3, record[1]);
+		assertEquals(1, record[2]);
+		assertEquals(5, record[3]);
+		assertEquals(0x1F3AE, record[3 + 5]);
+	}
+
+	/**
+	 * Several producers push numbered records of varying lengths while the consumer drains, in a
+	 * queue small enough to wrap around and fill up constantly. Every record must come out exactly
+	 * once, intact and in the order of its producer.
+	 */
+	@Test(timeout = 60000)
+	public void concurrentProducersAndDrain() throws Exception {
+		final int producerCount = 4;
+		final int recordsPerProducer = 5000;
+
+		final Collector collector = new Collector();
+		final InputEventRing ring = new InputEventRing(256, collector);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final AtomicBoolean producing = new AtomicBoolean(true);
+
+		Thread[] producers = new Thread[producerCount];
+		for (int p = 0; p < producerCount; p++) {
+			final int producer = p;
+			producers[p] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int seq = 0; seq < recordsPerProducer; seq++) {
+							// producer, sequence, then |extra| copies of their sum.
+							int extra = seq % 7;
+							long record;
+							while ((record = ring.reserve(InputEventRing.TYPE_KEY, 2 + extra)) < 0) {
+								Thread.yield();
+							}
+							ring.set(record, 0, producer);
+							ring.set(record, 1, seq);
+							for (int i = 0; i < extra; i++) {
+								ring.set(record, 2 + i, producer + seq);
+							}
+							ring.publish(record);
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+			producers[p].start();
+		}
+
+		Thread consumer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (producing.get()) {
+						ring.drain();
+					}
+					ring.drain();
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			}
+		});
+		consumer.start();
+
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		producing.set(false);
+		consumer.join();
+
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+
+		int[] next = new int[producerCount];
+		for (int[] record : collector.records) {
+			assertEquals(InputEventRing.TYPE_KEY, record[0] & 0xFF);
+			int producer = record[1];
+			int seq = record[2];
+			assertEquals("Record of producer " + producer + " lost or duplicated", next[producer], seq);
+			next[producer]++;
+			int extra = seq % 7;
+			assertEquals(3 + extra, record.length);
+			for (int i = 0; i < extra; i++) {
+				assertEquals(producer + seq, record[3 + i]);
+			}
+		}
+		for (int p = 0; p < producerCount; p++) {
+			assertEquals(recordsPerProducer, next[p]);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*************************************************************************/
+/*  InputLatencyStatsTest.java                                           */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class InputLatencyStatsTest {
+
+	private static final int KEY = InputLatencyStats.SOURCE_KEY;
+	private static final int JOYSTICK = InputLatencyStats.SOURCE_JOYSTICK;
+
+	private static void queue(InputLatencyStats stats, int source) {
+		long nowNs = System.nanoTime();
+		stats.onEventQueued(source, nowNs / 1000000, nowNs);
+	}
+
+	private static long count(InputLatencyStats stats, int source, int stage) {
+		return stats.getHistogram(source, stage).count;
+	}
+
+	@Test
+	public void emptyHistogramPercentileIsZero() {
+		assertEquals(0, new InputLatencyStats.Histogram().getPercentileUs(50));
+	}
+
+	@Test
+	public void percentilesAreBucketUpperBounds() {
+		InputLatencyStats.Histogram histogram = new InputLatencyStats.Histogram();
+		for (int i = 0; i < 90; i++) {
+			histogram.record(100);
+		}
+		for (int i = 0; i < 10; i++) {
+			histogram.record(1100);
+		}
+
+		assertEquals(250, histogram.getPercentileUs(50));
+		assertEquals(250, histogram.getPercentileUs(90));
+		// Capped by the largest latency rather than the end of its bucket.
+		assertEquals(1100, histogram.getPercentileUs(91));
+		assertEquals(1100, histogram.getPercentileUs(100));
+		assertEquals(1100, histogram.getPercentileUs(150));
+		// The smallest percentiles still land on the first sample.
+		assertEquals(250, histogram.getPercentileUs(0));
+		assertEquals(200, histogram.getMeanUs());
+	}
+
+	@Test
+	public void latenciesPastTheLastBucketAreCounted() {
+		InputLatencyStats.Histogram histogram = new InputLatencyStats.Histogram();
+		histogram.record(10);
+		histogram.record(InputLatencyStats.BUCKET_US * InputLatencyStats.HISTOGRAM_BUCKETS * 3);
+		// Negative latencies from clock rounding count as 0.
+		histogram.record(-500);
+
+		assertEquals(2, histogram.buckets[0]);
+		assertEquals(1, histogram.buckets[InputLatencyStats.HISTOGRAM_BUCKETS - 1]);
+		assertEquals(histogram.maxUs, histogram.getPercentileUs(99));
+	}
+
+	@Test
+	public void eventsMoveThroughTheStages() {
+		InputLatencyStats stats = new InputLatencyStats();
+		queue(stats, KEY);
+		queue(stats, JOYSTICK);
+		assertEquals(1, count(stats, KEY, InputLatencyStats.STAGE_ENQUEUE));
+		assertEquals(1, count(stats, JOYSTICK, InputLatencyStats.STAGE_RECEIPT));
+
+		// Only the key was drained with this batch.
+		stats.onEventsDispatched(1);
+		assertEquals(1, count(stats, KEY, InputLatencyStats.STAGE_DISPATCH));
+		assertEquals(0, count(stats, JOYSTICK, InputLatencyStats.STAGE_DISPATCH));
+
+		// Dispatching the same count again doesn't record anything twice.
+		stats.onEventsDispatched(1);
+		assertEquals(1, count(stats, KEY, InputLatencyStats.STAGE_DISPATCH));
+
+		stats.onFrameFinished();
+		assertEquals(1, count(stats, KEY, InputLatencyStats.STAGE_FRAME));
+		assertEquals(0, count(stats, JOYSTICK, InputLatencyStats.STAGE_FRAME));
+		assertEquals(1, stats.getQueuedCount());
+
+		queue(stats, KEY);
+		stats.onEventsDispatched(stats.getQueuedCount());
+		stats.onFrameFinished();
+		assertEquals(2, count(stats, KEY, InputLatencyStats.STAGE_FRAME));
+		assertEquals(1, count(stats, JOYSTICK, InputLatencyStats.STAGE_FRAME));
+		assertEquals(0, stats.getQueuedCount());
+		assertEquals(3, count(stats, -1, InputLatencyStats.STAGE_FRAME));
+
+		// Nothing dispatched, nothing recorded.
+		stats.onFrameFinished();
+		assertEquals(3, count(stats, -1, InputLatencyStats.STAGE_FRAME));
+
+		stats.reset();
+		assertEquals(0, count(stats, -1, InputLatencyStats.STAGE_ENQUEUE));
+	}
+}
@@ -0,0 +1,207 @@
+/*************************************************************************/
+/*  JoystickTest.java                                                    */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class JoystickTest {
+
+	private static final int AXIS_X = 0;
+	private static final int AXIS_LTRIGGER = 17;
+
+	private final InputEventRingTest.Collector collector = new InputEventRingTest.Collector();
+	private final InputEventRing ring = new InputEventRing(64, collector);
+
+	/**
+	 * A stick axis in [-1, 1] with a flat area of 0.1 and a fuzz of 0.02, and a trigger in [0, 1]
+	 * reporting the same flat area.
+	 */
+	private static Joystick createJoystick() {
+		Joystick joystick = new Joystick(1, "Pad", 2, 2);
+		joystick.setAxisRange(0, AXIS_X, -1.0f, 1.0f, 0.1f, 0.02f);
+		joystick.setAxisRange(1, AXIS_LTRIGGER, 0.0f, 1.0f, 0.1f, 0.0f);
+		return joystick;
+	}
+
+	private List<int[]> flushAndDrain(Joystick joystick) {
+		collector.records.clear();
+		joystick.flush(ring, 3, null);
+		ring.drain();
+		return collector.records;
+	}
+
+	private static void assertAxis(int[] record, int axis, float value) {
+		assertEquals(InputEventRing.TYPE_JOY_AXIS, record[0] & 0xff);
+		assertEquals(3, record[1]);
+		assertEquals(axis, record[2]);
+		assertEquals(value, Float.intBitsToFloat(record[3]), 1e-6);
+	}
+
+	@Test
+	public void firstFlushSendsEveryAxis() {
+		Joystick joystick = createJoystick();
+		joystick.update(new float[] { 0.5f, 0.0f }, new float[] { 0.0f, 0.0f });
+
+		// The hat is centered, as the engine assumes.
+		List<int[]> records = flushAndDrain(joystick);
+		assertEquals(2, records.size());
+		assertAxis(records.get(0), 0, 0.5f);
+		assertAxis(records.get(1), 1, -1.0f);
+
+		// Nothing new.
+		assertEquals(0, flushAndDrain(joystick).size());
+	}
+
+	@Test
+	public void changesBelowTheFuzzAreFiltered() {
+		Joystick joystick = createJoystick();
+		joystick.update(new float[] { 0.5f, 0.0f }, new float[] { 0.0f, 0.0f });
+		flushAndDrain(joystick);
+
+		joystick.update(new float[] { 0.51f, 0.0f }, new float[] { 0.0f, 0.0f });
+		assertEquals(0, flushAndDrain(joystick).size());
+
+		joystick.update(new float[] { 0.53f, 0.0f }, new float[] { 0.0f, 0.0f });
+		List<int[]> records = flushAndDrain(joystick);
+		assertEquals(1, records.size());
+		assertAxis(records.get(0), 0, 0.53f);
+	}
+
+	@Test
+	public void extremesAreNotFiltered() {
+		Joystick joystick = createJoystick();
+		joystick.update(new float[] { -0.99f, 0.0f }, new float[] { 0.0f, 0.0f });
+		flushAndDrain(joystick);
+
+		joystick.update(new float[] { -1.0f, 0.0f }, new float[] { 0.0f, 0.0f });
+		List<int[]> records = flushAndDrain(joystick);
+		assertEquals(1, records.size());
+		assertAxis(records.get(0), 0, -1.0f);
+	}
+
+	@Test
+	public void flatAreaSnapsToRest() {
+		Joystick joystick = createJoystick();
+		joystick.update(new float[] { 0.5f, 0.0f }, new float[] { 0.0f, 0.0f });
+		flushAndDrain(joystick);
+
+		// Entering the flat area sends the rest position.
+		joystick.update(new float[] { 0.05f, 0.0f }, new float[] { 0.0f, 0.0f });
+		List<int[]> records = flushAndDrain(joystick);
+		assertEquals(1, records.size());
+		assertAxis(records.get(0), 0, 0.0f);
+
+		// Moving inside it isn't a change, even across the center.
+		joystick.update(new float[] { -0.08f, 0.0f }, new float[] { 0.0f, 0.0f });
+		assertEquals(0, flushAndDrain(joystick).size());
+
+		joystick.update(new float[] { 0.15f, 0.0f }, new float[] { 0.0f, 0.0f });
+		records = flushAndDrain(joystick);
+		assertEquals(1, records.size());
+		assertAxis(records.get(0), 0, 0.15f);
+	}
+
+	@Test
+	public void triggersHaveNoFlatArea() {
+		Joystick joystick = createJoystick();
+		joystick.update(new float[] { 0.0f, 0.0f }, new float[] { 0.0f, 0.0f });
+		flushAndDrain(joystick);
+
+		// Half way through the trigger is 0 once normalized, and a slight press is close to -1:
+		// neither is the rest position.
+		joystick.update(new float[] { 0.0f, 0.04f }, new float[] { 0.0f, 0.0f });
+		List<int[]> records = flushAndDrain(joystick);
+		assertEquals(1, records.size());
+		assertAxis(records.get(0), 1, -0.92f);
+
+		joystick.update(new float[] { 0.0f, 0.52f }, new float[] { 0.0f, 0.0f });
+		records = flushAndDrain(joystick);
+		assertEquals(1, records.size());
+		assertAxis(records.get(0), 1, 0.04f);
+	}
+
+	@Test
+	public void droppedValuesAreSentByTheNextFlush() {
+		Joystick joystick = createJoystick();
+		joystick.update(new float[] { 0.5f, 1.0f }, new float[] { 1.0f, 0.0f });
+		flushAndDrain(joystick);
+
+		// Fill the queue up to the headroom kept for the state changes.
+		while (ring.pushJoyAxis(0, 0, 0.5f, false)) {
+		}
+		joystick.update(new float[] { 0.0f, 0.5f }, new float[] { 0.0f, 0.0f });
+		// The stick and the hat going back to rest get through, not the trigger.
+		assertEquals(2, joystick.flush(ring, 3, null));
+		collector.records.clear();
+		ring.drain();
+		List<int[]> records = collector.records;
+		assertAxis(records.get(records.size() - 2), 0, 0.0f);
+		assertEquals(InputEventRing.TYPE_JOY_HAT, records.get(records.size() - 1)[0] & 0xff);
+
+		records = flushAndDrain(joystick);
+		assertEquals(1, records.size());
+		assertAxis(records.get(0), 1, 0.0f);
+	}
+
+	@Test
+	public void hatsAreSentWhenTheyChange() {
+		Joystick joystick = createJoystick();
+		joystick.update(new float[] { 0.0f, 0.0f }, new float[] { -1.0f, 0.0f });
+		List<int[]> records = flushAndDrain(joystick);
+		int[] hat = records.get(records.size() - 1);
+		assertEquals(InputEventRing.TYPE_JOY_HAT, hat[0] & 0xff);
+		assertEquals(3, hat[1]);
+		assertEquals(-1, hat[2]);
+		assertEquals(0, hat[3]);
+
+		joystick.update(new float[] { 0.0f, 0.0f }, new float[] { -1.0f, 0.0f });
+		assertEquals(0, flushAndDrain(joystick).size());
+	}
+
+	@Test
+	public void snapshotsAreCountedOnceForTheLatency() {
+		Joystick joystick = createJoystick();
+		InputLatencyStats stats = new InputLatencyStats();
+		joystick.update(new float[] { 0.5f, 0.0f }, new float[] { 0.0f, 0.0f });
+		joystick.update(new float[] { 0.7f, 0.5f }, new float[] { 1.0f, 0.0f });
+		joystick.flush(ring, 3, stats);
+		assertEquals(1, stats.getQueuedCount());
+
+		// Nothing changed, nothing queued.
+		joystick.update(new float[] { 0.7f, 0.5f }, new float[] { 1.0f, 0.0f });
+		joystick.flush(ring, 3, stats);
+		assertEquals(1, stats.getQueuedCount());
+	}
+}
@@ -0,0 +1,191 @@
+/*************************************************************************/
+/*  TouchPredictorTest.java                                              */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+public class TouchPredictorTest {
+
+	private static final int LEAD_TIME = 16;
+	// In pixels, for the swipe trace at LEAD_TIME. Loose enough for small filter tweaks, but
+	// catches regressions like a broken velocity update.
+	private static final float MEAN_ERROR_BOUND = 10;
+	private static final float MAX_ERROR_BOUND = 20;
+
+	/**
+	 * Single pointer trace, loaded from a CSV resource of "time,x,y" lines ('#' starts a comment).
+	 */
+	static class Trace {
+		long[] times;
+		float[] xs;
+		float[] ys;
+
+		static Trace load(String name) throws IOException {
+			InputStream is = TouchPredictorTest.class.getResourceAsStream(name);
+			assertNotNull("Missing trace " + name, is);
+
+			ArrayList<String[]> rows = new ArrayList<String[]>();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(is, "UTF-8"));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (!line.isEmpty() && !line.startsWith("#")) {
+						rows.add(line.split(","));
+					}
+				}
+			} finally {
+				reader.close();
+			}
+
+			Trace trace = new Trace();
+			trace.times = new long[rows.size()];
+			trace.xs = new float[rows.size()];
+			trace.ys = new float[rows.size()];
+			for (int i = 0; i < rows.size(); i++) {
+				String[] row = rows.get(i);
+				trace.times[i] = Long.parseLong(row[0].trim());
+				trace.xs[i] = Float.parseFloat(row[1].trim());
+				trace.ys[i] = Float.parseFloat(row[2].trim());
+			}
+			return trace;
+		}
+	}
+
+	/**
+	 * Replays |trace| and measures the prediction error, for tuning the filter. Deterministic:
+	 * the same trace always gives the same result.
+	 * <p>
+	 * Each sample is predicted |leadTime| milliseconds ahead and compared with the trace position
+	 * at that time, linearly interpolated between the recorded samples. Predictions past the end
+	 * of the trace are not measured. Without |predict|, the last sample is used as the prediction,
+	 * which is the error the engine sees with the prediction disabled.
+	 *
+	 * @return the mean error, the maximum error (both in pixels) and the number of measured
+	 * predictions.
+	 */
+	static float[] replay(Trace trace, int leadTime, boolean predict) {
+		long[] times = trace.times;
+		float[] xs = trace.xs;
+		float[] ys = trace.ys;
+
+		TouchPredictor predictor = new TouchPredictor();
+		double totalError = 0;
+		float maxError = 0;
+		int measured = 0;
+
+		int target = 0;
+		for (int i = 0; i < times.length; i++) {
+			predictor.addSample(0, times[i], xs[i], ys[i]);
+
+			long when = times[i] + leadTime;
+			while (target < times.length - 1 && times[target + 1] < when) {
+				target++;
+			}
+			if (target >= times.length - 1 || times[target] > when) {
+				continue;
+			}
+
+			long span = times[target + 1] - times[target];
+			float t = span > 0 ? (float)(when - times[target]) / span : 0;
+			float actualX = xs[target] + (xs[target + 1] - xs[target]) * t;
+			float actualY = ys[target] + (ys[target + 1] - ys[target]) * t;
+
+			float predictedX = predict ? predictor.predictX(0, leadTime) : xs[i];
+			float predictedY = predict ? predictor.predictY(0, leadTime) : ys[i];
+			float dx = predictedX - actualX;
+			float dy = predictedY - actualY;
+			float error = (float)Math.sqrt(dx * dx + dy * dy);
+			totalError += error;
+			maxError = Math.max(maxError, error);
+			measured++;
+		}
+
+		return new float[] { measured > 0 ? (float)(totalError / measured) : 0, maxError, measured };
+	}
+
+	@Test
+	public void swipeTraceErrorBound() throws IOException {
+		Trace trace = Trace.load("touch_trace_swipe.csv");
+		float[] predicted = replay(trace, LEAD_TIME, true);
+		float[] unpredicted = replay(trace, LEAD_TIME, false);
+
+		assertTrue("Too few measured predictions: " + predicted[2], predicted[2] >= 50);
+		assertTrue("Mean error too high: " + predicted[0], predicted[0] < MEAN_ERROR_BOUND);
+		assertTrue("Max error too high: " + predicted[1], predicted[1] < MAX_ERROR_BOUND);
+		// Must be well worth it compared to showing the last known position.
+		assertTrue("Mean error " + predicted[0] + " vs " + unpredicted[0] + " without prediction",
+				predicted[0] < unpredicted[0] * 0.35f);
+	}
+
+	@Test
+	public void replayIsDeterministic() throws IOException {
+		Trace trace = Trace.load("touch_trace_swipe.csv");
+		float[] first = replay(trace, LEAD_TIME, true);
+		float[] second = replay(trace, LEAD_TIME, true);
+		for (int i = 0; i < first.length; i++) {
+			assertEquals(first[i], second[i], 0);
+		}
+	}
+
+	@Test
+	public void constantVelocityConverges() {
+		final int count = 60;
+		Trace trace = new Trace();
+		trace.times = new long[count];
+		trace.xs = new float[count];
+		trace.ys = new float[count];
+		for (int i = 0; i < count; i++) {
+			trace.times[i] = 1000 + i * 8;
+			trace.xs[i] = 100 + i * 8 * 1.5f;
+			trace.ys[i] = 900 - i * 8 * 0.5f;
+		}
+
+		TouchPredictor predictor = new TouchPredictor();
+		for (int i = 0; i < count; i++) {
+			predictor.addSample(0, trace.times[i], trace.xs[i], trace.ys[i]);
+		}
+		float expectedX = trace.xs[count - 1] + 1.5f * LEAD_TIME;
+		float expectedY = trace.ys[count - 1] - 0.5f * LEAD_TIME;
+		assertEquals(expectedX, predictor.predictX(0, LEAD_TIME), 0.5f);
+		assertEquals(expectedY, predictor.predictY(0, LEAD_TIME), 0.5f);
+	}
+}
@@ -0,0 +1,181 @@
+/*************************************************************************/
+/*  HandleTableTest.java                                                 */
+/*************************************************************************/
+/*                       This file is part of:                           */
+/*                           GODOT ENGINE                                */
+/*                      https://godotengine.org                          */
+/*************************************************************************/
+/* Copyright (c) 2007-2020 Juan Linietsky, Ariel Manzur.                 */
+/* Copyright (c) 2014-2020 Godot Engine contributors (cf. AUTHORS.md).   */
+/*                                                                       */
+/* Permission is hereby granted, free of charge, to any person obtaining */
+/* a copy of this software and associated documentation files (the       */
+/* "Software"), to deal in the Software without restriction, including   */
+/* without limitation the rights to use, copy, modify, merge, publish,   */
+/* distribute, sublicense, and/or sell copies of the Software, and to    */
+/* permit persons to whom the Software is furnished to do so, subject to */
+/* the following conditions:                                             */
+/*                                                                       */
+/* The above copyright notice and this permission notice shall be        */
+/* included in all copies or substantial portions of the Software.       */
+/*                                                                       */
+/* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,       */
+/* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF    */
+/* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.*/
+/* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY  */
+/* CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,  */
+/* TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE     */
+/* SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.                */
+/*************************************************************************/
+
+package org.godotengine.godot.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class HandleTableTest {
+
+	private static final int THREAD_COUNT = 16;
+	private static final int OPERATIONS_PER_THREAD = 50000;
+	private static final int MAX_LIVE_PER_THREAD = 64;
+
+	@Test
+	public void addGetRemove() {
+		HandleTable<Object> table = new HandleTable<Object>();
+		Object a = new Object();
+		Object b = new Object();
+
+		int idA = table.add(a);
+		int idB = table.add(b);
+		assertTrue(idA > 0);
+		assertTrue(idB > 0);
+		assertTrue(idA != idB);
+
+		assertSame(a, table.get(idA));
+		assertSame(b, table.get(idB));
+		assertSame(a, table.remove(idA));
+		assertNull(table.get(idA));
+		assertNull(table.remove(idA));
+		assertSame(b, table.get(idB));
+	}
+
+	@Test
+	public void unknownIds() {
+		HandleTable<Object> table = new HandleTable<Object>();
+		assertNull(table.get(0));
+		assertNull(table.get(-1));
+		assertNull(table.get(12345));
+		assertNull(table.remove(-1));
+	}
+
+	@Test
+	public void wrapAroundSkipsLiveIds() {
+		HandleTable<Object> table = new HandleTable<Object>();
+		Object a = new Object();
+		Object b = new Object();
+		Object c = new Object();
+		int idA = table.add(a);
+		int idB = table.add(b);
+		int idC = table.add(c);
+		assertSame(b, table.remove(idB));
+
+		table.setLastId(Integer.MAX_VALUE - 1);
+		Object d = new Object();
+		assertEquals(Integer.MAX_VALUE, table.add(d));
+
+		// Back to the start of the sequence, where |a| and |c| are still alive.
+		Object e = new Object();
+		Object f = new Object();
+		assertEquals(idB, table.add(e));
+		assertEquals(idC + 1, table.add(f));
+
+		assertSame(a, table.get(idA));
+		assertSame(e, table.get(idB));
+		assertSame(c, table.get(idC));
+		assertSame(d, table.get(Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Each thread adds, looks up and removes its own handles while the others do the same,
+	 * checking that ids are never handed out twice and that lookups never see another thread's
+	 * handle.
+	 */
+	@Test(timeout = 60000)
+	public void concurrentAddGetRemove() throws Exception {
+		final HandleTable<Object> table = new HandleTable<Object>();
+		final ConcurrentHashMap<Integer, Object> live = new ConcurrentHashMap<Integer, Object>();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch start = new CountDownLatch(1);
+
+		Thread[] threads = new Thread[THREAD_COUNT];
+		for (int t = 0; t < THREAD_COUNT; t++) {
+			final long seed = t;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						stress(table, live, new Random(seed));
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+			threads[t].start();
+		}
+
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		assertTrue(live.isEmpty());
+	}
+
+	private static void stress(HandleTable<Object> table, ConcurrentHashMap<Integer, Object> live, Random random) {
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		ArrayList<Object> handles = new ArrayList<Object>();
+
+		for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+			int op = random.nextInt(3);
+			if (ids.isEmpty() || (op == 0 && ids.size() < MAX_LIVE_PER_THREAD)) {
+				Object handle = new Object();
+				int id = table.add(handle);
+				assertTrue("Non-positive id " + id, id > 0);
+				assertNull("Id " + id + " handed out twice", live.putIfAbsent(id, handle));
+				ids.add(id);
+				handles.add(handle);
+			} else if (op == 1) {
+				int index = random.nextInt(ids.size());
+				assertSame(handles.get(index), table.get(ids.get(index)));
+			} else {
+				int index = random.nextInt(ids.size());
+				int id = ids.remove(index);
+				Object handle = handles.remove(index);
+				// Unregister before the table can reuse the id.
+				assertSame(handle, live.remove(id));
+				assertSame(handle, table.remove(id));
+				assertNull(table.get(id));
+			}
+		}
+
+		for (int i = 0; i < ids.size(); i++) {
+			int id = ids.get(i);
+			assertSame(handles.get(i), live.remove(id));
+			assertSame(handles.get(i), table.remove(id));
+		}
+	}
+}
@@ -57,9 +57,9 @@ GodotIOJavaWrapper::GodotIOJavaWrapper(JNIEnv *p_env, jobject p_godot_io_instanc
 		_hide_keyboard = p_env->GetMethodID(cls, "hideKeyboard", "()V");
 		_set_screen_orientation = p_env->GetMethodID(cls, "setScreenOrientation", "(I)V");
 		_get_system_dir = p_env->GetMethodID(cls, "getSystemDir", "(I)Ljava/lang/String;");
-		_play_video = p_env->GetMethodID(cls, "playVideo", "(Ljava/lang/String;)V");
-		_is_video_playing = p_env->GetMethodID(cls, "isVideoPlaying", "()Z");
+		_play_video = p_env->GetMethodID(cls, "playVideo", "(Ljava/lang/String;ZF)V");
 		_pause_video = p_env->GetMethodID(cls, "pauseVideo", "()V");
+		_resume_video = p_env->GetMethodID(cls, "resumeVideo", "()V");
 		_stop_video = p_env->GetMethodID(cls, "stopVideo", "()V");
 	}
 }
@@ -167,16 +167,12 @@ String GodotIOJavaWrapper::get_system_dir(int p_dir) {
 	}
 }
 
-void GodotIOJavaWrapper::play_video(const String &p_path) {
-	// Why is this not here?!?!
-}
-
-bool GodotIOJavaWrapper::is_video_playing() {
-	if (_is_video_playing) {
+void GodotIOJavaWrapper::play_video(const String &p_path, bool p_asset, float p_volume) {
+	if (_play_video) {
 		JNIEnv *env = ThreadAndroid::get_env();
-		return env->CallBooleanMethod(godot_io_instance, _is_video_playing);
-	} else {
-		return false;
+		jstring jStr = env->NewStringUTF(p_path.utf8().get_data());
+		env->CallVoidMethod(godot_io_instance, _play_video, jStr, p_asset, p_volume);
+		env->DeleteLocalRef(jStr);
 	}
 }
 
@@ -187,6 +183,13 @@ void GodotIOJavaWrapper::pause_video() {
 	}
 }
 
+void GodotIOJavaWrapper::resume_video() {
+	if (_resume_video) {
+		JNIEnv *env = ThreadAndroid::get_env();
+		env->CallVoidMethod(godot_io_instance, _resume_video);
+	}
+}
+
 void GodotIOJavaWrapper::stop_video() {
 	if (_stop_video) {
 		JNIEnv *env = ThreadAndroid::get_env();
@@ -56,8 +56,8 @@ private:
 	jmethodID _set_screen_orientation = 0;
 	jmethodID _get_system_dir = 0;
 	jmethodID _play_video = 0;
-	jmethodID _is_video_playing = 0;
 	jmethodID _pause_video = 0;
+	jmethodID _resume_video = 0;
 	jmethodID _stop_video = 0;
 
 public:
@@ -79,9 +79,9 @@ public:
 	void set_vk_height(int p_height);
 	void set_screen_orientation(int p_orient);
 	String get_system_dir(int p_dir);
-	void play_video(const String &p_path);
-	bool is_video_playing();
+	void play_video(const String &p_path, bool p_asset, float p_volume);
 	void pause_video();
+	void resume_video();
 	void stop_video();
 };
 
@@ -34,14 +34,17 @@
 
 #include "android/asset_manager_jni.h"
 #include "android_keys_utils.h"
+#include "api/input_event_screen_drag_prediction.h"
 #include "api/java_class_wrapper.h"
 #include "api/jni_singleton.h"
+#include "audio_decoder_jandroid.h"
 #include "audio_driver_jandroid.h"
 #include "core/engine.h"
 #include "core/project_settings.h"
 #include "dir_access_jandroid.h"
 #include "file_access_android.h"
 #include "file_access_jandroid.h"
+#include "input_default_android.h"
 #include "jni_utils.h"
 #include "main/input_default.h"
 #include "main/main.h"
@@ -120,7 +123,7 @@ JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_setVirtualKeyboardHei
 	}
 }
 
-JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_initialize(JNIEnv *env, jclass clazz, jobject activity, jobject p_asset_manager, jboolean p_use_apk_expansion) {
+JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_initialize(JNIEnv *env, jclass clazz, jobject activity, jobject p_asset_manager, jboolean p_use_apk_expansion, jboolean p_use_java_file_access) {
 
 	initialized = true;
 
@@ -132,20 +135,19 @@ JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_initialize(JNIEnv *en
 	godot_io_java = new GodotIOJavaWrapper(env, godot_java->get_member_object("io", "Lorg/godotengine/godot/GodotIO;", env));
 
 	ThreadAndroid::make_default(jvm);
-#ifdef USE_JAVA_FILE_ACCESS
+	// Java file access is also used at runtime when expansion archives are mounted in GodotIO.
 	FileAccessJAndroid::setup(godot_io_java->get_instance());
-#else
 
 	jobject amgr = env->NewGlobalRef(p_asset_manager);
 
 	FileAccessAndroid::asset_manager = AAssetManager_fromJava(env, amgr);
-#endif
 
 	DirAccessJAndroid::setup(godot_io_java->get_instance());
 	AudioDriverAndroid::setup(godot_io_java->get_instance());
+	AudioDecoderJAndroid::setup(godot_io_java->get_instance());
 	NetSocketAndroid::setup(godot_java->get_member_object("netUtils", "Lorg/godotengine/godot/utils/GodotNetUtils;", env));
 
-	os_android = new OS_Android(godot_java, godot_io_java, p_use_apk_expansion);
+	os_android = new OS_Android(godot_java, godot_io_java, p_use_apk_expansion, p_use_java_file_access);
 
 	char wd[500];
 	getcwd(wd, 500);
@@ -272,28 +274,75 @@ JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_step(JNIEnv *env, jcl
 	}
 }
 
+// Reused by all the touch events, so dispatching them doesn't allocate.
+static Vector<OS_Android::TouchPos> touch_points;
+
+static float _int_bits_to_float(int32_t p_bits) {
+
+	float value;
+	memcpy(&value, &p_bits, sizeof(value));
+	return value;
+}
+
+static int32_t _float_to_int_bits(float p_value) {
+
+	int32_t bits;
+	memcpy(&bits, &p_value, sizeof(bits));
+	return bits;
+}
+
+// Payload of a touch record, see InputEventRing: action, pointer, count, samples, the pointer ids,
+// then for each sample its time (low and high words, 0 if unknown) and the position of each pointer.
+static int _touch_record_size(int p_count, int p_samples) {
+
+	return 4 + p_count + p_samples * (2 + p_count * 2);
+}
+
+static void _touch(const int32_t *p) {
+
+	int count = p[2];
+	int samples = p[3];
+
+	touch_points.resize(count);
+	const int32_t *sample = p + 4 + count;
+	for (int s = 0; s < samples; s++) {
+		uint64_t time = (uint32_t)sample[0] | ((uint64_t)(uint32_t)sample[1] << 32);
+		for (int i = 0; i < count; i++) {
+			OS_Android::TouchPos &tp = touch_points.write[i];
+			tp.id = p[4 + i];
+			tp.pos = Point2(_int_bits_to_float(sample[2 + i * 2]), _int_bits_to_float(sample[3 + i * 2]));
+		}
+		os_android->process_touch(p[0], p[1], touch_points, time);
+		sample += 2 + count * 2;
+	}
+}
+
 JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_touch(JNIEnv *env, jclass clazz, jint ev, jint pointer, jint count, jintArray positions) {
 
 	if (step == 0)
 		return;
 
-	Vector<OS_Android::TouchPos> points;
+	// Repacked as a single sample touch record, decoded like the queued ones.
+	Vector<int32_t> record;
+	record.resize(_touch_record_size(count, 1));
+	int32_t *r = record.ptrw();
+	r[0] = ev;
+	r[1] = pointer;
+	r[2] = count;
+	r[3] = 1;
+	int32_t *sample = r + 4 + count;
+	sample[0] = 0;
+	sample[1] = 0;
 	for (int i = 0; i < count; i++) {
 
 		jint p[3];
 		env->GetIntArrayRegion(positions, i * 3, 3, p);
-		OS_Android::TouchPos tp;
-		tp.pos = Point2(p[1], p[2]);
-		tp.id = p[0];
-		points.push_back(tp);
+		r[4 + i] = p[0];
+		sample[2 + i * 2] = _float_to_int_bits(p[1]);
+		sample[3 + i * 2] = _float_to_int_bits(p[2]);
 	}
 
-	os_android->process_touch(ev, pointer, points);
-
-	/*
-	if (os_android)
-		os_android->process_touch(ev,pointer,points);
-	*/
+	_touch(r);
 }
 
 JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_hover(JNIEnv *env, jclass clazz, jint p_type, jint p_x, jint p_y) {
@@ -343,9 +392,7 @@ JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_joyaxis(JNIEnv *env,
 	os_android->process_joy_event(jevent);
 }
 
-JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_joyhat(JNIEnv *env, jclass clazz, jint p_device, jint p_hat_x, jint p_hat_y) {
-	if (step == 0)
-		return;
+static void _joy_hat(int p_device, int p_hat_x, int p_hat_y) {
 
 	OS_Android::JoypadEvent jevent;
 	jevent.device = p_device;
@@ -368,6 +415,13 @@ JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_joyhat(JNIEnv *env, j
 	os_android->process_joy_event(jevent);
 }
 
+JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_joyhat(JNIEnv *env, jclass clazz, jint p_device, jint p_hat_x, jint p_hat_y) {
+	if (step == 0)
+		return;
+
+	_joy_hat(p_device, p_hat_x, p_hat_y);
+}
+
 JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_joyconnectionchanged(JNIEnv *env, jclass clazz, jint p_device, jboolean p_connected, jstring p_name) {
 	if (os_android) {
 		String name = jstring_to_string(p_name, env);
@@ -375,9 +429,7 @@ JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_joyconnectionchanged(
 	}
 }
 
-JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_key(JNIEnv *env, jclass clazz, jint p_scancode, jint p_unicode_char, jboolean p_pressed) {
-	if (step == 0)
-		return;
+static void _key(int p_scancode, int p_unicode_char, bool p_pressed) {
 
 	Ref<InputEventKey> ievent;
 	ievent.instance();
@@ -403,6 +455,154 @@ JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_key(JNIEnv *env, jcla
 	os_android->process_event(ievent);
 }
 
+JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_key(JNIEnv *env, jclass clazz, jint p_scancode, jint p_unicode_char, jboolean p_pressed) {
+	if (step == 0)
+		return;
+
+	_key(p_scancode, p_unicode_char, p_pressed);
+}
+
+// Text committed by the IME: controls only consume text as key events, so each deletion and
+// character is sent as a press and release, without crossing JNI for each of them.
+static void _commit_text(int p_deletions, const int32_t *p_chars, int p_count) {
+
+	for (int i = 0; i < p_deletions; i++) {
+		_key(AKEYCODE_DEL, 0, true);
+		_key(AKEYCODE_DEL, 0, false);
+	}
+
+	for (int i = 0; i < p_count; i++) {
+		if (p_chars[i] == 0) {
+			continue;
+		}
+		_key(0, p_chars[i], true);
+		_key(0, p_chars[i], false);
+	}
+}
+
+// Keep in sync with InputEventRing.TYPE_*.
+enum InputEventType {
+	INPUT_EVENT_TOUCH = 1,
+	INPUT_EVENT_HOVER = 2,
+	INPUT_EVENT_DOUBLE_TAP = 3,
+	INPUT_EVENT_SCROLL = 4,
+	INPUT_EVENT_KEY = 5,
+	INPUT_EVENT_JOY_BUTTON = 6,
+	INPUT_EVENT_JOY_AXIS = 7,
+	INPUT_EVENT_JOY_HAT = 8,
+	INPUT_EVENT_TOUCH_PREDICTION = 9,
+	INPUT_EVENT_SENSOR = 10,
+	INPUT_EVENT_TEXT = 11,
+	INPUT_EVENT_JOY_CONNECTION = 12,
+};
+
+JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_dispatchInputEvents(JNIEnv *env, jclass clazz, jobject events, jint length) {
+	if (step == 0)
+		return;
+
+	const int32_t *data = (const int32_t *)env->GetDirectBufferAddress(events);
+	ERR_FAIL_COND(!data);
+
+	int pos = 0;
+	while (pos < length) {
+		// Header is 'type | (record length << 8)', see InputEventRing.
+		int type = data[pos] & 0xFF;
+		int record_length = (uint32_t)data[pos] >> 8;
+		ERR_FAIL_COND_MSG(record_length <= 0 || pos + record_length > length, "Malformed input event batch.");
+		const int32_t *p = data + pos + 1;
+
+		switch (type) {
+			case INPUT_EVENT_TOUCH: {
+				ERR_FAIL_COND(record_length != 1 + _touch_record_size(p[2], p[3]));
+				_touch(p);
+			} break;
+			case INPUT_EVENT_HOVER: {
+				os_android->process_hover(p[0], Point2(p[1], p[2]));
+			} break;
+			case INPUT_EVENT_DOUBLE_TAP: {
+				os_android->process_double_tap(Point2(p[0], p[1]));
+			} break;
+			case INPUT_EVENT_SCROLL: {
+				os_android->process_scroll(Point2(p[0], p[1]));
+			} break;
+			case INPUT_EVENT_KEY: {
+				_key(p[0], p[1], p[2] != 0);
+			} break;
+			case INPUT_EVENT_JOY_BUTTON: {
+				OS_Android::JoypadEvent jevent;
+				jevent.device = p[0];
+				jevent.type = OS_Android::JOY_EVENT_BUTTON;
+				jevent.index = p[1];
+				jevent.pressed = p[2] != 0;
+				os_android->process_joy_event(jevent);
+			} break;
+			case INPUT_EVENT_JOY_AXIS: {
+				OS_Android::JoypadEvent jevent;
+				jevent.device = p[0];
+				jevent.type = OS_Android::JOY_EVENT_AXIS;
+				jevent.index = p[1];
+				jevent.value = _int_bits_to_float(p[2]);
+				os_android->process_joy_event(jevent);
+			} break;
+			case INPUT_EVENT_JOY_HAT: {
+				_joy_hat(p[0], p[1], p[2]);
+			} break;
+			case INPUT_EVENT_TOUCH_PREDICTION: {
+				// lead time in msecs, count, then (id, x, y) per pointer.
+				float lead_time = p[0] / 1000.0;
+				int count = p[1];
+				for (int i = 0; i < count; i++) {
+					Ref<InputEventScreenDragPrediction> ev;
+					ev.instance();
+					ev->set_index(p[2 + i * 3]);
+					ev->set_position(Point2(_int_bits_to_float(p[3 + i * 3]), _int_bits_to_float(p[4 + i * 3])));
+					ev->set_lead_time(lead_time);
+					os_android->process_event(ev);
+				}
+			} break;
+			case INPUT_EVENT_SENSOR: {
+				// Latest value, applied to the input at the next step.
+				Vector3 value(_int_bits_to_float(p[1]), _int_bits_to_float(p[2]), _int_bits_to_float(p[3]));
+				switch (p[0]) {
+					case InputDefaultAndroid::SENSOR_ACCELEROMETER:
+						accelerometer = value;
+						break;
+					case InputDefaultAndroid::SENSOR_GRAVITY:
+						gravity = value;
+						break;
+					case InputDefaultAndroid::SENSOR_MAGNETOMETER:
+						magnetometer = value;
+						break;
+					case InputDefaultAndroid::SENSOR_GYROSCOPE:
+						gyroscope = value;
+						break;
+				}
+			} break;
+			case INPUT_EVENT_TEXT: {
+				// deletions, count, then the code points.
+				ERR_FAIL_COND(record_length != 3 + p[1]);
+				_commit_text(p[0], p + 2, p[1]);
+			} break;
+			case INPUT_EVENT_JOY_CONNECTION: {
+				// device, connected, name length, then the code points of the name.
+				ERR_FAIL_COND(record_length != 4 + p[2]);
+				String name;
+				name.resize(p[2] + 1);
+				for (int i = 0; i < p[2]; i++) {
+					name[i] = p[3 + i];
+				}
+				name[p[2]] = 0;
+				os_android->joy_connection_changed(p[0], p[1] != 0, name);
+			} break;
+			default: {
+				WARN_PRINT("Unknown input event type: " + itos(type) + ".");
+			} break;
+		}
+
+		pos += record_length;
+	}
+}
+
 JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_accelerometer(JNIEnv *env, jclass clazz, jfloat x, jfloat y, jfloat z) {
 	accelerometer = Vector3(x, y, z);
 }
@@ -441,6 +641,27 @@ JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_audio(JNIEnv *env, jc
 	AudioDriverAndroid::thread_func(env);
 }
 
+JNIEXPORT jint JNICALL Java_org_godotengine_godot_GodotLib_audioCaptureWrite(JNIEnv *env, jclass clazz, jobject buffer, jint samples) {
+
+	return AudioDriverAndroid::capture_write(env, buffer, samples);
+}
+
+JNIEXPORT jint JNICALL Java_org_godotengine_godot_GodotLib_audioCaptureQueued(JNIEnv *env, jclass clazz) {
+
+	return AudioDriverAndroid::capture_get_queued();
+}
+
+JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_audioCaptureFailed(JNIEnv *env, jclass clazz, jint error) {
+
+	AudioDriverAndroid::capture_failed(error);
+}
+
+JNIEXPORT void JNICALL Java_org_godotengine_godot_GodotLib_videoStateChanged(JNIEnv *env, jclass clazz, jint state) {
+
+	if (os_android)
+		os_android->set_video_state(state);
+}
+
 JNIEXPORT jstring JNICALL Java_org_godotengine_godot_GodotLib_getGlobal(JNIEnv *env, jclass clazz, jstring path) {
 
 	String js = jstring_to_string(path, env);
@@ -60,6 +60,7 @@ private:
 	jmethodID _get_surface = 0;
 	jmethodID _is_activity_resumed = 0;
 	jmethodID _vibrate = 0;
+	jmethodID _enable_sensor = 0;
 	jmethodID _get_input_fallback_mapping = 0;
 	jmethodID _on_godot_main_loop_started = 0;
 
@@ -91,6 +92,7 @@ public:
 	jobject get_surface();
 	bool is_activity_resumed();
 	void vibrate(int p_duration_ms);
+	void enable_sensor(int p_sensor);
 	String get_input_fallback_mapping();
 };
 
@@ -43,6 +43,7 @@
 
 #include "dir_access_jandroid.h"
 #include "file_access_jandroid.h"
+#include "input_default_android.h"
 #include "net_socket_android.h"
 
 #include <dlfcn.h>
@@ -74,29 +75,17 @@ const char *OS_Android::get_video_driver_name(int p_driver) const {
 	}
 	ERR_FAIL_V_MSG(NULL, "Invalid video driver index: " + itos(p_driver) + ".");
 }
-int OS_Android::get_audio_driver_count() const {
-
-	return 1;
-}
-
-const char *OS_Android::get_audio_driver_name(int p_driver) const {
-
-	return "Android";
-}
-
 void OS_Android::initialize_core() {
 
 	OS_Unix::initialize_core();
 
 	if (use_apk_expansion)
 		FileAccess::make_default<FileAccessUnix>(FileAccess::ACCESS_RESOURCES);
-	else {
-#ifdef USE_JAVA_FILE_ACCESS
+	else if (use_java_file_access)
 		FileAccess::make_default<FileAccessBufferedFA<FileAccessJAndroid> >(FileAccess::ACCESS_RESOURCES);
-#else
+	else {
 		//FileAccess::make_default<FileAccessBufferedFA<FileAccessAndroid> >(FileAccess::ACCESS_RESOURCES);
 		FileAccess::make_default<FileAccessAndroid>(FileAccess::ACCESS_RESOURCES);
-#endif
 	}
 	FileAccess::make_default<FileAccessUnix>(FileAccess::ACCESS_USERDATA);
 	FileAccess::make_default<FileAccessUnix>(FileAccess::ACCESS_FILESYSTEM);
@@ -123,6 +112,13 @@ int OS_Android::get_current_video_driver() const {
 
 Error OS_Android::initialize(const VideoMode &p_desired, int p_video_driver, int p_audio_driver) {
 
+	// The project settings aren't loaded yet in initialize_core(), so the resources are switched
+	// to the Java file access here. Files opened until now keep the native access.
+	if (!use_apk_expansion && !use_java_file_access && GLOBAL_GET("android/java_file_access")) {
+		use_java_file_access = true;
+		FileAccess::make_default<FileAccessBufferedFA<FileAccessJAndroid> >(FileAccess::ACCESS_RESOURCES);
+	}
+
 	bool use_gl3 = godot_java->get_gles_version_code() >= 0x00030000;
 	use_gl3 = use_gl3 && (GLOBAL_GET("rendering/quality/driver/driver_name") == "GLES3");
 	bool gl_initialization_error = false;
@@ -175,7 +171,7 @@ Error OS_Android::initialize(const VideoMode &p_desired, int p_video_driver, int
 
 	AudioDriverManager::initialize(p_audio_driver);
 
-	input = memnew(InputDefault);
+	input = memnew(InputDefaultAndroid(godot_java));
 	input->set_fallback_mapping(godot_java->get_input_fallback_mapping());
 
 	//power_manager = memnew(PowerAndroid);
@@ -330,6 +326,7 @@ void OS_Android::main_loop_focusout() {
 	if (main_loop)
 		main_loop->notification(MainLoop::NOTIFICATION_WM_FOCUS_OUT);
 	audio_driver_android.set_pause(true);
+	audio_driver_jandroid.set_pause(true);
 }
 
 void OS_Android::main_loop_focusin() {
@@ -337,6 +334,7 @@ void OS_Android::main_loop_focusin() {
 	if (main_loop)
 		main_loop->notification(MainLoop::NOTIFICATION_WM_FOCUS_IN);
 	audio_driver_android.set_pause(false);
+	audio_driver_jandroid.set_pause(false);
 }
 
 void OS_Android::process_joy_event(OS_Android::JoypadEvent p_event) {
@@ -364,11 +362,24 @@ void OS_Android::process_event(Ref<InputEvent> p_event) {
 	input->parse_input_event(p_event);
 }
 
-void OS_Android::process_touch(int p_what, int p_pointer, const Vector<TouchPos> &p_points) {
+void OS_Android::process_touch(int p_what, int p_pointer, const Vector<TouchPos> &p_points, uint64_t p_time_msec) {
+
+	// Only known when the samples are timestamped.
+	float speed_scale = 0;
+	if (p_time_msec > touch_time && touch_time != 0) {
+		speed_scale = 1000.0 / (p_time_msec - touch_time);
+	}
+	if (p_time_msec != 0) {
+		touch_time = p_time_msec;
+	}
 
 	switch (p_what) {
 		case 0: { //gesture begin
 
+			// The drag speeds of this gesture are measured from its start, never from a sample
+			// of the previous one.
+			touch_time = p_time_msec;
+
 			if (touch.size()) {
 				//end all if exist
 				for (int i = 0; i < touch.size(); i++) {
@@ -425,6 +436,7 @@ void OS_Android::process_touch(int p_what, int p_pointer, const Vector<TouchPos>
 				ev->set_index(touch[i].id);
 				ev->set_position(p_points[idx].pos);
 				ev->set_relative(p_points[idx].pos - touch[i].pos);
+				ev->set_speed(ev->get_relative() * speed_scale);
 				input->parse_input_event(ev);
 				touch.write[i].pos = p_points[idx].pos;
 			}
@@ -445,6 +457,7 @@ void OS_Android::process_touch(int p_what, int p_pointer, const Vector<TouchPos>
 				}
 				touch.clear();
 			}
+			touch_time = 0;
 		} break;
 		case 3: { // add touch
 
@@ -699,15 +712,25 @@ String OS_Android::get_unique_id() const {
 }
 
 Error OS_Android::native_video_play(String p_path, float p_volume, String p_audio_track, String p_subtitle_track) {
-	// FIXME: Add support for volume, audio and subtitle tracks
+	// FIXME: Add support for audio and subtitle tracks
+
+	String path = p_path;
+	bool asset = path.begins_with("res://");
+	if (asset) {
+		path = path.substr(6, path.length());
+	} else {
+		path = ProjectSettings::get_singleton()->globalize_path(path);
+	}
 
-	godot_io_java->play_video(p_path);
+	// Preparing is asynchronous, failures are reported through the video state.
+	video_state = VIDEO_STATE_PREPARING;
+	godot_io_java->play_video(path, asset, p_volume);
 	return OK;
 }
 
 bool OS_Android::native_video_is_playing() const {
 
-	return godot_io_java->is_video_playing();
+	return video_state == VIDEO_STATE_PREPARING || video_state == VIDEO_STATE_PLAYING;
 }
 
 void OS_Android::native_video_pause() {
@@ -715,6 +738,16 @@ void OS_Android::native_video_pause() {
 	godot_io_java->pause_video();
 }
 
+void OS_Android::native_video_unpause() {
+
+	godot_io_java->resume_video();
+}
+
+void OS_Android::set_video_state(int p_state) {
+
+	video_state = p_state;
+}
+
 String OS_Android::get_system_dir(SystemDir p_dir) const {
 
 	return godot_io_java->get_system_dir(p_dir);
@@ -769,9 +802,16 @@ bool OS_Android::_check_internal_feature_support(const String &p_feature) {
 	return false;
 }
 
-OS_Android::OS_Android(GodotJavaWrapper *p_godot_java, GodotIOJavaWrapper *p_godot_io_java, bool p_use_apk_expansion) {
+OS_Android::OS_Android(GodotJavaWrapper *p_godot_java, GodotIOJavaWrapper *p_godot_io_java, bool p_use_apk_expansion, bool p_use_java_file_access) {
 
 	use_apk_expansion = p_use_apk_expansion;
+	touch_time = 0;
+	video_state = VIDEO_STATE_STOPPED;
+#ifdef USE_JAVA_FILE_ACCESS
+	use_java_file_access = true;
+#else
+	use_java_file_access = p_use_java_file_access;
+#endif
 	default_videomode.width = 800;
 	default_videomode.height = 600;
 	default_videomode.fullscreen = true;
@@ -790,6 +830,7 @@ OS_Android::OS_Android(GodotJavaWrapper *p_godot_java, GodotIOJavaWrapper *p_god
 	_set_logger(memnew(CompositeLogger(loggers)));
 
 	AudioDriverManager::add_driver(&audio_driver_android);
+	AudioDriverManager::add_driver(&audio_driver_jandroid);
 }
 
 OS_Android::~OS_Android() {
@@ -51,6 +51,16 @@ public:
 		Point2 pos;
 	};
 
+	// Keep in sync with VideoPlayer.STATE_*.
+	enum VideoState {
+		VIDEO_STATE_STOPPED,
+		VIDEO_STATE_PREPARING,
+		VIDEO_STATE_PLAYING,
+		VIDEO_STATE_PAUSED,
+		VIDEO_STATE_COMPLETED,
+		VIDEO_STATE_ERROR
+	};
+
 	enum {
 		JOY_EVENT_BUTTON = 0,
 		JOY_EVENT_AXIS = 1,
@@ -69,11 +79,13 @@ public:
 
 private:
 	Vector<TouchPos> touch;
+	uint64_t touch_time; // Time of the last touch sample in msecs, used for the drag speed.
 	Point2 hover_prev_pos; // needed to calculate the relative position on hover events
 	Point2 scroll_prev_pos; // needed to calculate the relative position on scroll events
 
 	bool use_gl2;
 	bool use_apk_expansion;
+	bool use_java_file_access;
 
 	bool use_16bits_fbo;
 
@@ -81,8 +93,8 @@ private:
 
 	mutable String data_dir_cache;
 
-	//AudioDriverAndroid audio_driver_android;
 	AudioDriverOpenSL audio_driver_android;
+	AudioDriverAndroid audio_driver_jandroid;
 
 	const char *gl_extensions;
 
@@ -97,13 +109,14 @@ private:
 
 	int video_driver_index;
 
+	// Pushed by the Java VideoPlayer, so checking the playback doesn't need a JNI call.
+	volatile int video_state;
+
 public:
 	// functions used by main to initialize/deinitialize the OS
 	virtual int get_video_driver_count() const;
 	virtual const char *get_video_driver_name(int p_driver) const;
 
-	virtual int get_audio_driver_count() const;
-	virtual const char *get_audio_driver_name(int p_driver) const;
 
 	virtual int get_current_video_driver() const;
 
@@ -186,7 +199,7 @@ public:
 	void process_gravity(const Vector3 &p_gravity);
 	void process_magnetometer(const Vector3 &p_magnetometer);
 	void process_gyroscope(const Vector3 &p_gyroscope);
-	void process_touch(int p_what, int p_pointer, const Vector<TouchPos> &p_points);
+	void process_touch(int p_what, int p_pointer, const Vector<TouchPos> &p_points, uint64_t p_time_msec = 0);
 	void process_hover(int p_type, Point2 p_pos);
 	void process_double_tap(Point2 p_pos);
 	void process_scroll(Point2 p_pos);
@@ -197,7 +210,9 @@ public:
 	virtual Error native_video_play(String p_path, float p_volume, String p_audio_track, String p_subtitle_track);
 	virtual bool native_video_is_playing() const;
 	virtual void native_video_pause();
+	virtual void native_video_unpause();
 	virtual void native_video_stop();
+	void set_video_state(int p_state);
 
 	virtual bool is_joy_known(int p_device);
 	virtual String get_joy_guid(int p_device) const;
@@ -205,7 +220,7 @@ public:
 	void vibrate_handheld(int p_duration_ms);
 
 	virtual bool _check_internal_feature_support(const String &p_feature);
-	OS_Android(GodotJavaWrapper *p_godot_java, GodotIOJavaWrapper *p_godot_io_java, bool p_use_apk_expansion);
+	OS_Android(GodotJavaWrapper *p_godot_java, GodotIOJavaWrapper *p_godot_io_java, bool p_use_apk_expansion, bool p_use_java_file_access);
 	~OS_Android();
 };
 